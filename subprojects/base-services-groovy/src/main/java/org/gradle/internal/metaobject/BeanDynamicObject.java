@@ -37,7 +37,6 @@ import org.gradle.internal.reflect.JavaReflectionUtil;
 
 import javax.annotation.Nullable;
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.Collections;
@@ -53,7 +52,6 @@ import java.util.Map;
  * coercion and error reporting. Enjoy.
  */
 public class BeanDynamicObject extends AbstractDynamicObject {
-    private static final Method META_PROP_METHOD;
     private static final Field MISSING_PROPERTY_GET_METHOD;
     private static final Field MISSING_PROPERTY_SET_METHOD;
     private static final Field MISSING_METHOD_METHOD;
@@ -72,8 +70,6 @@ public class BeanDynamicObject extends AbstractDynamicObject {
 
     static {
         try {
-            META_PROP_METHOD = MetaClassImpl.class.getDeclaredMethod("getMetaProperty", String.class, boolean.class);
-            META_PROP_METHOD.setAccessible(true);
             MISSING_PROPERTY_GET_METHOD = MetaClassImpl.class.getDeclaredField("propertyMissingGet");
             MISSING_PROPERTY_GET_METHOD.setAccessible(true);
             MISSING_PROPERTY_SET_METHOD = MetaClassImpl.class.getDeclaredField("propertyMissingSet");
@@ -326,18 +322,17 @@ public class BeanDynamicObject extends AbstractDynamicObject {
 
         /*
          * MetaClass.getMetaProperty(name) is very expensive when the property is not known.
-         * Instead, we reach into the meta class to call a much more efficient lookup method.
-         * Since we do this in a hot code path, we also reuse the argument array used for the
-         * reflective call to save memory.
+         * Instead, we reach into the meta class to call a much more efficient lookup method,
+         * and remember the result for meta classes that cannot change.
          */
         @Nullable
         protected MetaProperty lookupProperty(MetaClass metaClass, String name) {
+            MetaClassLookupCache lookupCache = MetaClassLookupCache.of(metaClass);
+            if (lookupCache != null) {
+                return lookupCache.getMetaProperty(metaClass, name);
+            }
             if (metaClass instanceof MetaClassImpl) {
-                try {
-                    return (MetaProperty) META_PROP_METHOD.invoke(metaClass, name, false);
-                } catch (Throwable e) {
-                    throw UncheckedException.throwAsUncheckedException(e);
-                }
+                return MetaClassLookupCache.findMetaProperty((MetaClassImpl) metaClass, name);
             }
 
             // Some other meta-class implementation - fall back to the public API
@@ -508,6 +503,10 @@ public class BeanDynamicObject extends AbstractDynamicObject {
 
         @Nullable
         protected MetaMethod lookupMethod(MetaClass metaClass, String name, Class[] arguments) {
+            MetaClassLookupCache lookupCache = MetaClassLookupCache.of(metaClass);
+            if (lookupCache != null) {
+                return lookupCache.pickMethod(metaClass, name, arguments);
+            }
             return metaClass.pickMethod(name, arguments);
         }
 
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.metaobject;
+
+import com.google.common.collect.MapMaker;
+import groovy.lang.MetaClass;
+import groovy.lang.MetaClassImpl;
+import groovy.lang.MetaMethod;
+import groovy.lang.MetaProperty;
+import org.gradle.internal.UncheckedException;
+
+import javax.annotation.Nullable;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers the properties and methods found by name on a meta-class, including the names that were not found, so that repeated
+ * dynamic access to the same name on objects of the same type does not need to search the meta-class again.
+ *
+ * <p>Only plain {@link MetaClassImpl} instances are cached, as they do not change once initialized. Other meta-classes, such as an
+ * {@link groovy.lang.ExpandoMetaClass}, can have members added at any time. Replacing the meta-class of a type or an object
+ * replaces the meta-class instance, and so the cache along with it.</p>
+ *
+ * <p>The caches are held weakly by meta-class, and nothing in a cache refers strongly to a class: the meta-class is passed to each lookup,
+ * the properties, methods and argument types are held weakly. So a cache does not keep the class loader of the type, or of the argument
+ * types, from being collected. The properties and methods are held strongly by the meta-class itself, so they stay cached as long as
+ * the meta-class is in use.</p>
+ */
+class MetaClassLookupCache {
+    private static final Method META_PROP_METHOD;
+    private static final Object MISSING = new Object();
+    private static final ConcurrentMap<MetaClass, MetaClassLookupCache> CACHES = new MapMaker().weakKeys().makeMap();
+
+    static {
+        try {
+            META_PROP_METHOD = MetaClassImpl.class.getDeclaredMethod("getMetaProperty", String.class, boolean.class);
+            META_PROP_METHOD.setAccessible(true);
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    // Values are either MISSING or a weak reference to the member
+    private final ConcurrentMap<String, Object> properties = new ConcurrentHashMap<String, Object>();
+    private final ConcurrentMap<MethodKey, Object> methods = new ConcurrentHashMap<MethodKey, Object>();
+
+    private MetaClassLookupCache() {
+    }
+
+    /**
+     * Returns the cache for the given meta-class, or null when lookups on the meta-class cannot be cached. The lookups on the returned
+     * cache must be given the same meta-class.
+     */
+    @Nullable
+    static MetaClassLookupCache of(MetaClass metaClass) {
+        if (metaClass.getClass() != MetaClassImpl.class) {
+            return null;
+        }
+        MetaClassLookupCache cache = CACHES.get(metaClass);
+        if (cache == null) {
+            cache = new MetaClassLookupCache();
+            MetaClassLookupCache existing = CACHES.putIfAbsent(metaClass, cache);
+            if (existing != null) {
+                cache = existing;
+            }
+        }
+        return cache;
+    }
+
+    /*
+     * MetaClass.getMetaProperty(name) is very expensive when the property is not known.
+     * Instead, we reach into the meta class to call a much more efficient lookup method.
+     */
+    @Nullable
+    static MetaProperty findMetaProperty(MetaClassImpl metaClass, String name) {
+        try {
+            return (MetaProperty) META_PROP_METHOD.invoke(metaClass, name, false);
+        } catch (Throwable e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    @Nullable
+    MetaProperty getMetaProperty(MetaClass metaClass, String name) {
+        Object cached = properties.get(name);
+        Object property = cached == null || cached == MISSING ? cached : ((WeakReference<?>) cached).get();
+        if (property == null) {
+            property = findMetaProperty((MetaClassImpl) metaClass, name);
+            properties.put(name, property == null ? MISSING : new WeakReference<Object>(property));
+        }
+        return property == MISSING ? null : (MetaProperty) property;
+    }
+
+    @Nullable
+    MetaMethod pickMethod(MetaClass metaClass, String name, Class[] argumentTypes) {
+        Object cached = methods.get(new MethodKey(name, argumentTypes));
+        Object method = cached == null || cached == MISSING ? cached : ((WeakReference<?>) cached).get();
+        if (method == null) {
+            method = metaClass.pickMethod(name, argumentTypes);
+            methods.put(new MethodKey(name, weakTypes(argumentTypes)), method == null ? MISSING : new WeakReference<Object>(method));
+        }
+        return method == MISSING ? null : (MetaMethod) method;
+    }
+
+    private static Object[] weakTypes(Class[] argumentTypes) {
+        Object[] types = new Object[argumentTypes.length];
+        for (int i = 0; i < argumentTypes.length; i++) {
+            types[i] = argumentTypes[i] == null ? null : new WeakReference<Class<?>>(argumentTypes[i]);
+        }
+        return types;
+    }
+
+    /**
+     * The name and argument types of a method lookup. The argument types are either classes, for the key used to look up a method, or
+     * weak references to classes, for the key stored in the cache. A stored key whose classes have been collected no longer matches.
+     */
+    private static class MethodKey {
+        private final String name;
+        private final Object[] argumentTypes;
+        private final int hashCode;
+
+        MethodKey(String name, Class[] argumentTypes) {
+            this.name = name;
+            this.argumentTypes = argumentTypes;
+            this.hashCode = 31 * name.hashCode() + Arrays.hashCode(argumentTypes);
+        }
+
+        MethodKey(String name, Object[] weakArgumentTypes) {
+            this.name = name;
+            this.argumentTypes = weakArgumentTypes;
+            int hashCode = 1;
+            for (Object type : weakArgumentTypes) {
+                hashCode = 31 * hashCode + (type == null ? 0 : typeOf(type).hashCode());
+            }
+            this.hashCode = 31 * name.hashCode() + hashCode;
+        }
+
+        @Nullable
+        private static Class<?> typeOf(@Nullable Object type) {
+            return type instanceof WeakReference ? (Class<?>) ((WeakReference<?>) type).get() : (Class<?>) type;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof MethodKey)) {
+                return false;
+            }
+            MethodKey other = (MethodKey) obj;
+            if (!name.equals(other.name) || argumentTypes.length != other.argumentTypes.length) {
+                return false;
+            }
+            for (int i = 0; i < argumentTypes.length; i++) {
+                Class<?> type = typeOf(argumentTypes[i]);
+                if (type != typeOf(other.argumentTypes[i]) || (type == null && argumentTypes[i] != other.argumentTypes[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -715,6 +715,39 @@ class BeanDynamicObjectTest extends Specification {
         e.message == "Could not find method unknown() for arguments [] on <bean> of type ${bean.getClass().name}."
     }
 
+    def "selects method overload for argument types after other overloads have been looked up"() {
+        def dynamicObject = new BeanDynamicObject(new Bean())
+
+        expect:
+        dynamicObject.invokeMethod("overlap", 12) == Number
+        dynamicObject.invokeMethod("overlap", Integer) == Class
+        dynamicObject.invokeMethod("overlap", 12) == Number
+        !dynamicObject.hasMethod("overlap", "12")
+        !dynamicObject.hasMethod("overlap", "12")
+    }
+
+    def "finds properties and methods added to meta-class of object after lookups"() {
+        def bean = new Bean()
+        def dynamicObject = new BeanDynamicObject(bean)
+
+        expect:
+        !dynamicObject.hasProperty("added")
+        !dynamicObject.hasMethod("addedMethod")
+
+        when:
+        def metaClass = new ExpandoMetaClass(Bean, false, true)
+        metaClass.getAdded = { -> "value" }
+        metaClass.addedMethod = { -> "result" }
+        metaClass.initialize()
+        bean.metaClass = metaClass
+
+        then:
+        dynamicObject.hasProperty("added")
+        dynamicObject.getProperty("added") == "value"
+        dynamicObject.hasMethod("addedMethod")
+        dynamicObject.invokeMethod("addedMethod") == "result"
+    }
+
     enum SomeEnum {
         A, B, C
     }
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.metaobject
+
+import groovy.transform.CompileStatic
+import org.gradle.test.fixtures.ConcurrentTestUtil
+import spock.lang.Specification
+
+import java.lang.ref.WeakReference
+
+class MetaClassLookupCacheTest extends Specification {
+    def metaClass = new MetaClassImpl(Thing)
+
+    def setup() {
+        metaClass.initialize()
+    }
+
+    def "reuses cache for meta-class"() {
+        expect:
+        MetaClassLookupCache.of(metaClass).is(MetaClassLookupCache.of(metaClass))
+        !MetaClassLookupCache.of(metaClass).is(MetaClassLookupCache.of(initialized(new MetaClassImpl(Thing))))
+    }
+
+    def "does not cache lookups on meta-class that can change"() {
+        expect:
+        MetaClassLookupCache.of(initialized(new ExpandoMetaClass(Thing))) == null
+    }
+
+    def "finds properties and remembers missing properties"() {
+        def cache = MetaClassLookupCache.of(metaClass)
+
+        expect:
+        cache.getMetaProperty(metaClass, "prop").name == "prop"
+        cache.getMetaProperty(metaClass, "prop").is(cache.getMetaProperty(metaClass, "prop"))
+        cache.getMetaProperty(metaClass, "unknown") == null
+        cache.getMetaProperty(metaClass, "unknown") == null
+    }
+
+    def "finds methods by argument types and remembers missing methods"() {
+        def cache = MetaClassLookupCache.of(metaClass)
+
+        expect:
+        cache.pickMethod(metaClass, "m", [String] as Class[]).parameterTypes*.theClass == [String]
+        cache.pickMethod(metaClass, "m", [Integer] as Class[]).parameterTypes*.theClass == [Number]
+        cache.pickMethod(metaClass, "m", [Thing] as Class[]) == null
+        cache.pickMethod(metaClass, "m", [Thing] as Class[]) == null
+        cache.pickMethod(metaClass, "unknown", [] as Class[]) == null
+    }
+
+    def "is not affected by changes to argument types array after lookup"() {
+        def cache = MetaClassLookupCache.of(metaClass)
+        def types = [String] as Class[]
+
+        when:
+        cache.pickMethod(metaClass, "m", types)
+        types[0] = Thing
+
+        then:
+        cache.pickMethod(metaClass, "m", [String] as Class[]) != null
+        cache.pickMethod(metaClass, "m", [Thing] as Class[]) == null
+    }
+
+    def "does not keep the class loader of a type or of argument types from being collected"() {
+        when:
+        def classLoader = lookUpMembersOfTypeInNewClassLoader()
+
+        then:
+        ConcurrentTestUtil.poll(10) {
+            System.gc()
+            assert classLoader.get() == null
+        }
+    }
+
+    @CompileStatic
+    // must be compile static to avoid call sites holding references to the classes
+    private static WeakReference<ClassLoader> lookUpMembersOfTypeInNewClassLoader() {
+        def classLoader = new GroovyClassLoader(MetaClassLookupCacheTest.classLoader)
+        Class<?> type = classLoader.parseClass("class CollectedThing { String prop; void m(CollectedThing t) {} }")
+        def metaClass = new MetaClassImpl(type)
+        metaClass.initialize()
+        def cache = MetaClassLookupCache.of(metaClass)
+        assert cache.getMetaProperty(metaClass, "prop") != null
+        assert cache.getMetaProperty(metaClass, "unknown") == null
+        assert cache.pickMethod(metaClass, "m", [type] as Class[]) != null
+        assert cache.pickMethod(metaClass, "unknown", [type] as Class[]) == null
+        classLoader.clearCache()
+        return new WeakReference<ClassLoader>(classLoader)
+    }
+
+    private static MetaClass initialized(MetaClass metaClass) {
+        metaClass.initialize()
+        return metaClass
+    }
+
+    static class Thing {
+        String prop
+
+        void m(String s) {
+        }
+
+        void m(Number n) {
+        }
+    }
+}
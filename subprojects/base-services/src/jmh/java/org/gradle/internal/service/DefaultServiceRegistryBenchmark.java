@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Creates child registries the way project and task scoped registries are created, and looks up services from them.
+ */
+@Fork(2)
+@Threads(2)
+@Warmup(iterations = 10)
+@State(Scope.Benchmark)
+public class DefaultServiceRegistryBenchmark {
+
+    private DefaultServiceRegistry parent;
+    private DefaultServiceRegistry child;
+
+    @Setup
+    public void setup() {
+        parent = new ParentServices();
+        child = new ChildServices(parent);
+        child.get(ChildService.class);
+    }
+
+    @Benchmark
+    public void createRegistryAndLookup(Blackhole bh) {
+        DefaultServiceRegistry registry = new ChildServices(parent);
+        bh.consume(registry.get(ChildService.class));
+        bh.consume(registry.get(ParentService.class));
+        bh.consume(registry.find(UnknownService.class));
+    }
+
+    @Benchmark
+    public void lookupOwnService(Blackhole bh) {
+        bh.consume(child.get(ChildService.class));
+    }
+
+    @Benchmark
+    public void lookupParentService(Blackhole bh) {
+        bh.consume(child.get(ParentService.class));
+    }
+
+    @Benchmark
+    public void lookupUnknownService(Blackhole bh) {
+        bh.consume(child.find(UnknownService.class));
+    }
+
+    public interface ParentService {
+    }
+
+    public interface OtherParentService {
+    }
+
+    public interface ChildService {
+    }
+
+    public interface OtherChildService {
+    }
+
+    public interface UnknownService {
+    }
+
+    private static class ParentServices extends DefaultServiceRegistry {
+        ParentService createParentService() {
+            return new ParentService() {
+            };
+        }
+
+        OtherParentService createOtherParentService() {
+            return new OtherParentService() {
+            };
+        }
+    }
+
+    private static class ChildServices extends DefaultServiceRegistry {
+        ChildServices(ServiceRegistry parent) {
+            super(parent);
+        }
+
+        ChildService createChildService(ParentService parentService, OtherChildService otherChildService) {
+            return new ChildService() {
+            };
+        }
+
+        OtherChildService createOtherChildService(OtherParentService otherParentService) {
+            return new OtherChildService() {
+            };
+        }
+    }
+}
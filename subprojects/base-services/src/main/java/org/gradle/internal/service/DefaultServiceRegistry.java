@@ -33,13 +33,14 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Formatter;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -73,6 +74,7 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable {
     private final static ServiceRegistry[] NO_PARENTS = new ServiceRegistry[0];
     private final static Service[] NO_DEPENDENTS = new Service[0];
     private final static Object[] NO_PARAMS = new Object[0];
+    private final static Object NO_SERVICE = new Object();
 
     private final OwnServices ownServices;
     private final ServiceProvider allServices;
@@ -387,13 +389,35 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable {
         void getAll(Class<?> serviceType, List<Service> result);
     }
 
+    /**
+     * The services registered with this registry. Once the registry is no longer mutable, the providers are never changed, so the
+     * services resolved for a type are kept in lookup tables that are read without locking.
+     */
     private class OwnServices implements ServiceProvider {
         private final Map<Class<?>, List<ServiceProvider>> providersByType = new HashMap<Class<?>, List<ServiceProvider>>(16, 0.5f);
+        private final ConcurrentMap<Type, Object> servicesByType = new ConcurrentHashMap<Type, Object>(16, 0.75f, 1);
+        private final ConcurrentMap<Class<?>, Object> factoriesByType = new ConcurrentHashMap<Class<?>, Object>(16, 0.75f, 1);
         private final CompositeStoppable stoppable = CompositeStoppable.stoppable();
         private ProviderAnalyser analyser = new ProviderAnalyser();
 
         @Override
         public Service getFactory(Class<?> type) {
+            Object factory = factoriesByType.get(type);
+            if (factory == null) {
+                factory = resolveFactory(type);
+                if (state.get() != State.INIT) {
+                    factoriesByType.putIfAbsent(type, factory);
+                }
+            }
+            return factory == NO_SERVICE ? null : (Service) factory;
+        }
+
+        private Object resolveFactory(Class<?> type) {
+            Service factory = findFactory(type);
+            return factory == null ? NO_SERVICE : factory;
+        }
+
+        private Service findFactory(Class<?> type) {
             List<ServiceProvider> serviceProviders = getProviders(Factory.class);
             if (serviceProviders.isEmpty()) {
                 return null;
@@ -432,6 +456,22 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable {
 
         @Override
         public Service getService(Type type) {
+            Object service = servicesByType.get(type);
+            if (service == null) {
+                service = resolveService(type);
+                if (state.get() != State.INIT) {
+                    servicesByType.putIfAbsent(type, service);
+                }
+            }
+            return service == NO_SERVICE ? null : (Service) service;
+        }
+
+        private Object resolveService(Type type) {
+            Service service = findService(type);
+            return service == null ? NO_SERVICE : service;
+        }
+
+        private Service findService(Type type) {
             List<ServiceProvider> serviceProviders = getProviders(unwrap(type));
             if (serviceProviders.isEmpty()) {
                 return null;
@@ -500,23 +540,9 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable {
         }
 
         private class ProviderAnalyser {
-            private Set<Class<?>> seen = new HashSet<Class<?>>(4, 0.5f);
-
             public void addProviderForClassHierarchy(Class<?> serviceType, ServiceProvider serviceProvider) {
-                analyseType(serviceType, serviceProvider);
-                seen.clear();
-            }
-
-            private void analyseType(Class<?> type, ServiceProvider serviceProvider) {
-                if (type == null || type == Object.class) {
-                    return;
-                }
-                if (seen.add(type)) {
+                for (Class<?> type : ServiceTypeHierarchy.of(serviceType)) {
                     putServiceType(type, serviceProvider);
-                    analyseType(type.getSuperclass(), serviceProvider);
-                    for (Class<?> iface : type.getInterfaces()) {
-                        analyseType(iface, serviceProvider);
-                    }
                 }
             }
 
@@ -606,7 +632,7 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable {
         final Type serviceType;
         final Class serviceClass;
 
-        BindState state = BindState.UNBOUND;
+        volatile BindState state = BindState.UNBOUND;
         Class factoryElementType;
 
         SingletonService(DefaultServiceRegistry owner, Type serviceType) {
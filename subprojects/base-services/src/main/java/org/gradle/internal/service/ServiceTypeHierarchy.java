@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.service;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * The types that a service of a given type can be located by, which are the type itself and all of its supertypes except {@link Object}.
+ *
+ * <p>The hierarchies are cached across registries. The cache holds the service types weakly, and their supertypes through weak references, so that it
+ * does not keep the class loaders of the service types from being collected.</p>
+ */
+class ServiceTypeHierarchy {
+    private static final Map<Class<?>, List<WeakReference<Class<?>>>> HIERARCHY_CACHE = Collections.synchronizedMap(new WeakHashMap<Class<?>, List<WeakReference<Class<?>>>>());
+
+    private ServiceTypeHierarchy() {
+    }
+
+    public static List<Class<?>> of(Class<?> serviceType) {
+        List<WeakReference<Class<?>>> cached = HIERARCHY_CACHE.get(serviceType);
+        if (cached != null) {
+            List<Class<?>> hierarchy = new ArrayList<Class<?>>(cached.size());
+            for (WeakReference<Class<?>> reference : cached) {
+                // The supertypes cannot be collected while the service type is reachable
+                hierarchy.add(reference.get());
+            }
+            return hierarchy;
+        }
+        Set<Class<?>> types = new LinkedHashSet<Class<?>>();
+        collectTypes(serviceType, types);
+        List<WeakReference<Class<?>>> references = new ArrayList<WeakReference<Class<?>>>(types.size());
+        for (Class<?> type : types) {
+            references.add(new WeakReference<Class<?>>(type));
+        }
+        HIERARCHY_CACHE.put(serviceType, references);
+        return new ArrayList<Class<?>>(types);
+    }
+
+    private static void collectTypes(Class<?> type, Set<Class<?>> types) {
+        if (type == null || type == Object.class) {
+            return;
+        }
+        if (types.add(type)) {
+            collectTypes(type.getSuperclass(), types);
+            for (Class<?> iface : type.getInterfaces()) {
+                collectTypes(iface, types);
+            }
+        }
+    }
+}
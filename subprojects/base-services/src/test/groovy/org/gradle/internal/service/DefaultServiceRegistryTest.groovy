@@ -650,6 +650,39 @@ class DefaultServiceRegistryTest extends Specification {
         registry.get(String) == "123"
     }
 
+    def "services located while registry is mutable are located again once more services are added"() {
+        def registry = new DefaultServiceRegistry()
+
+        given:
+        registry.addProvider(new Object() {
+            void configure(ServiceRegistration registration, Number value) {
+            }
+
+            Integer createNumber() {
+                return 123
+            }
+        })
+        registry.add(Long, 12L)
+
+        when:
+        registry.get(Number)
+
+        then:
+        ServiceLookupException e = thrown()
+        e.message.startsWith("Multiple services of type Number available in DefaultServiceRegistry:")
+    }
+
+    def "locates the same service on repeated lookups"() {
+        given:
+        registry.add(TestServiceImpl, new TestServiceImpl())
+
+        expect:
+        registry.get(TestService).is(registry.get(TestServiceImpl))
+        registry.get(TestService).is(registry.get(TestService))
+        registry.find(Runnable) == null
+        registry.find(Runnable) == null
+    }
+
     def failsWhenProviderConfigureMethodRequiresUnknownService() {
         def registry = new DefaultServiceRegistry()
 
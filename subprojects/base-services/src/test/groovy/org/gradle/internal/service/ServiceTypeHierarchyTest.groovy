@@ -0,0 +1,56 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.service
+
+import groovy.transform.CompileStatic
+import org.gradle.test.fixtures.ConcurrentTestUtil
+import spock.lang.Specification
+
+import java.lang.ref.WeakReference
+
+class ServiceTypeHierarchyTest extends Specification {
+    def "includes the type and its supertypes except Object"() {
+        expect:
+        ServiceTypeHierarchy.of(ArrayList) == ServiceTypeHierarchy.of(ArrayList)
+        ServiceTypeHierarchy.of(ArrayList)[0] == ArrayList
+        ServiceTypeHierarchy.of(ArrayList).containsAll([AbstractList, List, Collection, Iterable, RandomAccess])
+        !ServiceTypeHierarchy.of(ArrayList).contains(Object)
+    }
+
+    def "does not keep the class loader of a service type from being collected"() {
+        when:
+        def classLoader = lookUpHierarchyOfTypeInNewClassLoader()
+
+        then:
+        ConcurrentTestUtil.poll(10) {
+            System.gc()
+            assert classLoader.get() == null
+        }
+    }
+
+    @CompileStatic
+    // must be compile static to avoid call sites holding references to the classes
+    private static WeakReference<ClassLoader> lookUpHierarchyOfTypeInNewClassLoader() {
+        def classLoader = new GroovyClassLoader(ServiceTypeHierarchyTest.classLoader)
+        Class<?> type = classLoader.parseClass("interface CollectedService extends Runnable {}; class CollectedServiceImpl implements CollectedService { void run() {} }")
+        Class<?> implementation = classLoader.loadClass("CollectedServiceImpl")
+        assert ServiceTypeHierarchy.of(implementation).contains(type)
+        assert ServiceTypeHierarchy.of(implementation).contains(Runnable)
+        classLoader.clearCache()
+        return new WeakReference<ClassLoader>(classLoader)
+    }
+}
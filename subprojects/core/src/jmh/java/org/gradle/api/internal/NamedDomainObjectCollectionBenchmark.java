@@ -0,0 +1,202 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal;
+
+import org.gradle.api.Action;
+import org.gradle.api.Named;
+import org.gradle.api.Namer;
+import org.gradle.api.internal.provider.AbstractReadOnlyProvider;
+import org.gradle.api.specs.Spec;
+import org.gradle.internal.Cast;
+import org.gradle.internal.reflect.DirectInstantiator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.annotation.Nullable;
+
+/**
+ * Queries a large container holding realized and pending elements of several types, the way large task containers are queried during configuration.
+ */
+@Fork(2)
+@Warmup(iterations = 10)
+@State(Scope.Benchmark)
+public class NamedDomainObjectCollectionBenchmark {
+    private static final Namer<Element> NAMER = new Namer<Element>() {
+        @Override
+        public String determineName(Element element) {
+            return element.getName();
+        }
+    };
+
+    @Param({"1000", "10000"})
+    int size;
+
+    private DefaultNamedDomainObjectSet<Element> container;
+    private String[] names;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void createContainer() {
+        container = createContainer(size);
+        names = new String[size];
+        for (int i = 0; i < size; i++) {
+            names[i] = "element" + i;
+        }
+    }
+
+    /**
+     * A new container for each invocation, as each configure action stays registered with the container.
+     */
+    @State(Scope.Thread)
+    public static class FreshContainer {
+        private DefaultNamedDomainObjectSet<Element> container;
+
+        @Setup(Level.Invocation)
+        public void createContainer(NamedDomainObjectCollectionBenchmark benchmark) {
+            container = NamedDomainObjectCollectionBenchmark.createContainer(benchmark.size);
+        }
+    }
+
+    private static DefaultNamedDomainObjectSet<Element> createContainer(int size) {
+        DefaultNamedDomainObjectSet<Element> container = new DefaultNamedDomainObjectSet<Element>(Element.class, DirectInstantiator.INSTANCE, NAMER);
+        for (int i = 0; i < size; i++) {
+            String name = "element" + i;
+            if (i % 2 == 0) {
+                container.add(createElement(name, i));
+            } else {
+                container.addLater(new PendingElement(name, i));
+            }
+        }
+        return container;
+    }
+
+    @Benchmark
+    public void withTypeConfigureEach(FreshContainer fresh, final Blackhole bh) {
+        fresh.container.withType(CompileElement.class).configureEach(new Action<CompileElement>() {
+            @Override
+            public void execute(CompileElement element) {
+                bh.consume(element);
+            }
+        });
+    }
+
+    @Benchmark
+    public void withTypeNames(Blackhole bh) {
+        bh.consume(container.withType(TestElement.class).getNames());
+    }
+
+    @Benchmark
+    public void withTypeMatching(Blackhole bh) {
+        bh.consume(container.withType(TestElement.class).matching(new Spec<TestElement>() {
+            @Override
+            public boolean isSatisfiedBy(TestElement element) {
+                return element.getName().endsWith("0");
+            }
+        }).getAsMap());
+    }
+
+    @Benchmark
+    public void named(Blackhole bh) {
+        bh.consume(container.named(names[next++ % names.length]));
+    }
+
+    @Benchmark
+    public void withTypeNamed(Blackhole bh) {
+        bh.consume(container.withType(Element.class).findByName(names[next++ % names.length]));
+    }
+
+    private static Element createElement(String name, int index) {
+        switch (index % 4) {
+            case 0:
+                return new CompileElement(name);
+            case 1:
+                return new TestElement(name);
+            default:
+                return new Element(name);
+        }
+    }
+
+    private static Class<? extends Element> typeOf(int index) {
+        switch (index % 4) {
+            case 0:
+                return CompileElement.class;
+            case 1:
+                return TestElement.class;
+            default:
+                return Element.class;
+        }
+    }
+
+    public static class Element implements Named {
+        private final String name;
+
+        public Element(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+
+    public static class CompileElement extends Element {
+        public CompileElement(String name) {
+            super(name);
+        }
+    }
+
+    public static class TestElement extends Element {
+        public TestElement(String name) {
+            super(name);
+        }
+    }
+
+    private static class PendingElement extends AbstractReadOnlyProvider<Element> implements Named {
+        private final String name;
+        private final int index;
+
+        PendingElement(String name, int index) {
+            this.name = name;
+            this.index = index;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Nullable
+        @Override
+        public Class<Element> getType() {
+            return Cast.uncheckedCast(typeOf(index));
+        }
+
+        @Nullable
+        @Override
+        public Element getOrNull() {
+            return createElement(name, index);
+        }
+    }
+}
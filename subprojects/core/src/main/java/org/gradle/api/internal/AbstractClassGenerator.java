@@ -110,7 +110,12 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
             throw new GradleException(String.format("Cannot create a proxy class for final class '%s'.",
                 type.getSimpleName()));
         }
-        Class<? extends T> subclass;
+        Class<? extends T> subclass = loadGeneratedClass(type);
+        if (subclass != null) {
+            cache.put(type, subclass);
+            cache.put(subclass, subclass);
+            return subclass;
+        }
         try {
             ClassMetaData classMetaData = inspectType(type);
 
@@ -233,6 +238,14 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
         return subclass;
     }
 
+    /**
+     * Returns a class generated for the given type by an earlier process, or null when the class has to be generated.
+     */
+    @Nullable
+    protected <T> Class<? extends T> loadGeneratedClass(Class<T> type) {
+        return null;
+    }
+
     protected abstract <T> ClassBuilder<T> start(Class<T> type, ClassMetaData classMetaData);
 
     private ClassMetaData inspectType(Class<?> type) {
@@ -29,6 +29,7 @@ import org.gradle.api.internal.provider.PropertyInternal;
 import org.gradle.api.plugins.Convention;
 import org.gradle.api.plugins.ExtensionAware;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderUtils;
 import org.gradle.internal.metaobject.AbstractDynamicObject;
 import org.gradle.internal.metaobject.BeanDynamicObject;
 import org.gradle.internal.metaobject.DynamicObject;
@@ -73,9 +74,43 @@ import static org.objectweb.asm.Opcodes.V1_5;
 import static org.objectweb.asm.Type.VOID_TYPE;
 
 public class AsmBackedClassGenerator extends AbstractClassGenerator {
+    private static final String DECORATED_CLASS_NAME_SUFFIX = "_Decorated";
+    private volatile DecoratedClassStore store;
+
+    /**
+     * Sets the store that generated classes are loaded from and stored to, or null to not use any store.
+     */
+    public synchronized void setStore(@Nullable DecoratedClassStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Stops using the given store, unless another store has been set since.
+     */
+    public synchronized void detachStore(DecoratedClassStore store) {
+        if (this.store == store) {
+            this.store = null;
+        }
+    }
+
+    @Nullable
+    @Override
+    protected <T> Class<? extends T> loadGeneratedClass(Class<T> type) {
+        DecoratedClassStore store = this.store;
+        if (store == null) {
+            return null;
+        }
+        byte[] bytecode = store.load(type);
+        if (bytecode == null) {
+            return null;
+        }
+        Class<?> generatedClass = ClassLoaderUtils.defineDecorator(type, type.getClassLoader(), type.getName() + DECORATED_CLASS_NAME_SUFFIX, bytecode);
+        return generatedClass.asSubclass(type);
+    }
+
     @Override
     protected <T> ClassBuilder<T> start(Class<T> type, ClassMetaData classMetaData) {
-        return new ClassBuilderImpl<T>(type, classMetaData);
+        return new ClassBuilderImpl<T>(type, classMetaData, store);
     }
 
     private static class ClassBuilderImpl<T> implements ClassBuilder<T> {
@@ -145,11 +180,13 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
         private final boolean conventionAware;
         private final boolean extensible;
         private final boolean providesOwnDynamicObject;
+        private final DecoratedClassStore store;
 
-        private ClassBuilderImpl(Class<T> type, ClassMetaData classMetaData) {
+        private ClassBuilderImpl(Class<T> type, ClassMetaData classMetaData, @Nullable DecoratedClassStore store) {
             this.type = type;
+            this.store = store;
 
-            classGenerator = new AsmClassGenerator(type, "_Decorated");
+            classGenerator = new AsmClassGenerator(type, DECORATED_CLASS_NAME_SUFFIX);
             visitor = classGenerator.getVisitor();
             generatedType = classGenerator.getGeneratedType();
             superclassType = Type.getType(type);
@@ -975,7 +1012,13 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
             writeGenericReturnTypeFields();
             visitor.visitEnd();
 
-            return classGenerator.define().asSubclass(type);
+            if (store == null) {
+                return classGenerator.define().asSubclass(type);
+            }
+            byte[] bytecode = visitor.toByteArray();
+            Class<?> generatedClass = ClassLoaderUtils.defineDecorator(type, type.getClassLoader(), classGenerator.getGeneratedTypeName(), bytecode);
+            store.store(type, bytecode);
+            return generatedClass.asSubclass(type);
         }
 
         private void writeGenericReturnTypeFields() {
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal;
+
+import javax.annotation.Nullable;
+
+/**
+ * Keeps the bytecode of the classes generated by {@link AsmBackedClassGenerator}, so that a new process can define a generated class
+ * without generating it again.
+ */
+public interface DecoratedClassStore {
+    /**
+     * Returns the bytecode previously stored for the decorated class of the given type, or null when there is none.
+     */
+    @Nullable
+    byte[] load(Class<?> type);
+
+    /**
+     * Stores the bytecode of the decorated class of the given type.
+     */
+    void store(Class<?> type, byte[] bytecode);
+}
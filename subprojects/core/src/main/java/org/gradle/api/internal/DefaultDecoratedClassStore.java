@@ -0,0 +1,229 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal;
+
+import com.google.common.base.Optional;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.LeastRecentlyUsedCacheCleanup;
+import org.gradle.cache.internal.SingleDepthFilesFinder;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.reflect.ClassInspector;
+import org.gradle.internal.reflect.PropertyDetails;
+import org.gradle.internal.resource.local.FileAccessTimeJournal;
+import org.gradle.internal.resource.local.FileAccessTracker;
+import org.gradle.internal.resource.local.SingleDepthFileAccessTracker;
+import org.gradle.util.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.WeakHashMap;
+
+import static org.gradle.cache.internal.LeastRecentlyUsedCacheCleanup.DEFAULT_MAX_AGE_IN_DAYS_FOR_RECREATABLE_CACHE_ENTRIES;
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * Stores the bytecode of generated classes in the Gradle user home. The cache is per Gradle version, and the bytecode of a generated
+ * class is keyed by the bytecode of the type it decorates and of all the supertypes of that type, so a changed type is generated again.
+ * The key also covers the supertypes of the types of the properties, as the generated code depends on whether a property is a
+ * {@link org.gradle.api.provider.Property}, a {@link org.gradle.api.provider.HasMultipleValues} or an {@link Iterable}. Types whose
+ * bytecode, or the bytecode of one of the types they depend on, cannot be found are not stored.
+ *
+ * <p>Entries are written to a temporary file that is then renamed, so entries are never seen partially written and no lock is required.
+ * Entries that have not been used for a while are removed by the cache cleanup.</p>
+ */
+public class DefaultDecoratedClassStore implements DecoratedClassStore, Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultDecoratedClassStore.class);
+
+    private static final int FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP = 1;
+
+    private final AsmBackedClassGenerator classGenerator;
+    private final PersistentCache cache;
+    private final FileAccessTracker fileAccessTracker;
+    private final Map<Class<?>, Optional<HashCode>> hierarchyHashes = Collections.synchronizedMap(new WeakHashMap<Class<?>, Optional<HashCode>>());
+
+    /**
+     * Creates the store and attaches it to the given class generator, until the store is closed.
+     */
+    public DefaultDecoratedClassStore(CacheRepository cacheRepository, FileAccessTimeJournal fileAccessTimeJournal, AsmBackedClassGenerator classGenerator) {
+        this.classGenerator = classGenerator;
+        this.cache = cacheRepository.cache("generated-classes")
+            .withDisplayName("generated classes")
+            .withLockOptions(mode(FileLockManager.LockMode.None))
+            .withCleanup(new LeastRecentlyUsedCacheCleanup(new SingleDepthFilesFinder(FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP), fileAccessTimeJournal, DEFAULT_MAX_AGE_IN_DAYS_FOR_RECREATABLE_CACHE_ENTRIES))
+            .open();
+        this.fileAccessTracker = new SingleDepthFileAccessTracker(fileAccessTimeJournal, cache.getBaseDir(), FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP);
+        classGenerator.setStore(this);
+    }
+
+    @Nullable
+    @Override
+    public byte[] load(Class<?> type) {
+        HashCode key = keyOf(type);
+        if (key == null) {
+            return null;
+        }
+        File file = fileFor(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            byte[] bytecode = Files.toByteArray(file);
+            fileAccessTracker.markAccessed(file);
+            return bytecode;
+        } catch (IOException e) {
+            LOGGER.debug("Could not read generated class for {} from {}.", type.getName(), file, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void store(Class<?> type, byte[] bytecode) {
+        HashCode key = keyOf(type);
+        if (key == null) {
+            return;
+        }
+        File file = fileFor(key);
+        File tmpFile = new File(cache.getBaseDir(), UUID.randomUUID().toString() + ".tmp");
+        try {
+            Files.write(bytecode, tmpFile);
+            if (!tmpFile.renameTo(file)) {
+                // Another process has stored the same class in the meantime
+                GFileUtils.deleteQuietly(tmpFile);
+            }
+            fileAccessTracker.markAccessed(file);
+        } catch (IOException e) {
+            LOGGER.debug("Could not store generated class for {} in {}.", type.getName(), file, e);
+            GFileUtils.deleteQuietly(tmpFile);
+        }
+    }
+
+    @Override
+    public void close() {
+        classGenerator.detachStore(this);
+        cache.close();
+    }
+
+    private File fileFor(HashCode key) {
+        return new File(cache.getBaseDir(), key.toString() + ".class");
+    }
+
+    @Nullable
+    private HashCode keyOf(Class<?> type) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(System.getProperty("java.version"));
+        HashCode typeHash = hierarchyHash(type);
+        if (typeHash == null) {
+            return null;
+        }
+        hasher.putHash(typeHash);
+        // Sorted by name, as the order in which the properties are found is not stable across processes
+        Map<String, Class<?>> propertyTypes = new TreeMap<String, Class<?>>();
+        for (PropertyDetails property : ClassInspector.inspect(type).getProperties()) {
+            for (Method getter : property.getGetters()) {
+                propertyTypes.put(getter.getReturnType().getName(), getter.getReturnType());
+            }
+            for (Method setter : property.getSetters()) {
+                propertyTypes.put(setter.getParameterTypes()[0].getName(), setter.getParameterTypes()[0]);
+            }
+        }
+        for (Class<?> propertyType : propertyTypes.values()) {
+            HashCode propertyTypeHash = hierarchyHash(propertyType);
+            if (propertyTypeHash == null) {
+                return null;
+            }
+            hasher.putHash(propertyTypeHash);
+        }
+        return hasher.hash();
+    }
+
+    /**
+     * Returns the hash of the bytecode of the given type and of all its supertypes, or null when some of that bytecode cannot be found.
+     * The hash is calculated once per type, and forgotten when the type is garbage collected.
+     */
+    @Nullable
+    private HashCode hierarchyHash(Class<?> type) {
+        Optional<HashCode> hash = hierarchyHashes.get(type);
+        if (hash == null) {
+            hash = Optional.fromNullable(calculateHierarchyHash(type));
+            hierarchyHashes.put(type, hash);
+        }
+        return hash.orNull();
+    }
+
+    @Nullable
+    private HashCode calculateHierarchyHash(Class<?> type) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(type.getName());
+        if (type.getClassLoader() == null || type.isArray()) {
+            // A JDK type, which is covered by the Java version, or an array type, which cannot be a property or a collection
+            return hasher.hash();
+        }
+        byte[] bytecode = bytecodeOf(type);
+        if (bytecode == null) {
+            return null;
+        }
+        hasher.putBytes(bytecode);
+        if (type.getSuperclass() != null) {
+            HashCode superclassHash = hierarchyHash(type.getSuperclass());
+            if (superclassHash == null) {
+                return null;
+            }
+            hasher.putHash(superclassHash);
+        }
+        for (Class<?> interfaceType : type.getInterfaces()) {
+            HashCode interfaceHash = hierarchyHash(interfaceType);
+            if (interfaceHash == null) {
+                return null;
+            }
+            hasher.putHash(interfaceHash);
+        }
+        return hasher.hash();
+    }
+
+    @Nullable
+    private static byte[] bytecodeOf(Class<?> type) {
+        InputStream inputStream = type.getClassLoader().getResourceAsStream(type.getName().replace('.', '/') + ".class");
+        if (inputStream == null) {
+            return null;
+        }
+        try {
+            try {
+                return ByteStreams.toByteArray(inputStream);
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -563,15 +563,42 @@ public class DefaultNamedDomainObjectCollection<T> extends DefaultDomainObjectCo
     protected static class UnfilteredIndex<T> implements Index<T> {
         private final Map<String, ProviderInternal<? extends T>> pendingMap = Maps.newLinkedHashMap();
         private final NavigableMap<String, T> map = new TreeMap<String, T>();
+        // The elements and pending elements of each type that has been queried, kept up to date as elements are added and removed
+        private final Map<Class<?>, NavigableMap<String, T>> mapsByType = Maps.newHashMap();
+        private final Map<Class<?>, Map<String, ProviderInternal<? extends T>>> pendingMapsByType = Maps.newHashMap();
 
         @Override
         public NavigableMap<String, T> asMap() {
             return map;
         }
 
+        /**
+         * Returns the elements that are instances of the given type. The returned map must not be modified.
+         */
+        NavigableMap<String, T> asMap(Class<?> type) {
+            NavigableMap<String, T> typedMap = mapsByType.get(type);
+            if (typedMap == null) {
+                typedMap = new TreeMap<String, T>();
+                for (Map.Entry<String, T> entry : map.entrySet()) {
+                    if (type.isInstance(entry.getValue())) {
+                        typedMap.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                mapsByType.put(type, typedMap);
+            }
+            return typedMap;
+        }
+
         @Override
         public void put(String name, T value) {
-            map.put(name, value);
+            T previous = map.put(name, value);
+            for (Map.Entry<Class<?>, NavigableMap<String, T>> entry : mapsByType.entrySet()) {
+                if (entry.getKey().isInstance(value)) {
+                    entry.getValue().put(name, value);
+                } else if (previous != null) {
+                    entry.getValue().remove(name);
+                }
+            }
         }
 
         @Override
@@ -581,13 +608,19 @@ public class DefaultNamedDomainObjectCollection<T> extends DefaultDomainObjectCo
 
         @Override
         public void remove(String name) {
-            map.remove(name);
+            if (map.remove(name) != null) {
+                for (NavigableMap<String, T> typedMap : mapsByType.values()) {
+                    typedMap.remove(name);
+                }
+            }
         }
 
         @Override
         public void clear() {
             map.clear();
             pendingMap.clear();
+            mapsByType.clear();
+            pendingMapsByType.clear();
         }
 
         @Override
@@ -603,23 +636,61 @@ public class DefaultNamedDomainObjectCollection<T> extends DefaultDomainObjectCo
 
         @Override
         public void putPending(String name, ProviderInternal<? extends T> provider) {
-            pendingMap.put(name, provider);
+            if (pendingMap.put(name, provider) != null) {
+                // Keep the iteration order of the typed maps the same as the order of the pending map
+                pendingMapsByType.clear();
+                return;
+            }
+            for (Map.Entry<Class<?>, Map<String, ProviderInternal<? extends T>>> entry : pendingMapsByType.entrySet()) {
+                if (isPendingOfType(provider, entry.getKey())) {
+                    entry.getValue().put(name, provider);
+                }
+            }
         }
 
         @Override
         public void removePending(String name) {
-            pendingMap.remove(name);
+            if (pendingMap.remove(name) != null) {
+                for (Map<String, ProviderInternal<? extends T>> typedMap : pendingMapsByType.values()) {
+                    typedMap.remove(name);
+                }
+            }
         }
 
         @Override
         public void removePending(ProviderInternal<? extends T> provider) {
-            pendingMap.values().remove(provider);
+            if (pendingMap.values().remove(provider)) {
+                for (Map<String, ProviderInternal<? extends T>> typedMap : pendingMapsByType.values()) {
+                    typedMap.values().remove(provider);
+                }
+            }
         }
 
         @Override
         public Map<String, ProviderInternal<? extends T>> getPendingAsMap() {
             return pendingMap;
         }
+
+        /**
+         * Returns the pending elements that are known to be instances of the given type. The returned map must not be modified.
+         */
+        Map<String, ProviderInternal<? extends T>> getPendingAsMap(Class<?> type) {
+            Map<String, ProviderInternal<? extends T>> typedMap = pendingMapsByType.get(type);
+            if (typedMap == null) {
+                typedMap = Maps.newLinkedHashMap();
+                for (Map.Entry<String, ProviderInternal<? extends T>> entry : pendingMap.entrySet()) {
+                    if (isPendingOfType(entry.getValue(), type)) {
+                        typedMap.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                pendingMapsByType.put(type, typedMap);
+            }
+            return typedMap;
+        }
+
+        private static boolean isPendingOfType(ProviderInternal<?> provider, Class<?> type) {
+            return provider.getType() != null && type.isAssignableFrom(provider.getType());
+        }
     }
 
     private static class FilteredIndex<T> implements Index<T> {
@@ -654,7 +725,7 @@ public class DefaultNamedDomainObjectCollection<T> extends DefaultDomainObjectCo
 
         @Override
         public NavigableMap<String, T> asMap() {
-            NavigableMap<String, ? super T> delegateMap = delegate.asMap();
+            NavigableMap<String, ? super T> delegateMap = delegate instanceof UnfilteredIndex ? ((UnfilteredIndex<? super T>) delegate).asMap(filter.getType()) : delegate.asMap();
 
             NavigableMap<String, T> filtered = new TreeMap<String, T>();
             for (Map.Entry<String, ? super T> entry : delegateMap.entrySet()) {
@@ -701,7 +772,7 @@ public class DefaultNamedDomainObjectCollection<T> extends DefaultDomainObjectCo
         @Override
         public Map<String, ProviderInternal<? extends T>> getPendingAsMap() {
             // TODO not sure if we can clean up the generics here and do less unchecked casting
-            Map<String, ProviderInternal<?>> delegateMap = Cast.uncheckedCast(delegate.getPendingAsMap());
+            Map<String, ProviderInternal<?>> delegateMap = Cast.uncheckedCast(delegate instanceof UnfilteredIndex ? ((UnfilteredIndex<? super T>) delegate).getPendingAsMap(filter.getType()) : delegate.getPendingAsMap());
             Map<String, ProviderInternal<? extends T>> filteredMap = Maps.newLinkedHashMap();
             for (Map.Entry<String, ProviderInternal<?>> entry : delegateMap.entrySet()) {
                 if (entry.getValue().getType() != null && filter.getType().isAssignableFrom(entry.getValue().getType())) {
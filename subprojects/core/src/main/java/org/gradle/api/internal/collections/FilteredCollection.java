@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.collections;
 
+import com.google.common.collect.Iterators;
 import org.gradle.api.Action;
 import org.gradle.api.internal.MutationGuard;
 import org.gradle.api.internal.WithEstimatedSize;
@@ -26,7 +27,7 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
-public class FilteredCollection<T, S extends T> implements ElementSource<S> {
+public class FilteredCollection<T, S extends T> implements TypeIndexedElementSource<S> {
     protected final ElementSource<T> collection;
     protected final CollectionFilter<S> filter;
 
@@ -109,10 +110,10 @@ public class FilteredCollection<T, S extends T> implements ElementSource<S> {
 
         private S next;
 
-        FilteringIterator(ElementSource<T> collection, CollectionFilter<S> filter) {
-            this.iterator = collection.iteratorNoFlush();
+        FilteringIterator(Iterator<T> iterator, CollectionFilter<S> filter, int estimatedSize) {
+            this.iterator = iterator;
             this.filter = filter;
-            this.estimatedSize = collection.estimatedSize();
+            this.estimatedSize = estimatedSize;
             this.next = findNext();
         }
 
@@ -158,7 +159,7 @@ public class FilteredCollection<T, S extends T> implements ElementSource<S> {
     @Override
     public Iterator<S> iterator() {
         collection.realizePending(filter.getType());
-        return new FilteringIterator<T, S>(collection, filter);
+        return iteratorNoFlush();
     }
 
     @Override
@@ -180,7 +181,29 @@ public class FilteredCollection<T, S extends T> implements ElementSource<S> {
 
     @Override
     public Iterator<S> iteratorNoFlush() {
-        return new FilteringIterator<T, S>(collection, filter);
+        return new FilteringIterator<T, S>(elementsOfType(filter.getType()), filter, collection.estimatedSize());
+    }
+
+    @Override
+    public Iterator<S> iteratorNoFlush(Class<?> type) {
+        if (filter.getType().isAssignableFrom(type)) {
+            return new FilteringIterator<T, S>(elementsOfType(type), filter, collection.estimatedSize());
+        }
+        Iterator<S> elements = iteratorNoFlush();
+        if (type.isAssignableFrom(filter.getType())) {
+            return elements;
+        }
+        return Cast.uncheckedCast(Iterators.filter(elements, type));
+    }
+
+    /**
+     * Visits only the elements of the given type when the underlying collection is indexed by type, and all elements otherwise.
+     */
+    private Iterator<T> elementsOfType(Class<?> type) {
+        if (collection instanceof TypeIndexedElementSource) {
+            return ((TypeIndexedElementSource<T>) collection).iteratorNoFlush(type);
+        }
+        return collection.iteratorNoFlush();
     }
 
     @Override
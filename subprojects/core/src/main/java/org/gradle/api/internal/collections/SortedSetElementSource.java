@@ -24,16 +24,23 @@ import org.gradle.api.internal.provider.CollectionProviderInternal;
 import org.gradle.api.internal.provider.ProviderInternal;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.TreeSet;
 
-public class SortedSetElementSource<T> implements ElementSource<T> {
+public class SortedSetElementSource<T> implements TypeIndexedElementSource<T> {
+    private final Comparator<T> comparator;
     private final TreeSet<T> values;
+    // The realized elements of each type that has been queried, kept up to date as elements are added and removed
+    private final Map<Class<?>, TreeSet<T>> valuesByType = new HashMap<Class<?>, TreeSet<T>>();
     private final PendingSource<T> pending = new DefaultPendingSource<T>();
     private final MutationGuard mutationGuard = new DefaultMutationGuard();
 
     public SortedSetElementSource(Comparator<T> comparator) {
+        this.comparator = comparator;
         this.values = new TreeSet<T>(comparator);
     }
 
@@ -60,12 +67,31 @@ public class SortedSetElementSource<T> implements ElementSource<T> {
     @Override
     public Iterator<T> iterator() {
         pending.realizePending();
-        return values.iterator();
+        return new IndexUpdatingIterator(values.iterator());
     }
 
     @Override
     public Iterator<T> iteratorNoFlush() {
-        return values.iterator();
+        return new IndexUpdatingIterator(values.iterator());
+    }
+
+    @Override
+    public Iterator<T> iteratorNoFlush(Class<?> type) {
+        return Collections.unmodifiableSet(valuesOfType(type)).iterator();
+    }
+
+    private TreeSet<T> valuesOfType(Class<?> type) {
+        TreeSet<T> typedValues = valuesByType.get(type);
+        if (typedValues == null) {
+            typedValues = new TreeSet<T>(comparator);
+            for (T value : values) {
+                if (type.isInstance(value)) {
+                    typedValues.add(value);
+                }
+            }
+            valuesByType.put(type, typedValues);
+        }
+        return typedValues;
     }
 
     @Override
@@ -82,23 +108,47 @@ public class SortedSetElementSource<T> implements ElementSource<T> {
 
     @Override
     public boolean add(T element) {
-        return values.add(element);
+        return addValue(element);
     }
 
     @Override
     public boolean addRealized(T element) {
-        return values.add(element);
+        return addValue(element);
+    }
+
+    private boolean addValue(T element) {
+        if (!values.add(element)) {
+            return false;
+        }
+        for (Map.Entry<Class<?>, TreeSet<T>> entry : valuesByType.entrySet()) {
+            if (entry.getKey().isInstance(element)) {
+                entry.getValue().add(element);
+            }
+        }
+        return true;
     }
 
     @Override
     public boolean remove(Object o) {
-        return values.remove(o);
+        if (!values.remove(o)) {
+            return false;
+        }
+        removeFromTypeIndex(o);
+        return true;
+    }
+
+    private void removeFromTypeIndex(Object o) {
+        // The removed element is the one that compares equal to the given object, which may be an instance of some other type
+        for (TreeSet<T> typedValues : valuesByType.values()) {
+            typedValues.remove(o);
+        }
     }
 
     @Override
     public void clear() {
         pending.clear();
         values.clear();
+        valuesByType.clear();
     }
 
     @Override
@@ -117,7 +167,7 @@ public class SortedSetElementSource<T> implements ElementSource<T> {
             ((ChangingValue<T>)provider).onValueChange(new Action<T>() {
                 @Override
                 public void execute(T previousValue) {
-                    values.remove(previousValue);
+                    remove(previousValue);
                     pending.addPending(provider);
                 }
             });
@@ -137,7 +187,7 @@ public class SortedSetElementSource<T> implements ElementSource<T> {
                 @Override
                 public void execute(Iterable<T> previousValues) {
                     for (T value : previousValues) {
-                        values.remove(value);
+                        remove(value);
                     }
                     pending.addPendingCollection(provider);
                 }
@@ -165,4 +215,31 @@ public class SortedSetElementSource<T> implements ElementSource<T> {
     public MutationGuard getMutationGuard() {
         return mutationGuard;
     }
+
+    private class IndexUpdatingIterator implements Iterator<T> {
+        private final Iterator<T> delegate;
+        private T current;
+
+        IndexUpdatingIterator(Iterator<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+
+        @Override
+        public T next() {
+            current = delegate.next();
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            delegate.remove();
+            removeFromTypeIndex(current);
+            current = null;
+        }
+    }
 }
@@ -35,9 +35,18 @@ import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.hash.HashCode;
 
 import javax.annotation.Nullable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
 import java.util.Map;
 import java.util.Set;
 
+/**
+ * Caches class loaders across builds. Class loaders are shared by all ids that request a loader with the same parent, filter, class path
+ * and implementation hash, which is the hash of the content of the class path unless given explicitly. The class path is compared as
+ * well, as a class loader keeps reading its jars from their location. Build script class paths are made of jars that are copied to
+ * a location derived from their content by {@link org.gradle.internal.classpath.CachedClasspathTransformer}, so projects with identical
+ * build script class paths share class loaders even when the original jars live in different locations.
+ */
 public class DefaultClassLoaderCache implements ClassLoaderCache, Stoppable, SessionLifecycleListener {
     private static final Logger LOGGER = Logging.getLogger(DefaultClassLoaderCache.class);
 
@@ -47,6 +56,9 @@ public class DefaultClassLoaderCache implements ClassLoaderCache, Stoppable, Ses
     private final Set<ClassLoaderId> usedInThisBuild = Sets.newHashSet();
     private final ClasspathHasher classpathHasher;
     private final HashingClassLoaderFactory classLoaderFactory;
+    private int createdInThisBuild;
+    private int sharedInThisBuild;
+    private int reusedInThisBuild;
 
     public DefaultClassLoaderCache(HashingClassLoaderFactory classLoaderFactory, ClasspathHasher classpathHasher) {
         this.classLoaderFactory = classLoaderFactory;
@@ -78,6 +90,7 @@ public class DefaultClassLoaderCache implements ClassLoaderCache, Stoppable, Ses
                 }
                 return newLoader.classLoader;
             } else {
+                reusedInThisBuild++;
                 return cachedLoader.classLoader;
             }
         }
@@ -121,6 +134,9 @@ public class DefaultClassLoaderCache implements ClassLoaderCache, Stoppable, Ses
             }
             cachedLoader = new CachedClassLoader(classLoader, spec, parentCachedLoader);
             bySpec.put(spec, cachedLoader);
+            createdInThisBuild++;
+        } else {
+            sharedInThisBuild++;
         }
 
         return cachedLoader.retain(id);
@@ -159,10 +175,44 @@ public class DefaultClassLoaderCache implements ClassLoaderCache, Stoppable, Ses
                 remove(id);
             }
             usedInThisBuild.clear();
+            logStatistics();
         }
         assertInternalIntegrity();
     }
 
+    private void logStatistics() {
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("Class loader cache: created {} class loaders, shared {} class loaders between ids, reused {} class loaders from earlier builds, {} class loaders cached{}.",
+                createdInThisBuild, sharedInThisBuild, reusedInThisBuild, bySpec.size(), metaspaceUsage());
+        }
+        createdInThisBuild = 0;
+        sharedInThisBuild = 0;
+        reusedInThisBuild = 0;
+    }
+
+    private String metaspaceUsage() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getName().equals("Metaspace")) {
+                long used = pool.getUsage().getUsed();
+                return ", metaspace used " + used / 1024 + " KB, about " + estimatedMetaspaceSaving(used, bySpec.size(), sharedInThisBuild) / 1024 + " KB saved by sharing";
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Estimates the metaspace that shared class loaders would have used, had each id been given its own loader, as the number of shared loaders
+     * times the average metaspace used per cached loader. The metaspace used also covers the classes that are not loaded by cached loaders,
+     * so this is an upper bound.
+     */
+    @VisibleForTesting
+    static long estimatedMetaspaceSaving(long metaspaceUsed, int cachedLoaders, int sharedLoaders) {
+        if (cachedLoaders == 0) {
+            return 0;
+        }
+        return metaspaceUsed / cachedLoaders * sharedLoaders;
+    }
+
     private static abstract class ClassLoaderSpec {
     }
 
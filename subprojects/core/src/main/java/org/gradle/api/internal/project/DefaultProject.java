@@ -761,7 +761,8 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
     }
 
     private Project evaluationDependsOn(DefaultProject projectToEvaluate) {
-        if (projectToEvaluate.getState().isConfiguring()) {
+        // A project that is being configured by another thread is waited for instead
+        if (projectToEvaluate.getState().isConfiguringInCurrentThread()) {
             throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.",
                 projectToEvaluate));
         }
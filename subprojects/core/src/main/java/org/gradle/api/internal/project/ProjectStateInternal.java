@@ -20,6 +20,7 @@ import org.gradle.api.ProjectConfigurationException;
 import org.gradle.api.ProjectState;
 import org.gradle.util.CollectionUtils;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -41,7 +42,8 @@ public class ProjectStateInternal implements ProjectState {
         CONFIGURED
     }
 
-    private State state = State.UNCONFIGURED;
+    private volatile State state = State.UNCONFIGURED;
+    private volatile Thread configuringThread;
     private ProjectConfigurationException failure;
 
     @Override
@@ -57,12 +59,28 @@ public class ProjectStateInternal implements ProjectState {
         return state == State.IN_BEFORE_EVALUATE || state == State.IN_EVALUATE || state == State.IN_AFTER_EVALUATE;
     }
 
+    /**
+     * Returns whether the project is being configured by the current thread, that is, whether its configuration is on the stack of the current thread.
+     */
+    public boolean isConfiguringInCurrentThread() {
+        return isConfiguring() && configuringThread == Thread.currentThread();
+    }
+
+    /**
+     * Returns the thread that is configuring the project, if any.
+     */
+    @Nullable
+    public Thread getConfiguringThread() {
+        return isConfiguring() ? configuringThread : null;
+    }
+
     public boolean isUnconfigured() {
         return state == State.UNCONFIGURED;
     }
 
     public void toBeforeEvaluate() {
         assert state == State.UNCONFIGURED;
+        configuringThread = Thread.currentThread();
         state = State.IN_BEFORE_EVALUATE;
     }
 
@@ -79,6 +97,7 @@ public class ProjectStateInternal implements ProjectState {
     public void configured() {
         assert state != State.CONFIGURED;
         state = State.CONFIGURED;
+        configuringThread = null;
     }
 
     public void failed(ProjectConfigurationException failure) {
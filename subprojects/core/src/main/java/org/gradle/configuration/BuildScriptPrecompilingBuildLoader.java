@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration;
+
+import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.SettingsInternal;
+import org.gradle.api.internal.initialization.ClassLoaderScope;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.groovy.scripts.CachingScriptSource;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.groovy.scripts.internal.FileCacheBackedScriptClassCompiler;
+import org.gradle.initialization.BuildLoader;
+import org.gradle.internal.Actions;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.scripts.ScriptingLanguages;
+import org.gradle.plugin.management.internal.PluginRequestsSerializer;
+import org.gradle.scripts.ScriptingLanguage;
+
+/**
+ * Compiles the first pass of the build scripts of all projects concurrently, once the projects have been loaded, so that configuring
+ * the projects only needs to load the compiled classes. The first pass of every build script is compiled against the class loader
+ * of the build root scope, which is known once the settings have been evaluated. The second pass is compiled against the classpath
+ * declared by the first pass, so it is still compiled when the project is configured.
+ */
+public class BuildScriptPrecompilingBuildLoader implements BuildLoader {
+    private final BuildLoader delegate;
+    private final FileCacheBackedScriptClassCompiler scriptClassCompiler;
+    private final DocumentationRegistry documentationRegistry;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final PluginRequestsSerializer pluginRequestsSerializer = new PluginRequestsSerializer();
+
+    public BuildScriptPrecompilingBuildLoader(BuildLoader delegate, FileCacheBackedScriptClassCompiler scriptClassCompiler, DocumentationRegistry documentationRegistry, BuildOperationExecutor buildOperationExecutor) {
+        this.delegate = delegate;
+        this.scriptClassCompiler = scriptClassCompiler;
+        this.documentationRegistry = documentationRegistry;
+        this.buildOperationExecutor = buildOperationExecutor;
+    }
+
+    @Override
+    public void load(SettingsInternal settings, final GradleInternal gradle) {
+        delegate.load(settings, gradle);
+        if (gradle.getStartParameter().isConfigureOnDemand()) {
+            // Only the requested projects are configured, so do not compile the build scripts of all projects
+            return;
+        }
+        buildOperationExecutor.runAll(new Action<BuildOperationQueue<PrecompileBuildScript>>() {
+            @Override
+            public void execute(BuildOperationQueue<PrecompileBuildScript> queue) {
+                for (Project project : gradle.getRootProject().getAllprojects()) {
+                    ProjectInternal projectInternal = (ProjectInternal) project;
+                    if (projectInternal.getBaseClassLoaderScope().isLocked() && isCompiledByDefaultScriptPluginFactory(projectInternal.getBuildScriptSource())) {
+                        queue.add(new PrecompileBuildScript(projectInternal));
+                    }
+                }
+            }
+        });
+    }
+
+    private static boolean isCompiledByDefaultScriptPluginFactory(ScriptSource scriptSource) {
+        for (ScriptingLanguage scriptingLanguage : ScriptingLanguages.all()) {
+            if (scriptSource.getFileName().endsWith(scriptingLanguage.getExtension())) {
+                return scriptingLanguage.getProvider() == null;
+            }
+        }
+        return true;
+    }
+
+    private class PrecompileBuildScript implements RunnableBuildOperation {
+        private final ProjectInternal project;
+
+        PrecompileBuildScript(ProjectInternal project) {
+            this.project = project;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            ScriptSource scriptSource = CachingScriptSource.of(project.getBuildScriptSource());
+            ScriptTarget scriptTarget = new ProjectScriptTarget(project);
+            ClassLoaderScope baseScope = project.getBaseClassLoaderScope();
+            scriptClassCompiler.precompile(
+                scriptSource,
+                baseScope.getExportClassLoader(),
+                DefaultScriptPluginFactory.initialPassOperation(scriptSource, scriptTarget, documentationRegistry, pluginRequestsSerializer),
+                scriptTarget.getScriptClass(),
+                Actions.doNothing());
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Precompile build script of " + project.getDisplayName());
+        }
+    }
+}
@@ -16,19 +16,25 @@
 package org.gradle.configuration.project;
 
 import org.gradle.api.Action;
+import org.gradle.api.CircularReferenceException;
 import org.gradle.api.ProjectConfigurationException;
 import org.gradle.api.ProjectEvaluationListener;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.project.ProjectStateInternal;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.operations.BuildOperationCategory;
 import org.gradle.internal.operations.BuildOperationContext;
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.resources.ProjectLeaseRegistry;
 import org.gradle.util.Path;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Notifies listeners before and after delegating to the provided delegate to the actual evaluation,
  * wrapping the work in build operations.
@@ -48,6 +54,9 @@ import org.slf4j.LoggerFactory;
  * The use of term “evaluate” is a legacy constraint.
  * Project evaluation is synonymous with “project configuration” (the latter being the preferred term).
  *
+ * When projects are configured in parallel, a thread that evaluates a project that another thread is configuring waits, without holding
+ * any project lock, until that configuration is finished. Threads that would end up waiting for each other fail with a circular reference instead.
+ *
  * @see ProjectEvaluationListener
  */
 public class LifecycleProjectEvaluator implements ProjectEvaluator {
@@ -56,15 +65,77 @@ public class LifecycleProjectEvaluator implements ProjectEvaluator {
 
     private final BuildOperationExecutor buildOperationExecutor;
     private final ProjectEvaluator delegate;
+    private final ProjectLeaseRegistry projectLeaseRegistry;
+    private final Object lock = new Object();
+    private final Map<Thread, ProjectStateInternal> awaitedProjects = new HashMap<Thread, ProjectStateInternal>();
 
-    public LifecycleProjectEvaluator(BuildOperationExecutor buildOperationExecutor, ProjectEvaluator delegate) {
+    public LifecycleProjectEvaluator(BuildOperationExecutor buildOperationExecutor, ProjectEvaluator delegate, ProjectLeaseRegistry projectLeaseRegistry) {
         this.buildOperationExecutor = buildOperationExecutor;
         this.delegate = delegate;
+        this.projectLeaseRegistry = projectLeaseRegistry;
     }
 
     public void evaluate(final ProjectInternal project, final ProjectStateInternal state) {
-        if (state.isUnconfigured()) {
-            buildOperationExecutor.run(new EvaluateProject(project, state));
+        if (state.isUnconfigured() || isConfiguringInOtherThread(state)) {
+            project.getMutationState().withMutableState(new Runnable() {
+                @Override
+                public void run() {
+                    // The project may have been configured by another thread while this thread was waiting for the project lock
+                    if (state.isUnconfigured()) {
+                        buildOperationExecutor.run(new EvaluateProject(project, state));
+                    }
+                }
+            });
+        }
+        if (isConfiguringInOtherThread(state)) {
+            // The other thread released the project lock while waiting for something else
+            awaitConfigured(project, state);
+        }
+    }
+
+    private static boolean isConfiguringInOtherThread(ProjectStateInternal state) {
+        return state.isConfiguring() && !state.isConfiguringInCurrentThread();
+    }
+
+    private void awaitConfigured(ProjectInternal project, final ProjectStateInternal state) {
+        final Thread currentThread = Thread.currentThread();
+        synchronized (lock) {
+            Thread thread = state.getConfiguringThread();
+            for (int i = 0; thread != null && i <= awaitedProjects.size(); i++) {
+                if (thread == currentThread) {
+                    throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.", project));
+                }
+                ProjectStateInternal awaited = awaitedProjects.get(thread);
+                thread = awaited == null ? null : awaited.getConfiguringThread();
+            }
+            awaitedProjects.put(currentThread, state);
+        }
+        try {
+            projectLeaseRegistry.withoutProjectLock(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (lock) {
+                        while (state.isConfiguring()) {
+                            try {
+                                lock.wait();
+                            } catch (InterruptedException e) {
+                                throw UncheckedException.throwAsUncheckedException(e);
+                            }
+                        }
+                    }
+                }
+            });
+        } finally {
+            synchronized (lock) {
+                awaitedProjects.remove(currentThread);
+            }
+        }
+    }
+
+    private void configured(ProjectStateInternal state) {
+        synchronized (lock) {
+            state.configured();
+            lock.notifyAll();
         }
     }
 
@@ -92,36 +163,31 @@ public class LifecycleProjectEvaluator implements ProjectEvaluator {
 
         @Override
         public void run(final BuildOperationContext context) {
-            project.getMutationState().withMutableState(new Runnable() {
-                @Override
-                public void run() {
-                    // Note: beforeEvaluate and afterEvaluate ops do not throw, instead mark state as failed
-                    try {
-                        state.toBeforeEvaluate();
-                        buildOperationExecutor.run(new NotifyBeforeEvaluate(project, state));
-
-                        if (!state.hasFailure()) {
-                            state.toEvaluate();
-                            try {
-                                delegate.evaluate(project, state);
-                            } catch (Exception e) {
-                                addConfigurationFailure(project, state, e, context);
-                            } finally {
-                                state.toAfterEvaluate();
-                                buildOperationExecutor.run(new NotifyAfterEvaluate(project, state));
-                            }
-                        }
+            // Note: beforeEvaluate and afterEvaluate ops do not throw, instead mark state as failed
+            try {
+                state.toBeforeEvaluate();
+                buildOperationExecutor.run(new NotifyBeforeEvaluate(project, state));
 
-                        if (state.hasFailure()) {
-                            state.rethrowFailure();
-                        } else {
-                            context.setResult(ConfigureProjectBuildOperationType.RESULT);
-                        }
+                if (!state.hasFailure()) {
+                    state.toEvaluate();
+                    try {
+                        delegate.evaluate(project, state);
+                    } catch (Exception e) {
+                        addConfigurationFailure(project, state, e, context);
                     } finally {
-                        state.configured();
+                        state.toAfterEvaluate();
+                        buildOperationExecutor.run(new NotifyAfterEvaluate(project, state));
                     }
                 }
-            });
+
+                if (state.hasFailure()) {
+                    state.rethrowFailure();
+                } else {
+                    context.setResult(ConfigureProjectBuildOperationType.RESULT);
+                }
+            } finally {
+                configured(state);
+            }
         }
 
         @Override
@@ -16,16 +16,59 @@
 
 package org.gradle.execution;
 
+import org.gradle.StartParameter;
+import org.gradle.api.Action;
 import org.gradle.api.BuildCancelledException;
 import org.gradle.api.Project;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.initialization.BuildCancellationToken;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 
 public class TaskPathProjectEvaluator implements ProjectConfigurer {
+    public final static String PARALLEL_CONFIGURATION_PROPERTY = "org.gradle.internal.projects.parallel-configuration";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskPathProjectEvaluator.class);
+
     private final BuildCancellationToken cancellationToken;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final boolean parallelConfiguration;
+
+    public TaskPathProjectEvaluator(BuildCancellationToken cancellationToken, BuildOperationExecutor buildOperationExecutor, StartParameter startParameter) {
+        this(cancellationToken, buildOperationExecutor, parallelConfigurationOf(startParameter));
+    }
 
-    public TaskPathProjectEvaluator(BuildCancellationToken cancellationToken) {
+    TaskPathProjectEvaluator(BuildCancellationToken cancellationToken, BuildOperationExecutor buildOperationExecutor, boolean parallelConfiguration) {
         this.cancellationToken = cancellationToken;
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.parallelConfiguration = parallelConfiguration;
+    }
+
+    static boolean parallelConfigurationOf(StartParameter startParameter) {
+        // Prefer the value given for this build, as the daemon may have been started with a different one
+        String value = startParameter.getSystemPropertiesArgs().get(PARALLEL_CONFIGURATION_PROPERTY);
+        if (value == null) {
+            value = System.getProperty(PARALLEL_CONFIGURATION_PROPERTY);
+        }
+        if (!Boolean.parseBoolean(value)) {
+            return false;
+        }
+        if (!startParameter.isParallelProjectExecutionEnabled()) {
+            // Without --parallel, all projects share a single lock, so nothing would be configured concurrently
+            LOGGER.warn("Ignoring system property '{}' as parallel execution is not enabled.", PARALLEL_CONFIGURATION_PROPERTY);
+            return false;
+        }
+        return true;
     }
 
     public void configure(ProjectInternal project) {
@@ -58,11 +101,47 @@ public class TaskPathProjectEvaluator implements ProjectConfigurer {
 
     public void configureHierarchy(ProjectInternal project) {
         configure(project);
+        if (parallelConfiguration) {
+            configureSubprojectsInParallel(project);
+            return;
+        }
         for (Project sub : project.getSubprojects()) {
             configure((ProjectInternal) sub);
         }
     }
 
+    /**
+     * Configures the subprojects of the given project concurrently, one level of the hierarchy after the other, so that a project
+     * is still configured after its parent. Each project is configured while holding its project lock. A project that accesses another
+     * project that is being configured, for example using {@link Project#evaluationDependsOn(String)}, waits for the lock of that project.
+     *
+     * <p>Only evaluation of other projects is guarded. A build script that directly mutates the model of the root project or of a parent
+     * project, such as {@code rootProject.ext} or the tasks and configurations of the parent, does so without holding the lock of that
+     * project, and may then race with the build scripts of its siblings. This is only enabled together with parallel execution, as the
+     * project locks are otherwise all the same lock.</p>
+     */
+    private void configureSubprojectsInParallel(ProjectInternal project) {
+        TreeMap<Integer, List<ProjectInternal>> projectsByDepth = new TreeMap<Integer, List<ProjectInternal>>();
+        for (Project sub : project.getSubprojects()) {
+            List<ProjectInternal> projects = projectsByDepth.get(sub.getDepth());
+            if (projects == null) {
+                projects = new ArrayList<ProjectInternal>();
+                projectsByDepth.put(sub.getDepth(), projects);
+            }
+            projects.add((ProjectInternal) sub);
+        }
+        for (final List<ProjectInternal> projects : projectsByDepth.values()) {
+            buildOperationExecutor.runAll(new Action<BuildOperationQueue<ConfigureProject>>() {
+                @Override
+                public void execute(BuildOperationQueue<ConfigureProject> queue) {
+                    for (ProjectInternal sub : projects) {
+                        queue.add(new ConfigureProject(sub));
+                    }
+                }
+            });
+        }
+    }
+
     @Override
     public void configureHierarchyFully(ProjectInternal project) {
         configureFully(project);
@@ -70,4 +149,52 @@ public class TaskPathProjectEvaluator implements ProjectConfigurer {
             configureFully((ProjectInternal) sub);
         }
     }
+
+    /**
+     * Configures a project on one of the workers. The time spent waiting for the project lock before the configuration starts is reported as
+     * the result of this operation, and logged when there was any.
+     */
+    private class ConfigureProject implements RunnableBuildOperation {
+        private final ProjectInternal project;
+
+        ConfigureProject(ProjectInternal project) {
+            this.project = project;
+        }
+
+        @Override
+        public void run(final BuildOperationContext context) {
+            final long waitStart = System.nanoTime();
+            project.getMutationState().withMutableState(new Runnable() {
+                @Override
+                public void run() {
+                    long lockWaitTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - waitStart);
+                    if (lockWaitTime > 0) {
+                        LOGGER.info("Waited {} ms for the lock of {} before configuring it.", lockWaitTime, project);
+                    }
+                    context.setResult(new ConfigureProjectResult(lockWaitTime));
+                    configure(project);
+                }
+            });
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Configure project " + project.getIdentityPath() + " in parallel");
+        }
+    }
+
+    static class ConfigureProjectResult {
+        private final long projectLockWaitTime;
+
+        ConfigureProjectResult(long projectLockWaitTime) {
+            this.projectLockWaitTime = projectLockWaitTime;
+        }
+
+        /**
+         * Returns the time, in milliseconds, spent waiting for the project lock before the configuration started.
+         */
+        public long getProjectLockWaitTime() {
+            return projectLockWaitTime;
+        }
+    }
 }
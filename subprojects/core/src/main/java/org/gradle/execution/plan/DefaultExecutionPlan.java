@@ -98,6 +98,7 @@ public class DefaultExecutionPlan implements ExecutionPlan {
     private final Map<File, String> canonicalizedFileCache = Maps.newIdentityHashMap();
     private final Map<Pair<Node, Node>, Boolean> reachableCache = Maps.newHashMap();
     private final Set<Node> dependenciesCompleteCache = Sets.newHashSet();
+    private int queuedNodesWithoutProjectLock;
     private final WorkerLeaseService workerLeaseService;
     private final GradleInternal gradle;
 
@@ -330,6 +331,12 @@ public class DefaultExecutionPlan implements ExecutionPlan {
         }
         executionQueue.clear();
         Iterables.addAll(executionQueue, nodeMapping);
+        queuedNodesWithoutProjectLock = 0;
+        for (Node node : executionQueue) {
+            if (!requiresProjectLock(node)) {
+                queuedNodesWithoutProjectLock++;
+            }
+        }
     }
 
     @Override
@@ -505,6 +512,7 @@ public class DefaultExecutionPlan implements ExecutionPlan {
         entryTasks.clear();
         nodeMapping.clear();
         executionQueue.clear();
+        queuedNodesWithoutProjectLock = 0;
         projectLocks.clear();
         failureCollector.clearFailures();
         mutations.clear();
@@ -541,14 +549,26 @@ public class DefaultExecutionPlan implements ExecutionPlan {
     @Override
     @Nullable
     public Node selectNext(WorkerLeaseRegistry.WorkerLease workerLease, ResourceLockState resourceLockState) {
+        // Nodes that do not need a project lock, such as artifact transforms, are started as soon as their inputs are available,
+        // ahead of the tasks that are also ready, so that their results are there by the time the tasks consuming them can run
+        if (queuedNodesWithoutProjectLock > 0) {
+            Node node = selectNext(workerLease, resourceLockState, false);
+            if (node != null) {
+                return node;
+            }
+        }
         if (allProjectsLocked()) {
             return null;
         }
+        return selectNext(workerLease, resourceLockState, true);
+    }
 
+    @Nullable
+    private Node selectNext(WorkerLeaseRegistry.WorkerLease workerLease, ResourceLockState resourceLockState, boolean requiringProjectLock) {
         Iterator<Node> iterator = executionQueue.iterator();
         while (iterator.hasNext()) {
             Node node = iterator.next();
-            if (node.isReady() && allDependenciesComplete(node)) {
+            if (requiresProjectLock(node) == requiringProjectLock && node.isReady() && allDependenciesComplete(node)) {
                 MutationInfo mutations = getResolvedMutationInfo(node);
 
                 // TODO: convert output file checks to a resource lock
@@ -566,6 +586,9 @@ public class DefaultExecutionPlan implements ExecutionPlan {
                     node.skipExecution();
                 }
                 iterator.remove();
+                if (!requiringProjectLock) {
+                    queuedNodesWithoutProjectLock--;
+                }
 
                 return node;
             }
@@ -573,8 +596,12 @@ public class DefaultExecutionPlan implements ExecutionPlan {
         return null;
     }
 
+    private static boolean requiresProjectLock(Node node) {
+        return node instanceof LocalTaskNode;
+    }
+
     private boolean tryLockProjectFor(Node node) {
-        if (node instanceof LocalTaskNode) {
+        if (requiresProjectLock(node)) {
             return getProjectLock((LocalTaskNode) node).tryLock();
         } else {
             return true;
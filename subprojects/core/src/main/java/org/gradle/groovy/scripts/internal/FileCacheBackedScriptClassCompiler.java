@@ -23,6 +23,8 @@ import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache;
 import org.gradle.api.internal.initialization.loadercache.ClassLoaderId;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.CacheScopeMapping;
+import org.gradle.cache.internal.VersionStrategy;
 import org.gradle.groovy.scripts.ScriptSource;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.classanalysis.AsmConstants;
@@ -33,6 +35,7 @@ import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.logging.progress.ProgressLogger;
 import org.gradle.internal.logging.progress.ProgressLoggerFactory;
 import org.gradle.model.dsl.internal.transform.RuleVisitor;
+import org.gradle.util.GFileUtils;
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
@@ -47,23 +50,34 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A {@link ScriptClassCompiler} which compiles scripts to a cache directory, and loads them from there.
  */
 public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler, Closeable {
     private static final Object[] EMPTY_OBJECT_ARRAY = new Object[0];
+    // Scratch directories only live for the duration of a build, so older ones were left behind by a build that did not finish
+    private static final long STALE_PRECOMPILED_DIR_AGE = TimeUnit.DAYS.toMillis(1);
     private final ScriptCompilationHandler scriptCompilationHandler;
     private final ProgressLoggerFactory progressLoggerFactory;
     private final CacheRepository cacheRepository;
     private final ScriptSourceHasher hasher;
     private final ClassLoaderCache classLoaderCache;
     private final ClassLoaderHierarchyHasher classLoaderHierarchyHasher;
+    private final CacheScopeMapping cacheScopeMapping;
+    private final ConcurrentMap<String, File> precompiledScripts = new ConcurrentHashMap<String, File>();
+    private final AtomicBoolean staleScratchDirsDeleted = new AtomicBoolean();
 
     public FileCacheBackedScriptClassCompiler(CacheRepository cacheRepository, ScriptCompilationHandler scriptCompilationHandler,
                                               ProgressLoggerFactory progressLoggerFactory, ScriptSourceHasher hasher, ClassLoaderCache classLoaderCache,
-                                              ClassLoaderHierarchyHasher classLoaderHierarchyHasher) {
+                                              ClassLoaderHierarchyHasher classLoaderHierarchyHasher, CacheScopeMapping cacheScopeMapping) {
         this.cacheRepository = cacheRepository;
+        this.cacheScopeMapping = cacheScopeMapping;
         this.scriptCompilationHandler = scriptCompilationHandler;
         this.progressLoggerFactory = progressLoggerFactory;
         this.hasher = hasher;
@@ -115,31 +129,107 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler,
         }
     }
 
+    /**
+     * Compiles the given script into a scratch directory when it is not in the cross build script cache yet. Does not hold any cache lock
+     * while compiling, so several scripts can be precompiled concurrently. A later {@link #compile} of the same script with the same
+     * classloader and operation moves the precompiled classes into the cache instead of compiling the script again.
+     *
+     * <p>Compilation failures are ignored, they are reported when the script is compiled by {@link #compile}.</p>
+     */
+    public void precompile(ScriptSource source, ClassLoader classLoader, CompileOperation<?> operation, Class<? extends Script> scriptBaseClass, Action<? super ClassNode> verifier) {
+        assert source.getResource().isContentCached();
+        if (source.getResource().getHasEmptyContent()) {
+            return;
+        }
+        HashCode classLoaderHash = classLoaderHierarchyHasher.getClassLoaderHash(classLoader);
+        if (classLoaderHash == null) {
+            return;
+        }
+        String dslId = operation.getId();
+        String cacheKey = genericCacheKey(HashUtil.compactStringFor(hasher.hash(source)), dslId, dslId + classLoaderHash);
+        if (precompiledScripts.containsKey(cacheKey) || isInitialized(cacheKey)) {
+            return;
+        }
+
+        File precompiledDir = new File(precompiledScriptsDir(), UUID.randomUUID().toString());
+        try {
+            scriptCompilationHandler.compileToDir(new RemappingScriptSource(source), classLoader, classesDir(precompiledDir), metadataDir(precompiledDir), operation, scriptBaseClass, verifier);
+        } catch (RuntimeException e) {
+            GFileUtils.deleteQuietly(precompiledDir);
+            return;
+        }
+        if (precompiledScripts.putIfAbsent(cacheKey, precompiledDir) != null) {
+            GFileUtils.deleteQuietly(precompiledDir);
+        }
+    }
+
+    /**
+     * Returns the directory that contains the scratch directories of precompiled scripts. The first call deletes the scratch directories
+     * left behind by builds that were killed before closing this compiler.
+     */
+    private File precompiledScriptsDir() {
+        File baseDir = cacheScopeMapping.getBaseDirectory(null, "scripts-precompiled", VersionStrategy.CachePerVersion);
+        if (staleScratchDirsDeleted.compareAndSet(false, true)) {
+            File[] scratchDirs = baseDir.listFiles();
+            if (scratchDirs != null) {
+                long staleBefore = System.currentTimeMillis() - STALE_PRECOMPILED_DIR_AGE;
+                for (File scratchDir : scratchDirs) {
+                    if (scratchDir.lastModified() < staleBefore) {
+                        GFileUtils.deleteQuietly(scratchDir);
+                    }
+                }
+            }
+        }
+        return baseDir;
+    }
+
+    private boolean isInitialized(String cacheKey) {
+        return new File(cacheScopeMapping.getBaseDirectory(null, cacheKey, VersionStrategy.CachePerVersion), "cache.properties").isFile();
+    }
+
+    private static String genericCacheKey(String sourceHash, String dslId, String classpathHash) {
+        return "scripts/" + sourceHash + "/" + dslId + "/" + classpathHash;
+    }
+
     private <T extends Script, M> CompiledScript<T, M> emptyCompiledScript(ClassLoaderId classLoaderId, CompileOperation<M> operation) {
         classLoaderCache.remove(classLoaderId);
         return new EmptyCompiledScript<T, M>(operation);
     }
 
     public void close() {
+        for (File precompiledDir : precompiledScripts.values()) {
+            GFileUtils.deleteQuietly(precompiledDir);
+        }
+        precompiledScripts.clear();
     }
 
     private File classesDir(PersistentCache cache) {
-        return new File(cache.getBaseDir(), "classes");
+        return classesDir(cache.getBaseDir());
+    }
+
+    private File classesDir(File baseDir) {
+        return new File(baseDir, "classes");
     }
 
     private File metadataDir(PersistentCache cache) {
-        return new File(cache.getBaseDir(), "metadata");
+        return metadataDir(cache.getBaseDir());
+    }
+
+    private File metadataDir(File baseDir) {
+        return new File(baseDir, "metadata");
     }
 
     private class CompileToCrossBuildCacheAction implements Action<PersistentCache> {
+        private final String cacheKey;
         private final Action<? super ClassNode> verifier;
         private final Class<? extends Script> scriptBaseClass;
         private final ClassLoader classLoader;
         private final CompileOperation<?> transformer;
         private final ScriptSource source;
 
-        public <T extends Script> CompileToCrossBuildCacheAction(ScriptSource source, ClassLoader classLoader, CompileOperation<?> transformer,
+        public <T extends Script> CompileToCrossBuildCacheAction(String cacheKey, ScriptSource source, ClassLoader classLoader, CompileOperation<?> transformer,
                                                                  Action<? super ClassNode> verifier, Class<T> scriptBaseClass) {
+            this.cacheKey = cacheKey;
             this.source = source;
             this.classLoader = classLoader;
             this.transformer = transformer;
@@ -150,6 +240,14 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler,
         public void execute(PersistentCache cache) {
             File classesDir = classesDir(cache);
             File metadataDir = metadataDir(cache);
+            File precompiledDir = precompiledScripts.remove(cacheKey);
+            if (precompiledDir != null) {
+                boolean moved = classesDir(precompiledDir).renameTo(classesDir) && metadataDir(precompiledDir).renameTo(metadataDir);
+                GFileUtils.deleteQuietly(precompiledDir);
+                if (moved) {
+                    return;
+                }
+            }
             scriptCompilationHandler.compileToDir(source, classLoader, classesDir, metadataDir, transformer, scriptBaseClass, verifier);
         }
     }
@@ -413,11 +511,12 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler,
         }
 
         public void execute(final PersistentCache remappedClassesCache) {
-            final PersistentCache cache = cacheRepository.cache("scripts/" + sourceHash + "/" + dslId + "/" + classpathHash)
+            String cacheKey = genericCacheKey(sourceHash, dslId, classpathHash);
+            final PersistentCache cache = cacheRepository.cache(cacheKey)
                 .withDisplayName(dslId + " generic class cache for " + source.getDisplayName())
                 .withInitializer(new ProgressReportingInitializer(
                     progressLoggerFactory,
-                    new CompileToCrossBuildCacheAction(remapped, classLoader, operation, verifier, scriptBaseClass),
+                    new CompileToCrossBuildCacheAction(cacheKey, remapped, classLoader, operation, verifier, scriptBaseClass),
                     "Compiling script into cache",
                     "Compiling " + source.getDisplayName() + " to cross build script cache"))
                 .open();
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationListener;
+import org.gradle.internal.operations.OperationFinishEvent;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.operations.OperationProgressEvent;
+import org.gradle.internal.operations.OperationStartEvent;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes the build operation notifications to a compact binary log, see {@link BuildOperationTraceAnalyzer} for the format.
+ *
+ * <p>The listener methods only capture the identity, timing and type of each notification and hand it to a bounded ring buffer.
+ * A background thread drains the buffer in batches and encodes the notifications, writing each distinct string only once.
+ * The details and results of the operations are not written. The listener methods block while the buffer is full, so that
+ * no notification is lost.</p>
+ */
+class BinaryBuildOperationTraceWriter implements BuildOperationListener, Stoppable {
+    static final int MAGIC = 0x474f5054;
+    static final byte FORMAT_VERSION = 1;
+    static final byte STRING = 1;
+    static final byte START = 2;
+    static final byte PROGRESS = 3;
+    static final byte FINISH = 4;
+
+    private static final int BUFFER_CAPACITY = 64 * 1024;
+    private static final int BATCH_SIZE = 1024;
+    private static final Event END = new Event((byte) 0, 0, 0, 0, null, null, false);
+
+    private final BlockingQueue<Event> buffer = new ArrayBlockingQueue<Event>(BUFFER_CAPACITY);
+    private final KryoBackedEncoder encoder;
+    private final Map<String, Integer> strings = new HashMap<String, Integer>();
+    private final Thread writerThread;
+    private volatile Throwable failure;
+
+    BinaryBuildOperationTraceWriter(File logFile) {
+        try {
+            encoder = new KryoBackedEncoder(new FileOutputStream(logFile), 64 * 1024);
+        } catch (FileNotFoundException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        encoder.writeInt(MAGIC);
+        encoder.writeByte(FORMAT_VERSION);
+        writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeEvents();
+            }
+        }, "Build operation trace writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void started(BuildOperationDescriptor buildOperation, OperationStartEvent startEvent) {
+        Object details = buildOperation.getDetails();
+        OperationIdentifier parentId = buildOperation.getParentId();
+        add(new Event(START, buildOperation.getId().getId(), parentId == null ? 0 : parentId.getId(), startEvent.getStartTime(),
+            buildOperation.getDisplayName(), details == null ? null : details.getClass().getName(), false));
+    }
+
+    @Override
+    public void progress(OperationIdentifier buildOperationId, OperationProgressEvent progressEvent) {
+        add(new Event(PROGRESS, buildOperationId.getId(), 0, progressEvent.getTime(), null, null, false));
+    }
+
+    @Override
+    public void finished(BuildOperationDescriptor buildOperation, OperationFinishEvent finishEvent) {
+        Object result = finishEvent.getResult();
+        add(new Event(FINISH, buildOperation.getId().getId(), 0, finishEvent.getEndTime(),
+            null, result == null ? null : result.getClass().getName(), finishEvent.getFailure() != null));
+    }
+
+    private void add(Event event) {
+        if (failure != null) {
+            return;
+        }
+        try {
+            buffer.put(event);
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private void writeEvents() {
+        List<Event> batch = new ArrayList<Event>(BATCH_SIZE);
+        try {
+            while (true) {
+                batch.add(buffer.take());
+                buffer.drainTo(batch, BATCH_SIZE - 1);
+                for (Event event : batch) {
+                    if (event == END) {
+                        return;
+                    }
+                    if (failure == null) {
+                        write(event);
+                    }
+                }
+                batch.clear();
+            }
+        } catch (Throwable e) {
+            failure = e;
+        }
+    }
+
+    private void write(Event event) {
+        try {
+            if (event.type == START) {
+                int displayName = stringId(event.name);
+                int detailsClassName = stringId(event.className);
+                encoder.writeByte(START);
+                encoder.writeSmallLong(event.id);
+                encoder.writeSmallLong(event.parentId);
+                encoder.writeSmallLong(event.time);
+                encoder.writeSmallInt(displayName);
+                encoder.writeSmallInt(detailsClassName);
+            } else if (event.type == PROGRESS) {
+                encoder.writeByte(PROGRESS);
+                encoder.writeSmallLong(event.id);
+                encoder.writeSmallLong(event.time);
+            } else {
+                int resultClassName = stringId(event.className);
+                encoder.writeByte(FINISH);
+                encoder.writeSmallLong(event.id);
+                encoder.writeSmallLong(event.time);
+                encoder.writeBoolean(event.failed);
+                encoder.writeSmallInt(resultClassName);
+            }
+        } catch (Throwable e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Returns the id of the given string, writing the string when it is first seen. Id 0 means null, and the other ids are assigned in order.
+     */
+    private int stringId(@Nullable String value) {
+        if (value == null) {
+            return 0;
+        }
+        Integer id = strings.get(value);
+        if (id == null) {
+            id = strings.size() + 1;
+            strings.put(value, id);
+            encoder.writeByte(STRING);
+            encoder.writeString(value);
+        }
+        return id;
+    }
+
+    /**
+     * Writes the remaining notifications and closes the log.
+     */
+    @Override
+    public void stop() {
+        try {
+            if (writerThread.isAlive()) {
+                buffer.put(END);
+                writerThread.join();
+            }
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            encoder.close();
+        }
+        if (failure != null) {
+            throw UncheckedException.throwAsUncheckedException(failure);
+        }
+    }
+
+    private static class Event {
+        final byte type;
+        final long id;
+        final long parentId;
+        final long time;
+        final String name;
+        final String className;
+        final boolean failed;
+
+        Event(byte type, long id, long parentId, long time, @Nullable String name, @Nullable String className, boolean failed) {
+            this.type = type;
+            this.id = id;
+            this.parentId = parentId;
+            this.time = time;
+            this.name = name;
+            this.className = className;
+            this.failed = failed;
+        }
+    }
+}
@@ -47,6 +47,7 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.PrintWriter;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -82,6 +83,13 @@ import static org.gradle.internal.Cast.uncheckedCast;
  * The «path-base» param is optional.
  * If invoked as `-Dorg.gradle.internal.operations.trace`, a base value of "operations" will be used.
  *
+ * For large builds, a compact binary log can be written instead with `-Dorg.gradle.internal.operations.trace.format=binary`.
+ * This log only contains the identity, timing and type of the operations, and is written in the background with low overhead.
+ * Two files are created:
+ *
+ * - «path-base»-log.bin: a chronological binary log of events, see {@link BuildOperationTraceAnalyzer}
+ * - «path-base»-report.txt: the critical path of the build, and the slowest operations and operation types
+ *
  * The “trace” produced here is different to the trace produced by Gradle Profiler.
  * There, the focus is analyzing the performance profile.
  * Here, the focus is debugging/developing the information structure of build operations.
@@ -91,12 +99,16 @@ import static org.gradle.internal.Cast.uncheckedCast;
 public class BuildOperationTrace implements Stoppable {
 
     public static final String SYSPROP = "org.gradle.internal.operations.trace";
+    public static final String FORMAT_SYSPROP = "org.gradle.internal.operations.trace.format";
+
+    private static final int REPORT_LIMIT = 50;
 
     private static final byte[] NEWLINE = "\n".getBytes();
     private static final byte[] INDENT = "    ".getBytes();
 
     private final String basePath;
     private final OutputStream logOutputStream;
+    private final BinaryBuildOperationTraceWriter binaryWriter;
 
     private final BuildOperationListenerManager buildOperationListenerManager;
     private final ListenerManager listenerManager;
@@ -108,16 +120,24 @@ public class BuildOperationTrace implements Stoppable {
         this.listenerManager = listenerManager;
 
         Map<String, String> sysProps = startParameter.getSystemPropertiesArgs();
-        String basePath = sysProps.get(SYSPROP);
-        if (basePath == null) {
-            basePath = System.getProperty(SYSPROP);
-        }
+        String basePath = systemProperty(sysProps, SYSPROP);
 
         this.basePath = basePath;
         if (this.basePath == null || basePath.equals(Boolean.FALSE.toString())) {
             this.logOutputStream = null;
+            this.binaryWriter = null;
+            return;
+        }
+
+        if ("binary".equals(systemProperty(sysProps, FORMAT_SYSPROP))) {
+            File binaryLogFile = binaryLogFile(basePath);
+            GFileUtils.mkdirs(binaryLogFile.getParentFile());
+            this.logOutputStream = null;
+            this.binaryWriter = new BinaryBuildOperationTraceWriter(binaryLogFile);
+            buildOperationListenerManager.addListener(binaryWriter);
             return;
         }
+        this.binaryWriter = null;
 
         try {
             File logFile = logFile(basePath);
@@ -137,8 +157,23 @@ public class BuildOperationTrace implements Stoppable {
         listenerManager.addListener(listener);
     }
 
+    private static String systemProperty(Map<String, String> sysProps, String name) {
+        String value = sysProps.get(name);
+        if (value == null) {
+            value = System.getProperty(name);
+        }
+        return value;
+    }
+
     @Override
     public void stop() {
+        if (binaryWriter != null) {
+            buildOperationListenerManager.removeListener(binaryWriter);
+            binaryWriter.stop();
+            writeReport(BuildOperationTraceAnalyzer.analyze(binaryLogFile(basePath), REPORT_LIMIT));
+            return;
+        }
+
         buildOperationListenerManager.removeListener(listener);
         listenerManager.removeListener(listener);
 
@@ -157,6 +192,19 @@ public class BuildOperationTrace implements Stoppable {
         }
     }
 
+    private void writeReport(BuildOperationTraceAnalyzer.Report report) {
+        try {
+            PrintWriter writer = new PrintWriter(Files.newWriter(file(basePath, "-report.txt"), Charsets.UTF_8));
+            try {
+                report.writeTo(writer);
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
     private void writeDetailTree(List<BuildOperationRecord> roots) throws IOException {
         try {
             String rawJson = JsonOutput.toJson(BuildOperationTree.serialize(roots));
@@ -347,6 +395,10 @@ public class BuildOperationTrace implements Stoppable {
         return file(basePath, "-log.txt");
     }
 
+    private static File binaryLogFile(String basePath) {
+        return file(basePath, "-log.bin");
+    }
+
     private static File file(String base, String suffix) {
         return new File((base == null || base.trim().isEmpty() ? "operations" : base) + suffix).getAbsoluteFile();
     }
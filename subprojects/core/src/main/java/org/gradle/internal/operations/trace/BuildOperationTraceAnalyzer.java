@@ -0,0 +1,349 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Analyzes a binary build operation log, as written by {@link BinaryBuildOperationTraceWriter}, in a single pass.
+ *
+ * <p>Only the operations that are in progress at a given point of the log are kept in memory, along with the critical path of each of them,
+ * so the memory used depends on the number of concurrent operations rather than on the size of the log. The critical path of an operation
+ * is the chain made of the child operation that finished last, the child of that operation that finished last, and so on.</p>
+ *
+ * <p>The log starts with a magic number and a format version, followed by a sequence of records, each starting with its type:</p>
+ *
+ * <ul>
+ * <li>string: the value. Strings are numbered from 1, in the order they appear in the log, and are referred to by number, 0 meaning none.</li>
+ * <li>start: operation id, parent operation id or 0, start time, display name string, details type string.</li>
+ * <li>progress: operation id, time.</li>
+ * <li>finish: operation id, end time, whether the operation failed, result type string.</li>
+ * </ul>
+ */
+public class BuildOperationTraceAnalyzer {
+    private static final String NO_DETAILS = "(no details)";
+
+    private final int limit;
+    private final List<String> strings = new ArrayList<String>();
+    private final Map<Long, Pending> pending = new HashMap<Long, Pending>();
+    private final PriorityQueue<OperationSummary> slowest = new PriorityQueue<OperationSummary>(16, OperationSummary.BY_DURATION);
+    private final Map<String, TypeSummary> types = new HashMap<String, TypeSummary>();
+    private PathNode criticalPath;
+    private long operationCount;
+    private long failedCount;
+    private long progressCount;
+
+    private BuildOperationTraceAnalyzer(int limit) {
+        this.limit = limit;
+        strings.add(null);
+    }
+
+    /**
+     * Analyzes the given log, reporting the given number of slowest operations and operation types.
+     */
+    public static Report analyze(File logFile, int limit) {
+        BuildOperationTraceAnalyzer analyzer = new BuildOperationTraceAnalyzer(limit);
+        try {
+            KryoBackedDecoder decoder = new KryoBackedDecoder(new BufferedInputStream(new FileInputStream(logFile)), 64 * 1024);
+            try {
+                if (decoder.readInt() != BinaryBuildOperationTraceWriter.MAGIC || decoder.readByte() != BinaryBuildOperationTraceWriter.FORMAT_VERSION) {
+                    throw new IllegalArgumentException(String.format("File %s is not a binary build operation log.", logFile));
+                }
+                analyzer.read(decoder);
+            } finally {
+                decoder.close();
+            }
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        return analyzer.toReport();
+    }
+
+    private void read(KryoBackedDecoder decoder) throws Exception {
+        while (true) {
+            byte type;
+            try {
+                type = decoder.readByte();
+            } catch (EOFException e) {
+                return;
+            }
+            switch (type) {
+                case BinaryBuildOperationTraceWriter.STRING:
+                    strings.add(decoder.readString());
+                    break;
+                case BinaryBuildOperationTraceWriter.START:
+                    long id = decoder.readSmallLong();
+                    long parentId = decoder.readSmallLong();
+                    long startTime = decoder.readSmallLong();
+                    String displayName = strings.get(decoder.readSmallInt());
+                    String detailsClassName = strings.get(decoder.readSmallInt());
+                    pending.put(id, new Pending(parentId, startTime, displayName, detailsClassName));
+                    break;
+                case BinaryBuildOperationTraceWriter.PROGRESS:
+                    decoder.readSmallLong();
+                    decoder.readSmallLong();
+                    progressCount++;
+                    break;
+                case BinaryBuildOperationTraceWriter.FINISH:
+                    long finishedId = decoder.readSmallLong();
+                    long endTime = decoder.readSmallLong();
+                    boolean failed = decoder.readBoolean();
+                    decoder.readSmallInt();
+                    finished(finishedId, endTime, failed);
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected record type " + type + " in binary build operation log.");
+            }
+        }
+    }
+
+    private void finished(long id, long endTime, boolean failed) {
+        Pending operation = pending.remove(id);
+        if (operation == null) {
+            // Started before the trace was enabled
+            return;
+        }
+        long duration = endTime - operation.startTime;
+        operationCount++;
+        if (failed) {
+            failedCount++;
+        }
+
+        OperationSummary summary = new OperationSummary(id, operation.displayName, operation.detailsClassName, duration);
+        slowest.add(summary);
+        if (slowest.size() > limit) {
+            slowest.poll();
+        }
+
+        String typeName = operation.detailsClassName == null ? NO_DETAILS : operation.detailsClassName;
+        TypeSummary type = types.get(typeName);
+        if (type == null) {
+            type = new TypeSummary(typeName);
+            types.put(typeName, type);
+        }
+        type.count++;
+        type.totalDuration += duration;
+
+        PathNode node = new PathNode(summary, operation.criticalChild);
+        Pending parent = operation.parentId == 0 ? null : pending.get(operation.parentId);
+        if (parent != null) {
+            if (parent.criticalChild == null || endTime >= parent.criticalChildEndTime) {
+                parent.criticalChild = node;
+                parent.criticalChildEndTime = endTime;
+            }
+        } else if (criticalPath == null || duration > criticalPath.operation.duration) {
+            criticalPath = node;
+        }
+    }
+
+    private Report toReport() {
+        List<OperationSummary> path = new ArrayList<OperationSummary>();
+        for (PathNode node = criticalPath; node != null; node = node.next) {
+            path.add(node.operation);
+        }
+        List<OperationSummary> slowestOperations = new ArrayList<OperationSummary>(slowest);
+        Collections.sort(slowestOperations, Collections.reverseOrder(OperationSummary.BY_DURATION));
+        List<TypeSummary> slowestTypes = new ArrayList<TypeSummary>(types.values());
+        Collections.sort(slowestTypes, TypeSummary.BY_TOTAL_DURATION_DESCENDING);
+        if (slowestTypes.size() > limit) {
+            slowestTypes = new ArrayList<TypeSummary>(slowestTypes.subList(0, limit));
+        }
+        return new Report(operationCount, failedCount, progressCount, pending.size(), path, slowestOperations, slowestTypes);
+    }
+
+    private static class Pending {
+        final long parentId;
+        final long startTime;
+        final String displayName;
+        final String detailsClassName;
+        PathNode criticalChild;
+        long criticalChildEndTime;
+
+        Pending(long parentId, long startTime, String displayName, @Nullable String detailsClassName) {
+            this.parentId = parentId;
+            this.startTime = startTime;
+            this.displayName = displayName;
+            this.detailsClassName = detailsClassName;
+        }
+    }
+
+    private static class PathNode {
+        final OperationSummary operation;
+        final PathNode next;
+
+        PathNode(OperationSummary operation, @Nullable PathNode next) {
+            this.operation = operation;
+            this.next = next;
+        }
+    }
+
+    public static class OperationSummary {
+        static final Comparator<OperationSummary> BY_DURATION = new Comparator<OperationSummary>() {
+            @Override
+            public int compare(OperationSummary o1, OperationSummary o2) {
+                return o1.duration < o2.duration ? -1 : o1.duration == o2.duration ? 0 : 1;
+            }
+        };
+
+        private final long id;
+        private final String displayName;
+        private final String detailsClassName;
+        private final long duration;
+
+        OperationSummary(long id, String displayName, @Nullable String detailsClassName, long duration) {
+            this.id = id;
+            this.displayName = displayName;
+            this.detailsClassName = detailsClassName;
+            this.duration = duration;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        @Nullable
+        public String getDetailsClassName() {
+            return detailsClassName;
+        }
+
+        public long getDuration() {
+            return duration;
+        }
+    }
+
+    public static class TypeSummary {
+        static final Comparator<TypeSummary> BY_TOTAL_DURATION_DESCENDING = new Comparator<TypeSummary>() {
+            @Override
+            public int compare(TypeSummary o1, TypeSummary o2) {
+                return o1.totalDuration > o2.totalDuration ? -1 : o1.totalDuration == o2.totalDuration ? 0 : 1;
+            }
+        };
+
+        private final String detailsClassName;
+        private long count;
+        private long totalDuration;
+
+        TypeSummary(String detailsClassName) {
+            this.detailsClassName = detailsClassName;
+        }
+
+        public String getDetailsClassName() {
+            return detailsClassName;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalDuration() {
+            return totalDuration;
+        }
+    }
+
+    public static class Report {
+        private final long operationCount;
+        private final long failedCount;
+        private final long progressCount;
+        private final int unfinishedCount;
+        private final List<OperationSummary> criticalPath;
+        private final List<OperationSummary> slowestOperations;
+        private final List<TypeSummary> slowestTypes;
+
+        Report(long operationCount, long failedCount, long progressCount, int unfinishedCount, List<OperationSummary> criticalPath, List<OperationSummary> slowestOperations, List<TypeSummary> slowestTypes) {
+            this.operationCount = operationCount;
+            this.failedCount = failedCount;
+            this.progressCount = progressCount;
+            this.unfinishedCount = unfinishedCount;
+            this.criticalPath = criticalPath;
+            this.slowestOperations = slowestOperations;
+            this.slowestTypes = slowestTypes;
+        }
+
+        public long getOperationCount() {
+            return operationCount;
+        }
+
+        /**
+         * Returns the critical path of the longest root operation, starting with that operation.
+         */
+        public List<OperationSummary> getCriticalPath() {
+            return criticalPath;
+        }
+
+        /**
+         * Returns the slowest operations, slowest first.
+         */
+        public List<OperationSummary> getSlowestOperations() {
+            return slowestOperations;
+        }
+
+        /**
+         * Returns the operation types that took the most time in total, slowest first.
+         */
+        public List<TypeSummary> getSlowestTypes() {
+            return slowestTypes;
+        }
+
+        public void writeTo(PrintWriter writer) {
+            writer.println(operationCount + " operations, " + failedCount + " failed, " + progressCount + " progress notifications, " + unfinishedCount + " unfinished");
+            writer.println();
+            writer.println("Critical path:");
+            for (int i = 0; i < criticalPath.size(); i++) {
+                OperationSummary operation = criticalPath.get(i);
+                writer.print("  ");
+                for (int j = 0; j < i; j++) {
+                    writer.print("  ");
+                }
+                writer.println(format(operation));
+            }
+            writer.println();
+            writer.println("Slowest operations:");
+            for (OperationSummary operation : slowestOperations) {
+                writer.println("  " + format(operation));
+            }
+            writer.println();
+            writer.println("Slowest operation types:");
+            for (TypeSummary type : slowestTypes) {
+                writer.println("  " + type.detailsClassName + " [" + type.totalDuration + "ms in " + type.count + " operations]");
+            }
+            writer.flush();
+        }
+
+        private static String format(OperationSummary operation) {
+            return operation.displayName + " [" + operation.duration + "ms] (" + operation.id + ")";
+        }
+    }
+}
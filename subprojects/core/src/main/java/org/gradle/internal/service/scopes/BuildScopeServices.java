@@ -76,8 +76,10 @@ import org.gradle.api.invocation.BuildInvocationDetails;
 import org.gradle.api.provider.ProviderFactory;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.FileLockManager;
+import org.gradle.cache.internal.CacheScopeMapping;
 import org.gradle.caching.internal.BuildCacheServices;
 import org.gradle.configuration.BuildConfigurer;
+import org.gradle.configuration.BuildScriptPrecompilingBuildLoader;
 import org.gradle.configuration.DefaultBuildConfigurer;
 import org.gradle.configuration.DefaultInitScriptProcessor;
 import org.gradle.configuration.DefaultScriptPluginFactory;
@@ -162,6 +164,7 @@ import org.gradle.internal.service.DefaultServiceRegistry;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.internal.time.Clock;
+import org.gradle.internal.work.WorkerLeaseService;
 import org.gradle.model.internal.inspect.ModelRuleSourceDetector;
 import org.gradle.plugin.management.internal.autoapply.AutoAppliedPluginHandler;
 import org.gradle.plugin.use.internal.PluginRequestApplicator;
@@ -228,25 +231,31 @@ public class BuildScopeServices extends DefaultServiceRegistry {
         return new DefaultGradlePropertiesLoader(get(StartParameter.class));
     }
 
-    protected BuildLoader createBuildLoader(IGradlePropertiesLoader propertiesLoader, IProjectFactory projectFactory, BuildOperationExecutor buildOperationExecutor) {
-        return new NotifyingBuildLoader(
-            new ProjectPropertySettingBuildLoader(
-                propertiesLoader,
-                new InstantiatingBuildLoader(
-                    projectFactory
-                )
+    protected BuildLoader createBuildLoader(IGradlePropertiesLoader propertiesLoader, IProjectFactory projectFactory, BuildOperationExecutor buildOperationExecutor,
+                                            FileCacheBackedScriptClassCompiler scriptClassCompiler, DocumentationRegistry documentationRegistry) {
+        return new BuildScriptPrecompilingBuildLoader(
+            new NotifyingBuildLoader(
+                new ProjectPropertySettingBuildLoader(
+                    propertiesLoader,
+                    new InstantiatingBuildLoader(
+                        projectFactory
+                    )
+                ),
+                buildOperationExecutor
             ),
+            scriptClassCompiler,
+            documentationRegistry,
             buildOperationExecutor
         );
     }
 
-    protected ProjectEvaluator createProjectEvaluator(BuildOperationExecutor buildOperationExecutor, CachingServiceLocator cachingServiceLocator, ScriptPluginFactory scriptPluginFactory) {
+    protected ProjectEvaluator createProjectEvaluator(BuildOperationExecutor buildOperationExecutor, CachingServiceLocator cachingServiceLocator, ScriptPluginFactory scriptPluginFactory, WorkerLeaseService workerLeaseService) {
         ConfigureActionsProjectEvaluator withActionsEvaluator = new ConfigureActionsProjectEvaluator(
             PluginsProjectConfigureActions.from(cachingServiceLocator),
             new BuildScriptProcessor(scriptPluginFactory),
             new DelayedConfigurationActions()
         );
-        return new LifecycleProjectEvaluator(buildOperationExecutor, withActionsEvaluator);
+        return new LifecycleProjectEvaluator(buildOperationExecutor, withActionsEvaluator, workerLeaseService);
     }
 
     protected PropertyWalker createPropertyWalker(PropertyMetadataStore propertyMetadataStore) {
@@ -280,7 +289,7 @@ public class BuildScopeServices extends DefaultServiceRegistry {
         CacheRepository cacheRepository, final StartParameter startParameter,
         ProgressLoggerFactory progressLoggerFactory, ClassLoaderCache classLoaderCache, ImportsReader importsReader,
         ScriptSourceHasher hasher, ClassLoaderHierarchyHasher classLoaderHierarchyHasher,
-        BuildOperationExecutor buildOperationExecutor) {
+        BuildOperationExecutor buildOperationExecutor, CacheScopeMapping cacheScopeMapping) {
         return new FileCacheBackedScriptClassCompiler(
             cacheRepository,
             new BuildOperationBackedScriptCompilationHandler(
@@ -288,7 +297,8 @@ public class BuildScopeServices extends DefaultServiceRegistry {
             progressLoggerFactory,
             hasher,
             classLoaderCache,
-            classLoaderHierarchyHasher);
+            classLoaderHierarchyHasher,
+            cacheScopeMapping);
     }
 
     protected ScriptPluginFactory createScriptPluginFactory(InstantiatorFactory instantiatorFactory, BuildOperationExecutor buildOperationExecutor, UserCodeApplicationContext userCodeApplicationContext) {
@@ -385,8 +395,8 @@ public class BuildScopeServices extends DefaultServiceRegistry {
         );
     }
 
-    protected ProjectConfigurer createProjectConfigurer(BuildCancellationToken cancellationToken) {
-        return new TaskPathProjectEvaluator(cancellationToken);
+    protected ProjectConfigurer createProjectConfigurer(BuildCancellationToken cancellationToken, BuildOperationExecutor buildOperationExecutor, StartParameter startParameter) {
+        return new TaskPathProjectEvaluator(cancellationToken, buildOperationExecutor, startParameter);
     }
 
     protected BuildConfigurer createBuildConfigurer(ProjectConfigurer projectConfigurer, BuildStateRegistry buildStateRegistry) {
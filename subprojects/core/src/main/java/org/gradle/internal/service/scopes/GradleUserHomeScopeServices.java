@@ -18,6 +18,7 @@ package org.gradle.internal.service.scopes;
 
 import org.apache.tools.ant.DirectoryScanner;
 import org.gradle.api.internal.ClassPathRegistry;
+import org.gradle.api.internal.DecoratedClassStoreServices;
 import org.gradle.api.internal.DefaultClassPathProvider;
 import org.gradle.api.internal.DefaultClassPathRegistry;
 import org.gradle.api.internal.cache.StringInterner;
@@ -91,6 +92,7 @@ import org.gradle.internal.snapshot.WellKnownFileLocations;
 import org.gradle.internal.snapshot.impl.DefaultFileSystemMirror;
 import org.gradle.internal.snapshot.impl.DefaultFileSystemSnapshotter;
 import org.gradle.internal.snapshot.impl.DefaultValueSnapshotter;
+import org.gradle.process.internal.ClassDataSharingArchives;
 import org.gradle.process.internal.JavaExecHandleFactory;
 import org.gradle.process.internal.health.memory.MemoryManager;
 import org.gradle.process.internal.worker.DefaultWorkerProcessFactory;
@@ -115,6 +117,7 @@ public class GradleUserHomeScopeServices {
         File userHomeDir = userHomeDirProvider.getGradleUserHomeDirectory();
         registration.addProvider(new CacheRepositoryServices(userHomeDir, null));
         registration.addProvider(new GradleUserHomeCleanupServices());
+        registration.addProvider(new DecoratedClassStoreServices());
         for (PluginServiceRegistry plugin : globalServices.getAll(PluginServiceRegistry.class)) {
             plugin.registerGradleUserHomeServices(registration);
         }
@@ -223,7 +226,8 @@ public class GradleUserHomeScopeServices {
 
     WorkerProcessFactory createWorkerProcessFactory(LoggingManagerInternal loggingManagerInternal, MessagingServer messagingServer, ClassPathRegistry classPathRegistry,
                                                     TemporaryFileProvider temporaryFileProvider, JavaExecHandleFactory execHandleFactory, JvmVersionDetector jvmVersionDetector,
-                                                    MemoryManager memoryManager, GradleUserHomeDirProvider gradleUserHomeDirProvider, OutputEventListener outputEventListener) {
+                                                    MemoryManager memoryManager, GradleUserHomeDirProvider gradleUserHomeDirProvider, OutputEventListener outputEventListener,
+                                                    ClassDataSharingArchives classDataSharingArchives) {
         return new DefaultWorkerProcessFactory(
             loggingManagerInternal,
             messagingServer,
@@ -234,10 +238,15 @@ public class GradleUserHomeScopeServices {
             execHandleFactory,
             jvmVersionDetector,
             outputEventListener,
-            memoryManager
+            memoryManager,
+            classDataSharingArchives
         );
     }
 
+    ClassDataSharingArchives createClassDataSharingArchives(GradleUserHomeDirProvider gradleUserHomeDirProvider, JvmVersionDetector jvmVersionDetector, ExecutorFactory executorFactory) {
+        return new ClassDataSharingArchives(gradleUserHomeDirProvider.getGradleUserHomeDirectory(), jvmVersionDetector, executorFactory);
+    }
+
     ClassPathRegistry createClassPathRegistry(ModuleRegistry moduleRegistry, WorkerProcessClassPathProvider workerProcessClassPathProvider) {
         return new DefaultClassPathRegistry(
             new DefaultClassPathProvider(moduleRegistry),
@@ -0,0 +1,349 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal;
+
+import org.apache.commons.io.IOUtils;
+import org.gradle.api.JavaVersion;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.jvm.Jvm;
+import org.gradle.internal.jvm.inspection.JvmVersionDetector;
+import org.gradle.internal.time.TimeFormatting;
+import org.gradle.util.CollectionUtils;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.GradleVersion;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains application class data sharing archives for the JVMs that Gradle starts, such as the daemon and the worker processes, to reduce their startup time.
+ *
+ * <p>An archive is specific to the Gradle version, the JVM and the jars that make up the classpath it covers, and is kept in the Gradle user home.
+ * The first JVM started for a given JVM and classpath records the classes it loads. Once the recording has settled, the next start dumps an archive of
+ * these classes in the background, and the JVMs started after that use the archive.</p>
+ *
+ * <p>Only long-lived processes dump archives, as a dump takes a few seconds. A process that owns worker processes, such as the daemon, dumps the archive
+ * of its workers itself. A process that only starts another JVM, such as the command-line client starting the daemon, asks that JVM to dump its own archive
+ * using the {@value #DUMP_PROPERTY} system property. A process that exits does not wait for its dumps, and the temporary archives they leave behind are
+ * deleted by the next dump.</p>
+ *
+ * <p>Nothing is done for JVMs older than Java 11, for classpaths that contain directories, when the JVM arguments already configure class data sharing,
+ * or when disabled using the {@value #ENABLED_PROPERTY} system property. A JVM that cannot use an archive ignores it.</p>
+ */
+public class ClassDataSharingArchives implements Stoppable {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.class-data-sharing";
+    public static final String DUMP_PROPERTY = "org.gradle.internal.class-data-sharing.dump";
+    private static final Logger LOGGER = Logging.getLogger(ClassDataSharingArchives.class);
+    private static final List<String> SHARING_ARGUMENT_PREFIXES = Arrays.asList("-Xshare", "-XX:SharedArchiveFile", "-XX:SharedClassListFile", "-XX:DumpLoadedClassList");
+    private static final long SETTLE_TIME_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long DUMP_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final String TMP_ARCHIVE_SUFFIX = ".jsa.tmp";
+
+    private final File baseDir;
+    private final JvmVersionDetector jvmVersionDetector;
+    private final ExecutorFactory executorFactory;
+    private final Set<File> dumping = Collections.synchronizedSet(new HashSet<File>());
+    private ManagedExecutor executor;
+    private boolean stopped;
+
+    /**
+     * Creates an instance for a short-lived process, which leaves the dump of an archive to the JVM that uses it.
+     */
+    public ClassDataSharingArchives(File gradleUserHomeDir, JvmVersionDetector jvmVersionDetector) {
+        this(gradleUserHomeDir, jvmVersionDetector, null);
+    }
+
+    /**
+     * Creates an instance for a long-lived process, which dumps archives in the background using an executor created from the given factory.
+     */
+    public ClassDataSharingArchives(File gradleUserHomeDir, JvmVersionDetector jvmVersionDetector, @Nullable ExecutorFactory executorFactory) {
+        this.baseDir = new File(gradleUserHomeDir, "caches/" + GradleVersion.current().getVersion() + "/class-data-sharing");
+        this.jvmVersionDetector = jvmVersionDetector;
+        this.executorFactory = executorFactory;
+    }
+
+    /**
+     * Determines how a JVM started with the given executable and JVM arguments should use class data sharing.
+     *
+     * @param classpath The jars at the start of the classpath of the JVM, whose classes can be shared.
+     */
+    public Usage usageFor(String javaExecutable, List<String> jvmArgs, Collection<File> classpath) {
+        if ("false".equals(System.getProperty(ENABLED_PROPERTY)) || configuresSharing(jvmArgs) || classpath.isEmpty()) {
+            return Usage.NONE;
+        }
+        JavaVersion javaVersion = jvmVersionDetector.getJavaVersion(javaExecutable);
+        if (javaVersion == null || !javaVersion.isJava11Compatible()) {
+            return Usage.NONE;
+        }
+
+        File executable = new File(javaExecutable);
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(executable.getAbsolutePath());
+        hasher.putLong(executable.lastModified());
+        hasher.putString(javaVersion.getMajorVersion());
+        for (File file : classpath) {
+            if (!file.isFile()) {
+                // Class data can only be shared for classes loaded from jars
+                return Usage.NONE;
+            }
+            hasher.putString(file.getAbsolutePath());
+            hasher.putLong(file.length());
+            hasher.putLong(file.lastModified());
+        }
+        File archiveDir = new File(baseDir, hasher.hash().toString());
+        File archive = new File(archiveDir, "classes.jsa");
+        File classList = new File(archiveDir, "classes.lst");
+
+        if (archive.isFile()) {
+            return new Usage(archiveDir, Arrays.asList("-Xshare:auto", "-XX:SharedArchiveFile=" + archive.getAbsolutePath()), true, false);
+        }
+        if (classList.isFile()) {
+            if (System.currentTimeMillis() - classList.lastModified() > SETTLE_TIME_MILLIS && !new File(archiveDir, "failed").exists()) {
+                if (executorFactory == null) {
+                    // Let the JVM dump its own archive rather than delay the exit of this process
+                    return new Usage(archiveDir, Collections.singletonList("-D" + DUMP_PROPERTY + "=" + archiveDir.getAbsolutePath()), false, false);
+                }
+                dumpInBackground(executable, classpath, archiveDir);
+            }
+            return new Usage(archiveDir, Collections.<String>emptyList(), false, false);
+        }
+        if (!startRecording(classList)) {
+            return Usage.NONE;
+        }
+        return new Usage(archiveDir, Collections.singletonList("-XX:DumpLoadedClassList=" + classList.getAbsolutePath()), false, true);
+    }
+
+    private static boolean configuresSharing(List<String> jvmArgs) {
+        for (String jvmArg : jvmArgs) {
+            for (String prefix : SHARING_ARGUMENT_PREFIXES) {
+                if (jvmArg.startsWith(prefix)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean startRecording(File classList) {
+        try {
+            GFileUtils.mkdirs(classList.getParentFile());
+            // Only one JVM records the classes, when several are started at the same time
+            return classList.createNewFile();
+        } catch (IOException e) {
+            LOGGER.debug("Could not record the classes to share in " + classList + ".", e);
+            return false;
+        }
+    }
+
+    /**
+     * Dumps the archive of the current JVM in the background, when the process that started it asked for it using the {@value #DUMP_PROPERTY} system property.
+     */
+    public void dumpArchiveOfCurrentJvmIfRequested() {
+        String archiveDir = System.getProperty(DUMP_PROPERTY);
+        if (archiveDir == null || executorFactory == null) {
+            return;
+        }
+        List<File> classpath = new ArrayList<File>();
+        for (String path : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            classpath.add(new File(path));
+        }
+        dumpInBackground(Jvm.current().getJavaExecutable(), classpath, new File(archiveDir));
+    }
+
+    private void dumpInBackground(final File executable, final Collection<File> classpath, final File archiveDir) {
+        if (!dumping.add(archiveDir)) {
+            return;
+        }
+        ManagedExecutor executor = getExecutor();
+        if (executor == null) {
+            dumping.remove(archiveDir);
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    dump(executable, classpath, archiveDir);
+                } finally {
+                    dumping.remove(archiveDir);
+                }
+            }
+        });
+    }
+
+    @Nullable
+    private synchronized ManagedExecutor getExecutor() {
+        if (stopped) {
+            return null;
+        }
+        if (executor == null) {
+            executor = executorFactory.create("Class data sharing archive dump", 1);
+        }
+        return executor;
+    }
+
+    /**
+     * Stops dumping archives. Does not wait for a dump in progress, whose temporary archive is deleted by a later dump if it does not complete.
+     */
+    @Override
+    public synchronized void stop() {
+        stopped = true;
+        if (executor != null) {
+            executor.requestStop();
+        }
+    }
+
+    private static void dump(File executable, Collection<File> classpath, File archiveDir) {
+        File classList = new File(archiveDir, "classes.lst");
+        File archive = new File(archiveDir, "classes.jsa");
+        if (archive.isFile() || new File(archiveDir, "failed").exists()) {
+            // Dumped by another process in the meantime
+            return;
+        }
+        deleteStaleTemporaryArchives(archiveDir);
+        File log = new File(archiveDir, "dump.log");
+        File tmpArchive = new File(archiveDir, "classes-" + UUID.randomUUID() + TMP_ARCHIVE_SUFFIX);
+        try {
+            ProcessBuilder processBuilder = new ProcessBuilder(
+                executable.getPath(),
+                "-Xshare:dump",
+                "-XX:SharedClassListFile=" + classList.getAbsolutePath(),
+                "-XX:SharedArchiveFile=" + tmpArchive.getAbsolutePath(),
+                "-cp",
+                CollectionUtils.join(File.pathSeparator, classpath));
+            processBuilder.directory(archiveDir);
+            processBuilder.redirectErrorStream(true);
+            Process process = processBuilder.start();
+            process.getOutputStream().close();
+            OutputStream logOutput = new FileOutputStream(log);
+            try {
+                IOUtils.copy(process.getInputStream(), logOutput);
+            } finally {
+                logOutput.close();
+            }
+            if (process.waitFor() == 0 && tmpArchive.isFile() && tmpArchive.renameTo(archive)) {
+                LOGGER.info("Created class data sharing archive {}.", archive);
+                return;
+            }
+            LOGGER.info("Could not create class data sharing archive {}. See {} for details.", archive, log);
+            // Do not try again for this JVM and classpath
+            GFileUtils.touch(new File(archiveDir, "failed"));
+        } catch (Exception e) {
+            LOGGER.info("Could not create class data sharing archive " + archive + ".", e);
+        } finally {
+            GFileUtils.deleteQuietly(tmpArchive);
+        }
+    }
+
+    /**
+     * Deletes the temporary archives of dumps that have not completed in time, such as the dumps of a process that was killed.
+     */
+    private static void deleteStaleTemporaryArchives(File archiveDir) {
+        File[] files = archiveDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long staleBefore = System.currentTimeMillis() - DUMP_TIMEOUT_MILLIS;
+        for (File file : files) {
+            if (file.getName().endsWith(TMP_ARCHIVE_SUFFIX) && file.lastModified() < staleBefore) {
+                GFileUtils.deleteQuietly(file);
+            }
+        }
+    }
+
+    /**
+     * How a JVM uses class data sharing.
+     */
+    public static class Usage {
+        public static final Usage NONE = new Usage(null, Collections.<String>emptyList(), false, false);
+
+        private final File archiveDir;
+        private final List<String> jvmArgs;
+        private final boolean usesArchive;
+        private final boolean recordsClasses;
+
+        private Usage(@Nullable File archiveDir, List<String> jvmArgs, boolean usesArchive, boolean recordsClasses) {
+            this.archiveDir = archiveDir;
+            this.jvmArgs = jvmArgs;
+            this.usesArchive = usesArchive;
+            this.recordsClasses = recordsClasses;
+        }
+
+        /**
+         * Returns the arguments to add to the arguments of the JVM.
+         */
+        public List<String> getJvmArgs() {
+            return jvmArgs;
+        }
+
+        public boolean isUsingArchive() {
+            return usesArchive;
+        }
+
+        /**
+         * Records the time the JVM took to start. Remembers the startup time of a JVM that does not use the archive, to report the time saved by the JVMs that use it.
+         * The startup time of the JVM that records the loaded classes is not remembered, as the recording slows down the startup.
+         */
+        public void started(String displayName, long startupMillis) {
+            if (archiveDir == null || recordsClasses) {
+                return;
+            }
+            File startupWithoutArchive = new File(archiveDir, "startup-without-archive.txt");
+            if (!usesArchive) {
+                if (!startupWithoutArchive.exists()) {
+                    GFileUtils.writeFile(String.valueOf(startupMillis), startupWithoutArchive);
+                }
+                return;
+            }
+            Long baseline = readStartupTime(startupWithoutArchive);
+            if (baseline != null && baseline > startupMillis) {
+                LOGGER.info("{} started in {} using a class data sharing archive, {} faster than without it.", displayName,
+                    TimeFormatting.formatDurationVerbose(startupMillis), TimeFormatting.formatDurationVerbose(baseline - startupMillis));
+            } else {
+                LOGGER.info("{} started in {} using a class data sharing archive.", displayName, TimeFormatting.formatDurationVerbose(startupMillis));
+            }
+        }
+
+        @Nullable
+        private static Long readStartupTime(File file) {
+            String content = GFileUtils.readFileQuietly(file).trim();
+            try {
+                return Long.parseLong(content);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
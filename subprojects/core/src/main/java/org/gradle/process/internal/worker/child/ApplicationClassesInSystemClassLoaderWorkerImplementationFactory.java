@@ -30,6 +30,7 @@ import org.gradle.internal.remote.Address;
 import org.gradle.internal.remote.internal.inet.MultiChoiceAddress;
 import org.gradle.internal.remote.internal.inet.MultiChoiceAddressSerializer;
 import org.gradle.internal.serialize.OutputStreamBackedEncoder;
+import org.gradle.process.internal.ClassDataSharingArchives;
 import org.gradle.process.internal.JavaExecHandleBuilder;
 import org.gradle.process.internal.streams.EncodedStream;
 import org.gradle.process.internal.worker.DefaultWorkerProcessBuilder;
@@ -72,12 +73,14 @@ public class ApplicationClassesInSystemClassLoaderWorkerImplementationFactory im
     private final TemporaryFileProvider temporaryFileProvider;
     private final JvmVersionDetector jvmVersionDetector;
     private final File gradleUserHomeDir;
+    private final ClassDataSharingArchives classDataSharingArchives;
 
-    public ApplicationClassesInSystemClassLoaderWorkerImplementationFactory(ClassPathRegistry classPathRegistry, TemporaryFileProvider temporaryFileProvider, JvmVersionDetector jvmVersionDetector, File gradleUserHomeDir) {
+    public ApplicationClassesInSystemClassLoaderWorkerImplementationFactory(ClassPathRegistry classPathRegistry, TemporaryFileProvider temporaryFileProvider, JvmVersionDetector jvmVersionDetector, File gradleUserHomeDir, ClassDataSharingArchives classDataSharingArchives) {
         this.classPathRegistry = classPathRegistry;
         this.temporaryFileProvider = temporaryFileProvider;
         this.jvmVersionDetector = jvmVersionDetector;
         this.gradleUserHomeDir = gradleUserHomeDir;
+        this.classDataSharingArchives = classDataSharingArchives;
     }
 
     @Override
@@ -95,6 +98,9 @@ public class ApplicationClassesInSystemClassLoaderWorkerImplementationFactory im
             // Use an options file to pass across application classpath
             File optionsFile = temporaryFileProvider.createTemporaryFile("gradle-worker-classpath", "txt");
             List<String> jvmArgs = writeOptionsFile(workerMainClassPath.getAsFiles(), applicationClasspath, optionsFile);
+            // The worker main jar comes first on the classpath, so its classes can be shared between worker processes
+            List<String> classDataSharingArgs = classDataSharingArchives.usageFor(execSpec.getExecutable(), execSpec.getAllJvmArgs(), workerMainClassPath.getAsFiles()).getJvmArgs();
+            execSpec.jvmArgs(classDataSharingArgs);
             execSpec.jvmArgs(jvmArgs);
         } else {
             // Use a dummy security manager, which hacks the application classpath into the system ClassLoader
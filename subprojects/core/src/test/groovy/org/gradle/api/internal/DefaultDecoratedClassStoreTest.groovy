@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal
+
+import org.gradle.cache.CacheBuilder
+import org.gradle.cache.CacheRepository
+import org.gradle.cache.PersistentCache
+import org.gradle.internal.resource.local.FileAccessTimeJournal
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class DefaultDecoratedClassStoreTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def cacheRepository = Stub(CacheRepository)
+    def cache = Mock(PersistentCache)
+    def fileAccessTimeJournal = Mock(FileAccessTimeJournal)
+    def classGenerator = new AsmBackedClassGenerator()
+    DefaultDecoratedClassStore store
+
+    def setup() {
+        def cacheBuilder = Stub(CacheBuilder)
+        cacheRepository.cache("generated-classes") >> cacheBuilder
+        cacheBuilder.withDisplayName(_) >> cacheBuilder
+        cacheBuilder.withLockOptions(_) >> cacheBuilder
+        cacheBuilder.withCleanup(_) >> cacheBuilder
+        cacheBuilder.open() >> cache
+        _ * cache.baseDir >> tmpDir.testDirectory
+        store = new DefaultDecoratedClassStore(cacheRepository, fileAccessTimeJournal, classGenerator)
+    }
+
+    def "loads stored bytecode"() {
+        def bytecode = [1, 2, 3] as byte[]
+
+        expect:
+        store.load(DecoratedClassStoreTestBean) == null
+
+        when:
+        store.store(DecoratedClassStoreTestBean, bytecode)
+
+        then:
+        store.load(DecoratedClassStoreTestBean) == bytecode
+        store.load(DecoratedClassStoreOtherTestBean) == null
+        tmpDir.testDirectory.listFiles()*.name.every { it.endsWith(".class") }
+    }
+
+    def "records access to stored and loaded entries for cleanup"() {
+        def bytecode = [1, 2, 3] as byte[]
+
+        when:
+        store.store(DecoratedClassStoreTestBean, bytecode)
+
+        then:
+        1 * fileAccessTimeJournal.setLastAccessTime({ it.name.endsWith(".class") }, _)
+
+        when:
+        store.load(DecoratedClassStoreTestBean)
+
+        then:
+        1 * fileAccessTimeJournal.setLastAccessTime({ it.name.endsWith(".class") }, _)
+    }
+
+    def "stores the classes generated by the class generator"() {
+        when:
+        def generated = classGenerator.generate(DecoratedClassStoreGeneratedTestBean)
+
+        then:
+        generated.name == DecoratedClassStoreGeneratedTestBean.name + "_Decorated"
+        store.load(DecoratedClassStoreGeneratedTestBean) != null
+    }
+
+    def "detaches from the class generator and closes the cache when closed"() {
+        when:
+        store.close()
+
+        then:
+        1 * cache.close()
+
+        when:
+        classGenerator.generate(DecoratedClassStoreDetachedTestBean)
+
+        then:
+        store.load(DecoratedClassStoreDetachedTestBean) == null
+    }
+}
+
+class DecoratedClassStoreTestBean {
+}
+
+class DecoratedClassStoreOtherTestBean {
+}
+
+class DecoratedClassStoreGeneratedTestBean {
+    String prop
+}
+
+class DecoratedClassStoreDetachedTestBean {
+    String prop
+}
@@ -85,6 +85,26 @@ class DefaultNamedDomainObjectCollectionTest extends AbstractNamedDomainObjectCo
         container.names == ["bean1", "bean2", "bean3"] as SortedSet
     }
 
+    def "filtered names track elements added and removed after the first query"() {
+        def subs = container.withType(BeanSub1)
+
+        given:
+        container.add(a)
+        container.add(d)
+
+        expect:
+        subs.names == ["a"] as SortedSet
+        subs.asMap.keySet() == ["a"] as Set
+
+        when:
+        container.add(b)
+        container.remove(a)
+
+        then:
+        subs.names == ["b"] as SortedSet
+        container.names == ["b", "d"] as SortedSet
+    }
+
     def "returns null element with name is not present and there are no rules to create it"() {
         expect:
         container.findByName("bean") == null
@@ -101,6 +101,42 @@ class SortedSetElementSourceTest extends AbstractElementSourceTest {
         source.iterator().collect() == iterationOrder("bar", "baz", "fooz", "fuzz")
     }
 
+    def "iterates over the realized elements of a type"() {
+        def source = new SortedSetElementSource<CharSequence>({ a, b -> a.toString() <=> b.toString() } as Comparator)
+        source.add("foo")
+        source.add(new StringBuilder("bar"))
+        source.addPending(provider("baz"))
+
+        expect:
+        source.iteratorNoFlush(String).collect() == ["foo"]
+        source.iteratorNoFlush(StringBuilder).collect()*.toString() == ["bar"]
+
+        when:
+        source.add("fizz")
+        source.add(new StringBuilder("buzz"))
+        source.remove("foo")
+
+        then:
+        source.iteratorNoFlush(String).collect() == ["fizz"]
+        source.iteratorNoFlush(StringBuilder).collect()*.toString() == ["bar", "buzz"]
+        source.iteratorNoFlush(CharSequence).collect()*.toString() == ["bar", "buzz", "fizz"]
+
+        when:
+        def iterator = source.iteratorNoFlush()
+        iterator.next()
+        iterator.remove()
+
+        then:
+        source.iteratorNoFlush(StringBuilder).collect()*.toString() == ["buzz"]
+
+        when:
+        source.clear()
+
+        then:
+        source.iteratorNoFlush(String).collect() == []
+        source.iteratorNoFlush(StringBuilder).collect() == []
+    }
+
     def "can remove elements using iterator"() {
         source.add("foo")
         source.addPending(provider("bar"))
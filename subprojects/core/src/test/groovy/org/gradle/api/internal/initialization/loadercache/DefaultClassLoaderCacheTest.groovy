@@ -73,6 +73,25 @@ class DefaultClassLoaderCacheTest extends Specification {
         cache.get(id1, classPath("c1"), root, null).is cache.get(id2, classPath("c1"), root, null)
     }
 
+    def "class loaders are not shared by class paths with the same content in different locations"() {
+        expect:
+        def root = classLoader(classPath("root"))
+        def hash = HashCode.fromInt(100)
+        !cache.get(id1, classPath("a/lib.jar"), root, null, hash).is(cache.get(id2, classPath("b/lib.jar"), root, null, hash))
+        cache.size() == 2
+    }
+
+    def "estimates metaspace saved by sharing from the average use per cached class loader"() {
+        expect:
+        DefaultClassLoaderCache.estimatedMetaspaceSaving(used, cached, shared) == saving
+
+        where:
+        used | cached | shared | saving
+        1000 | 4      | 2      | 500
+        1000 | 4      | 0      | 0
+        1000 | 0      | 0      | 0
+    }
+
     def "parents are respected"() {
         expect:
         def root1 = classLoader(classPath("root1"))
@@ -17,6 +17,7 @@
 package org.gradle.configuration.project
 
 import org.gradle.StartParameter
+import org.gradle.api.CircularReferenceException
 import org.gradle.api.ProjectConfigurationException
 import org.gradle.api.ProjectEvaluationListener
 import org.gradle.api.internal.GradleInternal
@@ -24,9 +25,12 @@ import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.api.internal.project.ProjectState
 import org.gradle.api.internal.project.ProjectStateInternal
 import org.gradle.internal.operations.TestBuildOperationExecutor
+import org.gradle.internal.resources.ProjectLeaseRegistry
 import org.gradle.util.Path
 import spock.lang.Specification
 
+import java.util.concurrent.CountDownLatch
+
 class LifecycleProjectEvaluatorTest extends Specification {
 
     private project = Mock(ProjectInternal)
@@ -34,7 +38,10 @@ class LifecycleProjectEvaluatorTest extends Specification {
     private listener = Mock(ProjectEvaluationListener)
     private delegate = Mock(ProjectEvaluator)
     private buildOperationExecutor = new TestBuildOperationExecutor()
-    private evaluator = new LifecycleProjectEvaluator(buildOperationExecutor, delegate)
+    private projectLeaseRegistry = Stub(ProjectLeaseRegistry) {
+        withoutProjectLock(_ as Runnable) >> { Runnable action -> action.run() }
+    }
+    private evaluator = new LifecycleProjectEvaluator(buildOperationExecutor, delegate, projectLeaseRegistry)
     private state = new ProjectStateInternal()
     private mutationState = Mock(ProjectState)
 
@@ -42,21 +49,25 @@ class LifecycleProjectEvaluatorTest extends Specification {
     final RuntimeException failure2 = new RuntimeException()
 
     void setup() {
-        project.getProjectEvaluationBroadcaster() >> listener
-        project.displayName >> "<project>"
-        project.gradle >> gradle
         gradle.findIdentityPath() >> Path.path(":")
         gradle.identityPath >> gradle.findIdentityPath()
         gradle.startParameter >> new StartParameter()
-        project.projectPath >> Path.path(":project1")
-        project.path >> project.projectPath.toString()
-        project.identityPath >> Path.path(":project1")
+        stubProject(project, ":project1", "<project>")
+        mutationState.withMutableState(_) >> { args -> args[0].run() }
+    }
+
+    private void stubProject(ProjectInternal project, String path, String displayName) {
+        project.getProjectEvaluationBroadcaster() >> listener
+        project.displayName >> displayName
+        project.gradle >> gradle
+        project.projectPath >> Path.path(path)
+        project.path >> path
+        project.identityPath >> Path.path(path)
         project.stepEvaluationListener(listener, _) >> { listener, step ->
             step.execute(listener)
             null
         }
         project.getMutationState() >> mutationState
-        mutationState.withMutableState(_) >> { args -> args[0].run() }
     }
 
     void "nothing happens if project was already configured"() {
@@ -89,6 +100,65 @@ class LifecycleProjectEvaluatorTest extends Specification {
         operations.empty
     }
 
+    void "waits for a project that another thread is configuring"() {
+        given:
+        def configuring = new CountDownLatch(1)
+        def testThread = Thread.currentThread()
+        1 * delegate.evaluate(project, state) >> {
+            configuring.countDown()
+            // Finish only once the test thread waits for this configuration
+            while (testThread.state != Thread.State.WAITING) {
+                Thread.sleep(10)
+            }
+        }
+        def configuringThread = new Thread({ evaluate() })
+        configuringThread.start()
+        configuring.await()
+
+        when:
+        evaluate()
+
+        then:
+        state.executed
+        !state.configuring
+        !state.hasFailure()
+
+        cleanup:
+        configuringThread?.join()
+    }
+
+    void "fails instead of waiting when threads configuring projects depend on each other"() {
+        given:
+        def other = Mock(ProjectInternal)
+        def otherState = new ProjectStateInternal()
+        stubProject(other, ":project2", "<other project>")
+        def configuring = new CountDownLatch(1)
+        Thread otherThread = null
+        delegate.evaluate(other, otherState) >> {
+            configuring.countDown()
+            evaluator.evaluate(project, state)
+        }
+        delegate.evaluate(project, state) >> {
+            otherThread = new Thread({ evaluator.evaluate(other, otherState) })
+            otherThread.start()
+            configuring.await()
+            evaluator.evaluate(other, otherState)
+        }
+
+        when:
+        try {
+            evaluate()
+        } catch (ProjectConfigurationException ignored) {
+            // Either configuration may be the one that fails
+        }
+        otherThread.join()
+
+        then:
+        [state, otherState].count { it.failure?.cause instanceof CircularReferenceException } == 1
+        state.executed
+        otherState.executed
+    }
+
     void "evaluates the project firing all necessary listeners and updating the state"() {
         when:
         evaluate()
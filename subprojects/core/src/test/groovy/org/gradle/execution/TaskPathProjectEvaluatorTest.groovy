@@ -16,15 +16,20 @@
 
 package org.gradle.execution
 
+import org.gradle.StartParameter
 import org.gradle.api.BuildCancelledException
 import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectState
 import org.gradle.initialization.BuildCancellationToken
+import org.gradle.internal.operations.TestBuildOperationExecutor
+import org.gradle.util.Path
 import spock.lang.Specification
 
 class TaskPathProjectEvaluatorTest extends Specification {
     private cancellationToken = Mock(BuildCancellationToken)
     private project = Mock(ProjectInternal)
-    private evaluator = new TaskPathProjectEvaluator(cancellationToken)
+    private buildOperationExecutor = new TestBuildOperationExecutor()
+    private evaluator = new TaskPathProjectEvaluator(cancellationToken, buildOperationExecutor, false)
 
     def "project configuration fails when cancelled"() {
         given:
@@ -60,4 +65,60 @@ class TaskPathProjectEvaluatorTest extends Specification {
         1 * child1.evaluate()
         0 * child2._
     }
+
+    def "configures subprojects in parallel after their parent when enabled"() {
+        def evaluator = new TaskPathProjectEvaluator(cancellationToken, buildOperationExecutor, true)
+        def child = project(":child", 1)
+        def grandChild = project(":child:grandChild", 2)
+        def other = project(":other", 1)
+
+        given:
+        project.subprojects >> ([child, grandChild, other] as Set)
+
+        when:
+        evaluator.configureHierarchy(project)
+
+        then:
+        1 * project.evaluate()
+
+        then:
+        1 * child.evaluate()
+        1 * other.evaluate()
+
+        then:
+        1 * grandChild.evaluate()
+
+        and:
+        buildOperationExecutor.operations*.displayName == [
+            "Configure project :child in parallel",
+            "Configure project :other in parallel",
+            "Configure project :child:grandChild in parallel"
+        ]
+        buildOperationExecutor.log.records.every { it.result instanceof TaskPathProjectEvaluator.ConfigureProjectResult }
+    }
+
+    def "enables parallel configuration only together with parallel execution"() {
+        def startParameter = new StartParameter()
+        startParameter.systemPropertiesArgs[TaskPathProjectEvaluator.PARALLEL_CONFIGURATION_PROPERTY] = propertyValue
+        startParameter.parallelProjectExecutionEnabled = parallel
+
+        expect:
+        TaskPathProjectEvaluator.parallelConfigurationOf(startParameter) == enabled
+
+        where:
+        propertyValue | parallel | enabled
+        "true"        | true     | true
+        "true"        | false    | false
+        "false"       | true     | false
+    }
+
+    private ProjectInternal project(String path, int depth) {
+        def project = Mock(ProjectInternal)
+        _ * project.depth >> depth
+        _ * project.identityPath >> Path.path(path)
+        _ * project.mutationState >> Stub(ProjectState) {
+            withMutableState(_ as Runnable) >> { Runnable action -> action.run() }
+        }
+        return project
+    }
 }
@@ -16,11 +16,15 @@
 
 package org.gradle.execution.plan
 
+import com.google.common.collect.ImmutableCollection
+import org.gradle.api.Action
 import org.gradle.api.DefaultTask
 import org.gradle.api.Task
 import org.gradle.api.file.FileCollection
 import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.tasks.TaskDependencyContainer
+import org.gradle.api.internal.tasks.TaskDependencyResolveContext
 import org.gradle.api.tasks.Destroys
 import org.gradle.api.tasks.InputDirectory
 import org.gradle.api.tasks.InputFile
@@ -53,7 +57,7 @@ class DefaultExecutionPlanParallelTest extends AbstractProjectBuilderSpec {
 
     def setup() {
         def taskNodeFactory = new TaskNodeFactory(project.gradle, Stub(IncludedBuildTaskGraph))
-        def dependencyResolver = new TaskDependencyResolver([new TaskNodeDependencyResolver(taskNodeFactory)])
+        def dependencyResolver = new TaskDependencyResolver([new TaskNodeDependencyResolver(taskNodeFactory), new WorkNodeDependencyResolver()])
         executionPlan = new DefaultExecutionPlan(lockSetup.workerLeaseService, project.gradle, taskNodeFactory, dependencyResolver)
     }
 
@@ -651,6 +655,37 @@ class DefaultExecutionPlanParallelTest extends AbstractProjectBuilderSpec {
         executionPlan.getNode(finalizer).state == Node.ExecutionState.SKIPPED
     }
 
+    def "work that does not need a project lock is selected before tasks and while all projects are locked"() {
+        given:
+        def work = new WorkNode()
+        def a = project.task("a")
+        def b = project.task("b")
+        def c = project.task("c")
+        c.dependsOn({ TaskDependencyResolveContext context -> context.add(work) } as TaskDependencyContainer)
+
+        when:
+        addToGraphAndPopulate(a, b, c)
+        def first = executionPlan.selectNext(lockSetup.workerLease, lockSetup.createResourceLockState())
+
+        then:
+        first == work
+        lockSetup.lockedProjects.empty
+
+        when:
+        def taskNode = selectNextTaskNode()
+
+        then:
+        taskNode.task == a
+        selectNextTask() == null
+
+        when:
+        executionPlan.nodeComplete(first)
+        executionPlan.nodeComplete(taskNode)
+
+        then:
+        selectNextTask() == b
+    }
+
     private void addToGraphAndPopulate(Task... tasks) {
         executionPlan.addEntryTasks(Arrays.asList(tasks))
         executionPlan.determineExecutionPlan()
@@ -699,6 +734,55 @@ class DefaultExecutionPlanParallelTest extends AbstractProjectBuilderSpec {
         }
     }
 
+    static class WorkNode extends Node {
+        @Override
+        void collectTaskInto(ImmutableCollection.Builder<Task> builder) {
+        }
+
+        @Override
+        Throwable getNodeFailure() {
+            return null
+        }
+
+        @Override
+        void rethrowNodeFailure() {
+        }
+
+        @Override
+        void prepareForExecution() {
+        }
+
+        @Override
+        void resolveDependencies(TaskDependencyResolver dependencyResolver, Action<Node> processHardSuccessor) {
+        }
+
+        @Override
+        int compareTo(Node other) {
+            return getClass().name <=> other.getClass().name
+        }
+
+        @Override
+        String toString() {
+            return "work"
+        }
+    }
+
+    static class WorkNodeDependencyResolver implements DependencyResolver {
+        @Override
+        boolean resolve(Task task, Object node, Action<? super Node> resolveAction) {
+            if (node instanceof WorkNode) {
+                resolveAction.execute(node)
+                return true
+            }
+            return false
+        }
+
+        @Override
+        boolean attachActionTo(Node value, Action<? super Task> action) {
+            return false
+        }
+    }
+
     private TaskInternal selectNextTask() {
         selectNextTaskNode()?.task
     }
@@ -21,6 +21,7 @@ import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache
 import org.gradle.cache.CacheBuilder
 import org.gradle.cache.CacheRepository
 import org.gradle.cache.PersistentCache
+import org.gradle.cache.internal.CacheScopeMapping
 import org.gradle.groovy.scripts.Script
 import org.gradle.groovy.scripts.ScriptSource
 import org.gradle.groovy.scripts.Transformer
@@ -29,9 +30,14 @@ import org.gradle.internal.hash.HashCode
 import org.gradle.internal.logging.progress.ProgressLogger
 import org.gradle.internal.logging.progress.ProgressLoggerFactory
 import org.gradle.internal.resource.TextResource
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
 import spock.lang.Specification
 
+import java.util.concurrent.TimeUnit
+
 class FileCacheBackedScriptClassCompilerTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
     final ScriptCompilationHandler scriptCompilationHandler = Mock()
     final CacheRepository cacheRepository = Mock()
     final CacheBuilder localCacheBuilder = Mock()
@@ -51,7 +57,8 @@ class FileCacheBackedScriptClassCompilerTest extends Specification {
     final File localDir = new File("local-dir")
     final File globalDir = new File("global-dir")
     final File classesDir = new File(globalDir, "classes")
-    final FileCacheBackedScriptClassCompiler compiler = new FileCacheBackedScriptClassCompiler(cacheRepository, scriptCompilationHandler, Stub(ProgressLoggerFactory), hasher, classLoaderCache, classLoaderHierarchyHasher)
+    final CacheScopeMapping cacheScopeMapping = Mock()
+    final FileCacheBackedScriptClassCompiler compiler = new FileCacheBackedScriptClassCompiler(cacheRepository, scriptCompilationHandler, Stub(ProgressLoggerFactory), hasher, classLoaderCache, classLoaderHierarchyHasher, cacheScopeMapping)
     final Action verifier = Stub()
     final CompiledScript compiledScript = Stub() {
         loadClass() >> Script
@@ -140,6 +147,93 @@ class FileCacheBackedScriptClassCompilerTest extends Specification {
         0 * scriptCompilationHandler._
     }
 
+    def "moves precompiled classes into cache directory instead of compiling again"() {
+        def initializer, globalInitializer
+        def precompiledDir = tmpDir.file("precompiled")
+        def globalCache = Stub(PersistentCache) {
+            getBaseDir() >> tmpDir.createDir("global")
+        }
+        _ * hasher.hash(source) >> HashCode.fromInt(0x0123)
+        _ * cacheScopeMapping.getBaseDirectory(null, "scripts-precompiled", _) >> precompiledDir
+        _ * cacheScopeMapping.getBaseDirectory(null, { it.startsWith("scripts/") }, _) >> tmpDir.file("global-not-initialized")
+
+        when:
+        compiler.precompile(source, classLoader, operation, Script, verifier)
+
+        then:
+        1 * scriptCompilationHandler.compileToDir({ it instanceof RemappingScriptSource }, classLoader, _, _, operation, Script, verifier) >> { args ->
+            ((File) args[2]).mkdirs()
+            ((File) args[3]).mkdirs()
+            new File((File) args[3], "metadata.bin").text = "metadata"
+        }
+
+        when:
+        compiler.compile(source, classLoader, classLoaderId, operation, Script, verifier)
+
+        then:
+        1 * cacheRepository.cache({ it.startsWith("scripts-remapped/") }) >> localCacheBuilder
+        1 * localCacheBuilder.withInitializer(!null) >> { args ->
+            initializer = args[0]
+            localCacheBuilder
+        }
+        1 * localCacheBuilder.withDisplayName(!null) >> localCacheBuilder
+        1 * localCacheBuilder.open() >> {
+            initializer.execute(localCache)
+            localCache
+        }
+
+        1 * cacheRepository.cache({ it.startsWith("scripts/") }) >> globalCacheBuilder
+        1 * globalCacheBuilder.withDisplayName(!null) >> globalCacheBuilder
+        1 * globalCacheBuilder.withInitializer(!null) >> { args ->
+            globalInitializer = args[0]
+            globalCacheBuilder
+        }
+        1 * globalCacheBuilder.open() >> {
+            globalInitializer.execute(globalCache)
+            globalCache
+        }
+
+        1 * scriptCompilationHandler.loadFromDir(source, _, classLoader, _, _, operation, Script, classLoaderId) >> compiledScript
+        0 * scriptCompilationHandler._
+
+        and:
+        new File(globalCache.baseDir, "classes").directory
+        new File(globalCache.baseDir, "metadata/metadata.bin").text == "metadata"
+        precompiledDir.list().length == 0
+    }
+
+    def "deletes scratch directories left behind by earlier builds before precompiling"() {
+        def precompiledDir = tmpDir.createDir("precompiled")
+        def staleDir = precompiledDir.createDir("stale")
+        staleDir.file("classes/Script.class").createFile()
+        staleDir.lastModified = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2)
+        def recentDir = precompiledDir.createDir("recent")
+        _ * hasher.hash(source) >> HashCode.fromInt(0x0123)
+        _ * cacheScopeMapping.getBaseDirectory(null, "scripts-precompiled", _) >> precompiledDir
+        _ * cacheScopeMapping.getBaseDirectory(null, { it.startsWith("scripts/") }, _) >> tmpDir.file("global-not-initialized")
+
+        when:
+        compiler.precompile(source, classLoader, operation, Script, verifier)
+
+        then:
+        1 * scriptCompilationHandler.compileToDir({ it instanceof RemappingScriptSource }, classLoader, _, _, operation, Script, verifier)
+        !staleDir.exists()
+        recentDir.directory
+    }
+
+    def "does not precompile script that is already in the cache"() {
+        def cacheDir = tmpDir.createDir("global")
+        cacheDir.file("cache.properties").createFile()
+        _ * hasher.hash(source) >> HashCode.fromInt(0x0123)
+        _ * cacheScopeMapping.getBaseDirectory(null, { it.startsWith("scripts/") }, _) >> cacheDir
+
+        when:
+        compiler.precompile(source, classLoader, operation, Script, verifier)
+
+        then:
+        0 * scriptCompilationHandler._
+    }
+
     def "reports compilation progress even in case of a failure"() {
         def factory = Mock(ProgressLoggerFactory)
         def delegate = Mock(Action)
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace
+
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.OperationFinishEvent
+import org.gradle.internal.operations.OperationIdentifier
+import org.gradle.internal.operations.OperationProgressEvent
+import org.gradle.internal.operations.OperationStartEvent
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class BuildOperationTraceAnalyzerTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmp = new TestNameTestDirectoryProvider()
+    def logFile = tmp.file("operations-log.bin")
+    def writer = new BinaryBuildOperationTraceWriter(logFile)
+
+    def "reports critical path and slowest operations of binary log"() {
+        given:
+        def build = start(1, null, "Run build", 0, new BuildDetails())
+        def configure = start(2, 1, "Configure build", 10, null)
+        def compile = start(3, 1, "Task :compileJava", 100, new TaskDetails())
+        def test = start(4, 1, "Task :test", 110, new TaskDetails())
+        def slowTest = start(5, 4, "Run slow test", 120, null)
+        writer.progress(new OperationIdentifier(5), new OperationProgressEvent(130, "output"))
+        finish(configure, 10, 90)
+        finish(compile, 100, 400)
+        finish(slowTest, 120, 500)
+        finish(test, 110, 520, new RuntimeException())
+        finish(build, 0, 600)
+
+        when:
+        writer.stop()
+        def report = BuildOperationTraceAnalyzer.analyze(logFile, 3)
+
+        then:
+        report.operationCount == 5
+        report.criticalPath*.displayName == ["Run build", "Task :test", "Run slow test"]
+        report.criticalPath*.duration == [600, 410, 380]
+        report.slowestOperations*.displayName == ["Run build", "Task :test", "Run slow test"]
+        report.slowestTypes*.detailsClassName == [TaskDetails.name, BuildDetails.name, "(no details)"]
+        report.slowestTypes*.count == [2, 1, 2]
+        report.slowestTypes*.totalDuration == [710, 600, 460]
+
+        when:
+        def output = new StringWriter()
+        report.writeTo(new PrintWriter(output))
+
+        then:
+        output.toString().contains("5 operations, 1 failed, 1 progress notifications, 0 unfinished")
+        output.toString().contains("    Run slow test [380ms] (5)")
+    }
+
+    def "ignores operations that finish without having been started in the log"() {
+        given:
+        def build = start(1, null, "Run build", 0, null)
+        finish(BuildOperationDescriptor.displayName("Earlier").build(new OperationIdentifier(7), null), 0, 5)
+        start(2, 1, "Unfinished", 10, null)
+        finish(build, 0, 20)
+
+        when:
+        writer.stop()
+        def report = BuildOperationTraceAnalyzer.analyze(logFile, 10)
+
+        then:
+        report.operationCount == 1
+        report.criticalPath*.displayName == ["Run build"]
+        report.slowestOperations*.displayName == ["Run build"]
+    }
+
+    private BuildOperationDescriptor start(long id, Long parentId, String displayName, long startTime, Object details) {
+        def builder = BuildOperationDescriptor.displayName(displayName)
+        if (details != null) {
+            builder.details(details)
+        }
+        def descriptor = builder.build(new OperationIdentifier(id), parentId == null ? null : new OperationIdentifier(parentId))
+        writer.started(descriptor, new OperationStartEvent(startTime))
+        return descriptor
+    }
+
+    private void finish(BuildOperationDescriptor descriptor, long startTime, long endTime, Throwable failure = null) {
+        writer.finished(descriptor, new OperationFinishEvent(startTime, endTime, failure, null))
+    }
+
+    static class BuildDetails {
+    }
+
+    static class TaskDetails {
+    }
+}
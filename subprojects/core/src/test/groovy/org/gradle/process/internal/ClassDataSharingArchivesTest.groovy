@@ -0,0 +1,174 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal
+
+import org.gradle.api.JavaVersion
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.jvm.inspection.JvmVersionDetector
+import org.gradle.test.fixtures.ConcurrentTestUtil
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class ClassDataSharingArchivesTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmp = new TestNameTestDirectoryProvider()
+    def jvmVersionDetector = Stub(JvmVersionDetector)
+    def archives = new ClassDataSharingArchives(tmp.file("user-home"), jvmVersionDetector)
+    def java = tmp.file("jdk/bin/java").createFile()
+    def jar = tmp.file("lib.jar").createFile()
+
+    def "does not share classes for JVMs older than Java 11"() {
+        given:
+        jvmVersionDetector.getJavaVersion(java.path) >> JavaVersion.VERSION_1_8
+
+        expect:
+        archives.usageFor(java.path, [], [jar]).is(ClassDataSharingArchives.Usage.NONE)
+    }
+
+    def "does not share classes when classpath contains a directory"() {
+        given:
+        jvmVersionDetector.getJavaVersion(java.path) >> JavaVersion.VERSION_11
+
+        expect:
+        archives.usageFor(java.path, [], [jar, tmp.createDir("classes")]).is(ClassDataSharingArchives.Usage.NONE)
+    }
+
+    def "does not share classes when JVM arguments configure class data sharing"() {
+        given:
+        jvmVersionDetector.getJavaVersion(java.path) >> JavaVersion.VERSION_11
+
+        expect:
+        archives.usageFor(java.path, ["-Xmx64m", jvmArg], [jar]).is(ClassDataSharingArchives.Usage.NONE)
+
+        where:
+        jvmArg << ["-Xshare:off", "-XX:SharedArchiveFile=some.jsa"]
+    }
+
+    def "records loaded classes on first start and then does not record again"() {
+        given:
+        jvmVersionDetector.getJavaVersion(java.path) >> JavaVersion.VERSION_11
+
+        when:
+        def first = archives.usageFor(java.path, [], [jar])
+
+        then:
+        first.jvmArgs.size() == 1
+        first.jvmArgs[0].startsWith("-XX:DumpLoadedClassList=")
+        !first.usingArchive
+        new File(first.jvmArgs[0].substring("-XX:DumpLoadedClassList=".length())).file
+
+        when:
+        def second = archives.usageFor(java.path, [], [jar])
+
+        then:
+        second.jvmArgs.empty
+        !second.usingArchive
+    }
+
+    def "uses archive once it has been created"() {
+        given:
+        jvmVersionDetector.getJavaVersion(java.path) >> JavaVersion.VERSION_11
+        def classList = new File(archives.usageFor(java.path, [], [jar]).jvmArgs[0].substring("-XX:DumpLoadedClassList=".length()))
+        def archive = new File(classList.parentFile, "classes.jsa")
+        archive.text = "archive"
+
+        when:
+        def usage = archives.usageFor(java.path, [], [jar])
+
+        then:
+        usage.usingArchive
+        usage.jvmArgs == ["-Xshare:auto", "-XX:SharedArchiveFile=${archive.absolutePath}".toString()]
+    }
+
+    def "uses separate archive when a jar of the classpath changes"() {
+        given:
+        jvmVersionDetector.getJavaVersion(java.path) >> JavaVersion.VERSION_11
+        archives.usageFor(java.path, [], [jar])
+
+        when:
+        jar.text = "changed"
+        def usage = archives.usageFor(java.path, [], [jar])
+
+        then:
+        usage.jvmArgs.size() == 1
+        usage.jvmArgs[0].startsWith("-XX:DumpLoadedClassList=")
+    }
+
+    def "remembers startup time without archive only from a start that does not record loaded classes"() {
+        given:
+        jvmVersionDetector.getJavaVersion(java.path) >> JavaVersion.VERSION_11
+        def recording = archives.usageFor(java.path, [], [jar])
+        def startupWithoutArchive = new File(classListOf(recording).parentFile, "startup-without-archive.txt")
+
+        when:
+        recording.started("JVM", 1500)
+
+        then:
+        !startupWithoutArchive.exists()
+
+        when:
+        archives.usageFor(java.path, [], [jar]).started("JVM", 1000)
+
+        then:
+        startupWithoutArchive.text == "1000"
+    }
+
+    def "asks the started JVM to dump its own archive once the recorded classes have settled"() {
+        given:
+        jvmVersionDetector.getJavaVersion(java.path) >> JavaVersion.VERSION_11
+        def classList = classListOf(archives.usageFor(java.path, [], [jar]))
+        classList.lastModified = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(2)
+
+        when:
+        def usage = archives.usageFor(java.path, [], [jar])
+
+        then:
+        usage.jvmArgs == ["-D${ClassDataSharingArchives.DUMP_PROPERTY}=${classList.parentFile.absolutePath}".toString()]
+        !usage.usingArchive
+    }
+
+    def "dumps the archive in the background and deletes temporary archives left behind by earlier dumps"() {
+        given:
+        def executorFactory = new DefaultExecutorFactory()
+        def dumpingArchives = new ClassDataSharingArchives(tmp.file("user-home"), jvmVersionDetector, executorFactory)
+        jvmVersionDetector.getJavaVersion(java.path) >> JavaVersion.VERSION_11
+        def classList = classListOf(dumpingArchives.usageFor(java.path, [], [jar]))
+        classList.lastModified = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(2)
+        def staleArchive = new File(classList.parentFile, "classes-stale.jsa.tmp")
+        staleArchive.text = "partial"
+        staleArchive.lastModified = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(2)
+
+        when:
+        def usage = dumpingArchives.usageFor(java.path, [], [jar])
+
+        then:
+        usage.jvmArgs.empty
+        ConcurrentTestUtil.poll(10) {
+            assert !staleArchive.exists()
+        }
+
+        cleanup:
+        dumpingArchives.stop()
+        executorFactory.stop()
+    }
+
+    private static File classListOf(ClassDataSharingArchives.Usage usage) {
+        return new File(usage.jvmArgs[0].substring("-XX:DumpLoadedClassList=".length()))
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.artifacts;
 
+import org.gradle.StartParameter;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
 import org.gradle.api.internal.file.TemporaryFileProvider;
 
@@ -24,7 +25,7 @@ import org.gradle.api.internal.file.TemporaryFileProvider;
  */
 class DependencyManagementBuildTreeScopeServices {
 
-    ResolutionResultsStoreFactory createResolutionResultsStoreFactory(TemporaryFileProvider temporaryFileProvider) {
-        return new ResolutionResultsStoreFactory(temporaryFileProvider);
+    ResolutionResultsStoreFactory createResolutionResultsStoreFactory(TemporaryFileProvider temporaryFileProvider, StartParameter startParameter) {
+        return new ResolutionResultsStoreFactory(temporaryFileProvider, startParameter);
     }
 }
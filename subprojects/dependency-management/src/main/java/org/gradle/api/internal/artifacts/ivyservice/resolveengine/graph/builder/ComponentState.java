@@ -56,10 +56,11 @@ public class ComponentState implements ComponentResolutionState, DependencyGraph
     private final ModuleVersionIdentifier id;
     private final ComponentMetaDataResolver resolver;
     private final VariantNameBuilder variantNameBuilder;
-    private final List<NodeState> nodes = Lists.newLinkedList();
+    // Components usually have a single node, and rarely more than a handful
+    private final List<NodeState> nodes = Lists.newArrayListWithCapacity(1);
     private final Long resultId;
     private final ModuleResolveState module;
-    private final List<ComponentSelectionDescriptorInternal> selectionCauses = Lists.newArrayList();
+    private final List<ComponentSelectionDescriptorInternal> selectionCauses = Lists.newArrayListWithCapacity(2);
     private final ImmutableCapability implicitCapability;
 
     private volatile ComponentResolveMetadata metadata;
@@ -53,7 +53,8 @@ class EdgeState implements DependencyGraphEdge {
     private final SelectorState selector;
     private final ResolveState resolveState;
     private final ModuleExclusion transitiveExclusions;
-    private final List<NodeState> targetNodes = Lists.newLinkedList();
+    // Almost all edges target a single node, so keep the backing array as small as possible
+    private final List<NodeState> targetNodes = Lists.newArrayListWithCapacity(1);
     private final boolean isTransitive;
 
     private ModuleVersionResolveException targetNodeSelectionFailure;
@@ -16,6 +16,7 @@
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
 
 import org.gradle.cache.internal.BinaryStore;
+import org.gradle.internal.Factory;
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.io.RandomAccessFileInputStream;
 import org.gradle.internal.serialize.Decoder;
@@ -26,25 +27,48 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.InputStream;
 import java.io.RandomAccessFile;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.gradle.internal.UncheckedException.throwAsUncheckedException;
 
 class DefaultBinaryStore implements BinaryStore, Closeable {
     private File file;
+    private final Factory<File> spillFileFactory;
+    private final AtomicLong memoryBudget;
+    private SpillingOutputStream buffer;
     private StringDeduplicatingKryoBackedEncoder encoder;
     private long offset = -1;
 
+    /**
+     * Creates a store that writes its data directly to the given file.
+     */
     public DefaultBinaryStore(File file) {
         this.file = file;
+        this.spillFileFactory = null;
+        this.memoryBudget = null;
+    }
+
+    /**
+     * Creates a store that keeps its data in memory for as long as the shared budget allows, and moves it to a file created by the given factory afterwards.
+     */
+    public DefaultBinaryStore(Factory<File> spillFileFactory, AtomicLong memoryBudget) {
+        this.spillFileFactory = spillFileFactory;
+        this.memoryBudget = memoryBudget;
     }
 
     public void write(WriteAction write) {
         if (encoder == null) {
-            try {
-                encoder = new StringDeduplicatingKryoBackedEncoder(new FileOutputStream(file));
-            } catch (FileNotFoundException e) {
-                throw throwAsUncheckedException(e);
+            if (memoryBudget != null) {
+                buffer = new SpillingOutputStream(spillFileFactory, memoryBudget);
+                encoder = new StringDeduplicatingKryoBackedEncoder(buffer);
+            } else {
+                try {
+                    encoder = new StringDeduplicatingKryoBackedEncoder(new FileOutputStream(file));
+                } catch (FileNotFoundException e) {
+                    throw throwAsUncheckedException(e);
+                }
             }
         }
         if (offset == -1) {
@@ -62,11 +86,12 @@ class DefaultBinaryStore implements BinaryStore, Closeable {
     }
 
     private String diagnose() {
-        return toString() + " (exist: " + file.exists() + ")";
+        File file = getFile();
+        return toString() + " (exist: " + (file != null && file.exists()) + ")";
     }
 
     public String toString() {
-        return "Binary store in " + file;
+        return "Binary store in " + (buffer != null ? buffer : file);
     }
 
     public BinaryData done() {
@@ -75,7 +100,7 @@ class DefaultBinaryStore implements BinaryStore, Closeable {
                 encoder.done();
                 encoder.flush();
             }
-            return new SimpleBinaryData(file, offset, diagnose());
+            return new SimpleBinaryData(file, buffer, offset, diagnose());
         } finally {
             offset = -1;
         }
@@ -91,28 +116,34 @@ class DefaultBinaryStore implements BinaryStore, Closeable {
                 file.delete();
             }
             encoder = null;
+            buffer = null;
             file = null;
         }
     }
 
     File getFile() {
-        return file;
+        return buffer != null ? buffer.getSpillFile() : file;
     }
 
     long getSize() {
+        if (memoryBudget != null) {
+            return buffer != null ? buffer.getSize() : 0;
+        }
         return file.length();
     }
 
     private static class SimpleBinaryData implements BinaryStore.BinaryData {
         private final long offset;
         private final File inputFile;
+        private final SpillingOutputStream buffer;
         private final String sourceDescription;
 
         private Decoder decoder;
         private CompositeStoppable resources;
 
-        public SimpleBinaryData(File inputFile, long offset, String sourceDescription) {
+        public SimpleBinaryData(File inputFile, SpillingOutputStream buffer, long offset, String sourceDescription) {
             this.inputFile = inputFile;
+            this.buffer = buffer;
             this.offset = offset;
             this.sourceDescription = sourceDescription;
         }
@@ -120,10 +151,16 @@ class DefaultBinaryStore implements BinaryStore, Closeable {
         public <T> T read(BinaryStore.ReadAction<T> readAction) {
             try {
                 if (decoder == null) {
-                    RandomAccessFile randomAccess = new RandomAccessFile(inputFile, "r");
-                    randomAccess.seek(offset);
-                    decoder = new StringDeduplicatingKryoBackedDecoder(new RandomAccessFileInputStream(randomAccess));
-                    resources = new CompositeStoppable().add(randomAccess, decoder);
+                    if (buffer != null) {
+                        InputStream input = buffer.openInput(offset);
+                        decoder = new StringDeduplicatingKryoBackedDecoder(input);
+                        resources = new CompositeStoppable().add(input, decoder);
+                    } else {
+                        RandomAccessFile randomAccess = new RandomAccessFile(inputFile, "r");
+                        randomAccess.seek(offset);
+                        decoder = new StringDeduplicatingKryoBackedDecoder(new RandomAccessFileInputStream(randomAccess));
+                        resources = new CompositeStoppable().add(randomAccess, decoder);
+                    }
                 }
                 return readAction.read(decoder);
             } catch (Exception e) {
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
 
+import org.gradle.StartParameter;
 import org.gradle.api.artifacts.result.ResolvedComponentResult;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.TransientConfigurationResults;
 import org.gradle.api.internal.file.TemporaryFileProvider;
@@ -31,13 +32,16 @@ import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ResolutionResultsStoreFactory implements Closeable {
     private final static Logger LOG = Logging.getLogger(ResolutionResultsStoreFactory.class);
     private static final int DEFAULT_MAX_SIZE = 2000000000; //2 gigs
+    public static final String MEMORY_CAP_PROPERTY = "org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.memoryCapMb";
 
     private final TemporaryFileProvider temp;
     private int maxSize;
+    private final AtomicLong memoryBudget;
 
     private CachedStoreFactory<TransientConfigurationResults> oldModelCache;
     private CachedStoreFactory<ResolvedComponentResult> newModelCache;
@@ -45,16 +49,46 @@ public class ResolutionResultsStoreFactory implements Closeable {
     private AtomicInteger storeSetBaseId = new AtomicInteger(0);
 
     public ResolutionResultsStoreFactory(TemporaryFileProvider temp) {
-        this(temp, DEFAULT_MAX_SIZE);
+        this(temp, DEFAULT_MAX_SIZE, 0);
+    }
+
+    /**
+     * Creates a factory that keeps the binary stores in memory up to the cap set for the given build, in megabytes, by the {@value #MEMORY_CAP_PROPERTY} system property.
+     */
+    public ResolutionResultsStoreFactory(TemporaryFileProvider temp, StartParameter startParameter) {
+        this(temp, DEFAULT_MAX_SIZE, memoryCapOf(startParameter));
+    }
+
+    ResolutionResultsStoreFactory(TemporaryFileProvider temp, int maxSize) {
+        this(temp, maxSize, 0);
     }
 
     /**
      * @param temp - Provider of temporary files.
      * @param maxSize - indicates the approx. maximum size of the binary store that will trigger rolling of the file
+     * @param memoryCap - number of bytes the binary stores may keep in memory before they spill to temporary files, 0 to always use temporary files
      */
-    ResolutionResultsStoreFactory(TemporaryFileProvider temp, int maxSize) {
+    ResolutionResultsStoreFactory(TemporaryFileProvider temp, int maxSize, long memoryCap) {
         this.temp = temp;
         this.maxSize = maxSize;
+        this.memoryBudget = memoryCap > 0 ? new AtomicLong(memoryCap) : null;
+    }
+
+    static long memoryCapOf(StartParameter startParameter) {
+        // Prefer the value given for this build, as the daemon may have been started with a different one
+        String value = startParameter.getSystemPropertiesArgs().get(MEMORY_CAP_PROPERTY);
+        if (value == null) {
+            value = System.getProperty(MEMORY_CAP_PROPERTY);
+        }
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim())) * 1024L * 1024L;
+        } catch (NumberFormatException e) {
+            LOG.warn("Ignoring invalid value '{}' for system property '{}'.", value, MEMORY_CAP_PROPERTY);
+            return 0;
+        }
     }
 
     private final Map<String, DefaultBinaryStore> stores = new HashMap<String, DefaultBinaryStore>();
@@ -63,15 +97,23 @@ public class ResolutionResultsStoreFactory implements Closeable {
     private synchronized DefaultBinaryStore createBinaryStore(String storeKey) {
         DefaultBinaryStore store = stores.get(storeKey);
         if (store == null || isFull(store)) {
-            File storeFile = temp.createTemporaryFile("gradle", ".bin");
-            storeFile.deleteOnExit();
-            store = new DefaultBinaryStore(storeFile);
+            if (memoryBudget != null) {
+                store = new DefaultBinaryStore(this::createStoreFile, memoryBudget);
+            } else {
+                store = new DefaultBinaryStore(createStoreFile());
+            }
             stores.put(storeKey, store);
             cleanUpLater.add(store);
         }
         return store;
     }
 
+    private File createStoreFile() {
+        File storeFile = temp.createTemporaryFile("gradle", ".bin");
+        storeFile.deleteOnExit();
+        return storeFile;
+    }
+
     private synchronized CachedStoreFactory<TransientConfigurationResults> getOldModelCache() {
         if (oldModelCache == null) {
             oldModelCache = new CachedStoreFactory<TransientConfigurationResults>("Resolution result");
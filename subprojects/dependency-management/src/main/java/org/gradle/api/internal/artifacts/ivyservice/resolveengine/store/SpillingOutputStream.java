@@ -0,0 +1,252 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
+
+import org.gradle.internal.Factory;
+import org.gradle.internal.io.RandomAccessFileInputStream;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the written bytes in memory, in fixed size chunks reserved from a budget that is shared between several streams.
+ * Once the budget is exhausted, the buffered bytes are moved to a file and all further writes go directly to that file.
+ * Chunks that are still being read are only returned to the budget once their last reader is closed.
+ */
+class SpillingOutputStream extends OutputStream {
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private final Factory<File> spillFileFactory;
+    private final AtomicLong memoryBudget;
+    private List<byte[]> chunks = new ArrayList<byte[]>();
+    private long size;
+    private File spillFile;
+    private OutputStream spillOutput;
+    private int openChunkReaders;
+    private long releasedWhileReading;
+
+    /**
+     * @param spillFileFactory - creates the file to move the data to when the budget is exhausted.
+     * @param memoryBudget - number of bytes still available to all the streams sharing this budget.
+     */
+    SpillingOutputStream(Factory<File> spillFileFactory, AtomicLong memoryBudget) {
+        this.spillFileFactory = spillFileFactory;
+        this.memoryBudget = memoryBudget;
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        if (spillOutput == null && !ensureCapacity()) {
+            spill();
+        }
+        if (spillOutput != null) {
+            spillOutput.write(b);
+        } else {
+            chunks.get(chunks.size() - 1)[(int) (size % CHUNK_SIZE)] = (byte) b;
+        }
+        size++;
+    }
+
+    @Override
+    public synchronized void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (spillOutput == null && !ensureCapacity()) {
+                spill();
+            }
+            if (spillOutput != null) {
+                spillOutput.write(bytes, offset, length);
+                size += length;
+                return;
+            }
+            int chunkOffset = (int) (size % CHUNK_SIZE);
+            int count = Math.min(length, CHUNK_SIZE - chunkOffset);
+            System.arraycopy(bytes, offset, chunks.get(chunks.size() - 1), chunkOffset, count);
+            size += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    private boolean ensureCapacity() {
+        if (size < (long) chunks.size() * CHUNK_SIZE) {
+            return true;
+        }
+        while (true) {
+            long available = memoryBudget.get();
+            if (available < CHUNK_SIZE) {
+                return false;
+            }
+            if (memoryBudget.compareAndSet(available, available - CHUNK_SIZE)) {
+                chunks.add(new byte[CHUNK_SIZE]);
+                return true;
+            }
+        }
+    }
+
+    private void spill() throws IOException {
+        spillFile = spillFileFactory.create();
+        spillOutput = new FileOutputStream(spillFile);
+        long remaining = size;
+        for (byte[] chunk : chunks) {
+            int count = (int) Math.min(remaining, CHUNK_SIZE);
+            spillOutput.write(chunk, 0, count);
+            remaining -= count;
+        }
+        releaseChunks();
+    }
+
+    private void releaseChunks() {
+        long released = (long) chunks.size() * CHUNK_SIZE;
+        // Readers may still hold the previous list, so replace rather than clear it
+        chunks = new ArrayList<byte[]>();
+        if (openChunkReaders > 0) {
+            releasedWhileReading += released;
+        } else {
+            memoryBudget.addAndGet(released);
+        }
+    }
+
+    private synchronized void chunkReaderClosed() {
+        openChunkReaders--;
+        if (openChunkReaders == 0 && releasedWhileReading > 0) {
+            memoryBudget.addAndGet(releasedWhileReading);
+            releasedWhileReading = 0;
+        }
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (spillOutput != null) {
+            spillOutput.flush();
+        }
+    }
+
+    /**
+     * Opens a stream that reads the bytes written so far, starting at the given offset.
+     */
+    synchronized InputStream openInput(long offset) throws IOException {
+        if (spillOutput != null) {
+            final RandomAccessFile randomAccess = new RandomAccessFile(spillFile, "r");
+            randomAccess.seek(offset);
+            return new RandomAccessFileInputStream(randomAccess) {
+                @Override
+                public void close() throws IOException {
+                    randomAccess.close();
+                }
+            };
+        }
+        openChunkReaders++;
+        return new ChunksInputStream(new ArrayList<byte[]>(chunks), offset, size);
+    }
+
+    synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the file the data has been moved to, or null when the data is still held in memory.
+     */
+    synchronized File getSpillFile() {
+        return spillFile;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (spillOutput != null) {
+                spillOutput.close();
+            }
+        } finally {
+            releaseChunks();
+            if (spillFile != null) {
+                spillFile.delete();
+            }
+            spillOutput = null;
+            spillFile = null;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return spillFile == null ? "memory" : spillFile.toString();
+    }
+
+    private class ChunksInputStream extends InputStream {
+        private final List<byte[]> chunks;
+        private final long limit;
+        private long position;
+        private boolean closed;
+
+        ChunksInputStream(List<byte[]> chunks, long position, long limit) {
+            this.chunks = chunks;
+            this.position = position;
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() {
+            if (position >= limit) {
+                return -1;
+            }
+            byte value = chunks.get((int) (position / CHUNK_SIZE))[(int) (position % CHUNK_SIZE)];
+            position++;
+            return value & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= limit) {
+                return -1;
+            }
+            int chunkOffset = (int) (position % CHUNK_SIZE);
+            int count = (int) Math.min(Math.min(length, CHUNK_SIZE - chunkOffset), limit - position);
+            System.arraycopy(chunks.get((int) (position / CHUNK_SIZE)), chunkOffset, bytes, offset, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, limit - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, limit - position);
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                chunkReaderClosed();
+            }
+        }
+    }
+}
@@ -26,10 +26,10 @@ import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.Resol
 
 import java.util.Collection;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 public class DefaultTransformationNodeFactory implements TransformationNodeFactory {
-    private final Map<ArtifactTransformKey, TransformationNode> transformations = Maps.newConcurrentMap();
+    private final ConcurrentMap<ArtifactTransformKey, TransformationNode> transformations = Maps.newConcurrentMap();
 
     @Override
     public Collection<TransformationNode> getOrCreate(ResolvedArtifactSet artifactSet, Transformation transformation) {
@@ -64,7 +64,11 @@ public class DefaultTransformationNodeFactory implements TransformationNodeFacto
                 TransformationNode previous = getOrCreate(singleArtifactSet, transformationChain.subList(0, transformationChain.size() - 1));
                 transformationNode = TransformationNode.chained(transformationChain.get(transformationChain.size() - 1), previous);
             }
-            transformations.put(key, transformationNode);
+            // Consumers in different projects may request the same transformation concurrently, make sure they all share the same node
+            TransformationNode existing = transformations.putIfAbsent(key, transformationNode);
+            if (existing != null) {
+                return existing;
+            }
         }
         return transformationNode;
     }
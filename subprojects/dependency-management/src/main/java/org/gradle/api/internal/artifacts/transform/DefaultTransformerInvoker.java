@@ -100,10 +100,12 @@ public class DefaultTransformerInvoker implements TransformerInvoker {
     }
 
     private Try<ImmutableList<File>> doInvoke(File primaryInput, Transformer transformer, TransformationSubject subject) {
-        TransformationIdentity identity = getImmutableTransformationIdentity(primaryInput, transformer);
+        // Snapshot the primary input only once, and use it for both the identity and the input fingerprint of the execution
+        FileSystemLocationSnapshot primaryInputSnapshot = fileSystemSnapshotter.snapshot(primaryInput);
+        TransformationIdentity identity = getImmutableTransformationIdentity(primaryInput, primaryInputSnapshot, transformer);
         return historyRepository.withWorkspace(identity, (identityString, workspace) -> {
             return fireTransformListeners(transformer, subject, () -> {
-                TransformerExecution execution = new TransformerExecution(primaryInput, transformer, workspace, identityString, historyRepository);
+                TransformerExecution execution = new TransformerExecution(primaryInput, primaryInputSnapshot, transformer, workspace, identityString, historyRepository);
                 UpToDateResult outcome = workExecutor.execute(execution);
                 return execution.getResult(outcome);
             });
@@ -111,7 +113,10 @@ public class DefaultTransformerInvoker implements TransformerInvoker {
     }
 
     private TransformationIdentity getImmutableTransformationIdentity(File primaryInput, Transformer transformer) {
-        FileSystemLocationSnapshot snapshot = fileSystemSnapshotter.snapshot(primaryInput);
+        return getImmutableTransformationIdentity(primaryInput, fileSystemSnapshotter.snapshot(primaryInput), transformer);
+    }
+
+    private static TransformationIdentity getImmutableTransformationIdentity(File primaryInput, FileSystemLocationSnapshot snapshot, Transformer transformer) {
         return new ImmutableTransformationIdentity(
             primaryInput.getName(),
             snapshot.getAbsolutePath(),
@@ -144,14 +149,14 @@ public class DefaultTransformerInvoker implements TransformerInvoker {
         private final TransformerExecutionHistoryRepository historyRepository;
         private final ImmutableSortedMap<String, CurrentFileCollectionFingerprint> inputFileFingerprints;
 
-        public TransformerExecution(File primaryInput, Transformer transformer, File workspace, String identityString, TransformerExecutionHistoryRepository historyRepository) {
+        public TransformerExecution(File primaryInput, FileSystemLocationSnapshot primaryInputSnapshot, Transformer transformer, File workspace, String identityString, TransformerExecutionHistoryRepository historyRepository) {
             this.primaryInput = primaryInput;
             this.transformer = transformer;
             this.identityString = "transform/" + identityString;
             this.historyRepository = historyRepository;
             this.outputDir = new File(workspace, "outputDirectory");
             this.resultsFile = new File(workspace,  "results.bin");
-            CurrentFileCollectionFingerprint primaryInputFingerprint = DefaultCurrentFileCollectionFingerprint.from(ImmutableList.of(fileSystemSnapshotter.snapshot(primaryInput)), AbsolutePathFingerprintingStrategy.INCLUDE_MISSING);
+            CurrentFileCollectionFingerprint primaryInputFingerprint = DefaultCurrentFileCollectionFingerprint.from(ImmutableList.of(primaryInputSnapshot), AbsolutePathFingerprintingStrategy.INCLUDE_MISSING);
             this.inputFileFingerprints = ImmutableSortedMap.<String, CurrentFileCollectionFingerprint>naturalOrder()
                 .put(PRIMARY_INPUT_PROPERTY_NAME, primaryInputFingerprint)
                 .build();
@@ -360,6 +365,8 @@ public class DefaultTransformerInvoker implements TransformerInvoker {
         private final String primaryInputAbsolutePath;
         private final HashCode primaryInputHash;
         private final HashCode secondaryInputHash;
+        // Calculated on demand. The identity is requested for every invocation, so only hash it once.
+        private String identity;
 
         public ImmutableTransformationIdentity(String initialSubjectFileName, String primaryInputAbsolutePath, HashCode primaryInputHash, HashCode secondaryInputHash) {
             this.initialSubjectFileName = initialSubjectFileName;
@@ -375,11 +382,14 @@ public class DefaultTransformerInvoker implements TransformerInvoker {
 
         @Override
         public String getIdentity() {
-            Hasher hasher = Hashing.newHasher();
-            hasher.putHash(secondaryInputHash);
-            hasher.putString(primaryInputAbsolutePath);
-            hasher.putHash(primaryInputHash);
-            return hasher.hash().toString();
+            if (identity == null) {
+                Hasher hasher = Hashing.newHasher();
+                hasher.putHash(secondaryInputHash);
+                hasher.putString(primaryInputAbsolutePath);
+                hasher.putHash(primaryInputHash);
+                identity = hasher.hash().toString();
+            }
+            return identity;
         }
 
         @Override
@@ -17,10 +17,13 @@
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store
 
 import org.gradle.cache.internal.BinaryStore
+import org.gradle.internal.Factory
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
 import spock.lang.Specification
 
+import java.util.concurrent.atomic.AtomicLong
+
 class DefaultBinaryStoreTest extends Specification {
 
     @Rule TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider()
@@ -113,4 +116,95 @@ class DefaultBinaryStoreTest extends Specification {
         then:
         data.close()
     }
+
+    def "keeps data in memory while within the memory budget"() {
+        def budget = new AtomicLong(SpillingOutputStream.CHUNK_SIZE * 2)
+        def store = new DefaultBinaryStore({ temp.file("foo.bin") } as Factory, budget)
+
+        when:
+        store.write({ it.writeInt(10) } as BinaryStore.WriteAction)
+        store.write({ it.writeString("x") } as BinaryStore.WriteAction)
+        def data1 = store.done()
+        store.write({ it.writeString("y") } as BinaryStore.WriteAction)
+        def data2 = store.done()
+
+        then:
+        store.file == null
+        store.size > 0
+        budget.get() == SpillingOutputStream.CHUNK_SIZE
+
+        data1.read({ it.readInt() } as BinaryStore.ReadAction) == 10
+        data1.read({ it.readString() } as BinaryStore.ReadAction) == "x"
+        data1.close()
+
+        data2.read({ it.readString() } as BinaryStore.ReadAction) == "y"
+        data2.close()
+
+        when:
+        store.close()
+
+        then:
+        budget.get() == SpillingOutputStream.CHUNK_SIZE * 2
+    }
+
+    def "moves data to file when the memory budget is exhausted"() {
+        def budget = new AtomicLong(SpillingOutputStream.CHUNK_SIZE)
+        def file = temp.file("foo.bin")
+        def store = new DefaultBinaryStore({ file } as Factory, budget)
+        def value = "x" * SpillingOutputStream.CHUNK_SIZE
+
+        when:
+        store.write({ it.writeInt(10) } as BinaryStore.WriteAction)
+        def data1 = store.done()
+        store.write({ it.writeString(value) } as BinaryStore.WriteAction)
+        def data2 = store.done()
+
+        then:
+        store.file == file
+        file.length() == store.size
+        budget.get() == SpillingOutputStream.CHUNK_SIZE
+
+        data1.read({ it.readInt() } as BinaryStore.ReadAction) == 10
+        data1.close()
+
+        data2.read({ it.readString() } as BinaryStore.ReadAction) == value
+        data2.close()
+
+        when:
+        store.close()
+
+        then:
+        !file.exists()
+    }
+
+    def "data read from memory remains readable after the store moves to file"() {
+        def budget = new AtomicLong(SpillingOutputStream.CHUNK_SIZE)
+        def store = new DefaultBinaryStore({ temp.file("foo.bin") } as Factory, budget)
+
+        when:
+        store.write({ it.writeString("x") } as BinaryStore.WriteAction)
+        store.write({ it.writeString("y") } as BinaryStore.WriteAction)
+        def data1 = store.done()
+
+        then:
+        data1.read({ it.readString() } as BinaryStore.ReadAction) == "x"
+
+        when:
+        store.write({ it.writeString("z" * SpillingOutputStream.CHUNK_SIZE) } as BinaryStore.WriteAction)
+        store.done()
+
+        then:
+        store.file != null
+        data1.read({ it.readString() } as BinaryStore.ReadAction) == "y"
+        budget.get() == 0
+
+        when:
+        data1.close()
+
+        then:
+        budget.get() == SpillingOutputStream.CHUNK_SIZE
+
+        cleanup:
+        store.close()
+    }
 }
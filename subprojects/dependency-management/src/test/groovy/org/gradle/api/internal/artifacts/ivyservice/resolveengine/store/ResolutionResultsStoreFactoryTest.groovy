@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store
 
+import org.gradle.StartParameter
 import org.gradle.api.internal.file.TmpDirTemporaryFileProvider
 import org.gradle.cache.internal.BinaryStore
 import org.gradle.internal.concurrent.CompositeStoppable
@@ -77,6 +78,34 @@ class ResolutionResultsStoreFactoryTest extends Specification {
         [store.file, store2.file, store3.file].each { !it.exists() }
     }
 
+    def "keeps binary stores in memory when a memory cap is configured"() {
+        f = new ResolutionResultsStoreFactory(new TmpDirTemporaryFileProvider(), 1, SpillingOutputStream.CHUNK_SIZE)
+
+        when:
+        def store = f.createStoreSet().nextBinaryStore()
+        store.write({it.writeByte((byte) 1); it.writeByte((byte) 2) } as BinaryStore.WriteAction)
+        store.done()
+
+        then:
+        store.file == null
+        f.createStoreSet().nextBinaryStore() != store //rolled
+    }
+
+    def "reads memory cap from the system properties of the build"() {
+        def startParameter = new StartParameter()
+        startParameter.systemPropertiesArgs[ResolutionResultsStoreFactory.MEMORY_CAP_PROPERTY] = value
+
+        expect:
+        ResolutionResultsStoreFactory.memoryCapOf(startParameter) == cap
+
+        where:
+        value | cap
+        "2"   | 2 * 1024 * 1024
+        "0"   | 0
+        "-1"  | 0
+        "abc" | 0
+    }
+
     def "provides stores"() {
         def set1 = f.createStoreSet()
         def set2 = f.createStoreSet()
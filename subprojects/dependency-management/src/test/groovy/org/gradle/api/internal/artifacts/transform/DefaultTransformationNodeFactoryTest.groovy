@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.transform
+
+import org.gradle.api.artifacts.component.ComponentArtifactIdentifier
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.BuildableSingleResolvedArtifactSet
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+class DefaultTransformationNodeFactoryTest extends ConcurrentSpec {
+    def factory = new DefaultTransformationNodeFactory()
+    def artifactId = Stub(ComponentArtifactIdentifier)
+    def step = new TransformationStep(Stub(Transformer), Stub(TransformerInvoker))
+
+    def "reuses node for the same artifact and transformation"() {
+        def artifactSet = Stub(BuildableSingleResolvedArtifactSet) {
+            getArtifactId() >> artifactId
+        }
+        def otherArtifactSet = Stub(BuildableSingleResolvedArtifactSet) {
+            getArtifactId() >> artifactId
+        }
+
+        when:
+        def nodes = factory.getOrCreate(artifactSet, step)
+        def otherNodes = factory.getOrCreate(otherArtifactSet, step)
+
+        then:
+        nodes.size() == 1
+        otherNodes == nodes
+    }
+
+    def "shares node between concurrent consumers of the same artifact and transformation"() {
+        def artifactSet = Stub(BuildableSingleResolvedArtifactSet) {
+            getArtifactId() >> artifactId
+        }
+        def results = Collections.synchronizedList([])
+
+        when:
+        async {
+            10.times {
+                start {
+                    results.addAll(factory.getOrCreate(artifactSet, step))
+                }
+            }
+        }
+
+        then:
+        results.size() == 10
+        results.toSet().size() == 1
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental.deps;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.ints.IntSets;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.internal.serialize.InputStreamBackedDecoder;
+import org.gradle.internal.serialize.OutputStreamBackedEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Measures building, writing and reading the class dependency analysis of a single, very large module.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@State(Scope.Benchmark)
+public class ClassSetAnalysisDataBenchmark {
+    private static final int PACKAGES = 200;
+    private static final int DEPENDENCIES_PER_CLASS = 12;
+
+    @Param({"10000", "50000"})
+    int classCount;
+
+    private List<ClassAnalysis> classes;
+    private ClassSetAnalysisData analysis;
+    private ClassSetAnalysisData.Serializer serializer;
+    private byte[] serialized;
+
+    @Setup
+    public void createModule() throws Exception {
+        Random random = new Random(42);
+        List<String> names = new ArrayList<String>(classCount);
+        for (int i = 0; i < classCount; i++) {
+            names.add("org.gradle.generated.module.p" + (i % PACKAGES) + ".GeneratedClass" + i);
+        }
+        classes = new ArrayList<ClassAnalysis>(classCount);
+        for (int i = 0; i < classCount; i++) {
+            Set<String> dependencies = new HashSet<String>();
+            for (int j = 0; j < DEPENDENCIES_PER_CLASS; j++) {
+                dependencies.add(names.get(random.nextInt(classCount)));
+            }
+            Set<String> superTypes = Collections.singleton(names.get(random.nextInt(classCount)));
+            IntSet constants = IntSets.EMPTY_SET;
+            if (i % 20 == 0) {
+                constants = new IntOpenHashSet(new int[]{random.nextInt(), random.nextInt()});
+            }
+            classes.add(new ClassAnalysis(names.get(i), dependencies, i % 500 == 0, constants, superTypes));
+        }
+        analysis = accumulate();
+        serializer = new ClassSetAnalysisData.Serializer(new StringInterner());
+        serialized = serialize(analysis);
+    }
+
+    @Benchmark
+    public void build(Blackhole bh) {
+        bh.consume(accumulate());
+    }
+
+    @Benchmark
+    public void write(Blackhole bh) throws Exception {
+        bh.consume(serialize(analysis));
+    }
+
+    @Benchmark
+    public void read(Blackhole bh) throws Exception {
+        bh.consume(serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(serialized))));
+    }
+
+    @Benchmark
+    public void readAndQuery(Blackhole bh) throws Exception {
+        ClassSetAnalysisData read = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(serialized)));
+        for (int i = 0; i < classCount; i += 1000) {
+            bh.consume(read.getDependents(classes.get(i).getClassName()));
+        }
+    }
+
+    private ClassSetAnalysisData accumulate() {
+        ClassDependentsAccumulator accumulator = new ClassDependentsAccumulator();
+        for (ClassAnalysis classAnalysis : classes) {
+            accumulator.addClass(classAnalysis);
+        }
+        return accumulator.getAnalysis();
+    }
+
+    private byte[] serialize(ClassSetAnalysisData data) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        OutputStreamBackedEncoder encoder = new OutputStreamBackedEncoder(outputStream);
+        serializer.write(encoder, data);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+}
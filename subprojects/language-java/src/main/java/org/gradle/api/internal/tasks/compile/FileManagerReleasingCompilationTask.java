@@ -0,0 +1,69 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile;
+
+import javax.annotation.processing.Processor;
+import javax.tools.JavaCompiler;
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * Hands the file manager back for reuse by later compilations after compilation has finished, or closes it when the compiler has failed unexpectedly.
+ */
+class FileManagerReleasingCompilationTask implements JavaCompiler.CompilationTask {
+    private final JavaCompiler.CompilationTask delegate;
+    private final ReusableJavaFileManagers fileManagers;
+    private final ReusableJavaFileManagers.ReusableFileManager fileManager;
+    private final Iterable<File> jars;
+
+    FileManagerReleasingCompilationTask(JavaCompiler.CompilationTask delegate, ReusableJavaFileManagers fileManagers, ReusableJavaFileManagers.ReusableFileManager fileManager, Iterable<File> jars) {
+        this.delegate = delegate;
+        this.fileManagers = fileManagers;
+        this.fileManager = fileManager;
+        this.jars = jars;
+    }
+
+    @Override
+    public void addModules(Iterable<String> moduleNames) {
+    }
+
+    @Override
+    public void setProcessors(Iterable<? extends Processor> processors) {
+        delegate.setProcessors(processors);
+    }
+
+    @Override
+    public void setLocale(Locale locale) {
+        delegate.setLocale(locale);
+    }
+
+    @Override
+    public Boolean call() {
+        boolean completed = false;
+        try {
+            Boolean result = delegate.call();
+            completed = true;
+            return result;
+        } finally {
+            if (completed) {
+                fileManagers.release(fileManager, jars);
+            } else {
+                fileManagers.discard(fileManager);
+            }
+        }
+    }
+}
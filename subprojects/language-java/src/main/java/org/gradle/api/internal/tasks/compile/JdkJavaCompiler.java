@@ -27,8 +27,11 @@ import org.slf4j.LoggerFactory;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -58,18 +61,70 @@ public class JdkJavaCompiler implements Compiler<JavaCompileSpec>, Serializable
         List<String> options = new JavaCompilerArgumentsBuilder(spec).build();
         JavaCompiler compiler = javaHomeBasedJavaCompilerFactory.create();
         MinimalJavaCompileOptions compileOptions = spec.getCompileOptions();
-        StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(null, null, compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null);
-        Iterable<? extends JavaFileObject> compilationUnits = standardFileManager.getJavaFileObjectsFromFiles(spec.getSourceFiles());
-        StandardJavaFileManager fileManager = standardFileManager;
-        if (JavaVersion.current().isJava9Compatible() && emptySourcepathIn(options)) {
-            fileManager = (StandardJavaFileManager) SourcepathIgnoringProxy.proxy(standardFileManager, StandardJavaFileManager.class);
+        Charset charset = compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null;
+        ReusableJavaFileManagers.ReusableFileManager reusableFileManager = null;
+        StandardJavaFileManager standardFileManager;
+        if (compileOptions.isReuseFileManager()) {
+            reusableFileManager = ReusableJavaFileManagers.getInstance().reserve(compiler, charset, options);
+            standardFileManager = reusableFileManager.getFileManager();
+        } else {
+            standardFileManager = compiler.getStandardFileManager(null, null, charset);
         }
-        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, spec.getClasses(), compilationUnits);
+        boolean created = false;
+        try {
+            Iterable<? extends JavaFileObject> compilationUnits = standardFileManager.getJavaFileObjectsFromFiles(spec.getSourceFiles());
+            StandardJavaFileManager fileManager = standardFileManager;
+            if (JavaVersion.current().isJava9Compatible() && emptySourcepathIn(options)) {
+                fileManager = (StandardJavaFileManager) SourcepathIgnoringProxy.proxy(standardFileManager, StandardJavaFileManager.class);
+            }
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, spec.getClasses(), compilationUnits);
 
-        Set<AnnotationProcessorDeclaration> annotationProcessors = spec.getEffectiveAnnotationProcessors();
-        task = new AnnotationProcessingCompileTask(task, annotationProcessors, spec.getAnnotationProcessorPath(), result.getAnnotationProcessingResult());
-        task = new ResourceCleaningCompilationTask(task, fileManager);
-        return task;
+            Set<AnnotationProcessorDeclaration> annotationProcessors = spec.getEffectiveAnnotationProcessors();
+            task = new AnnotationProcessingCompileTask(task, annotationProcessors, spec.getAnnotationProcessorPath(), result.getAnnotationProcessingResult());
+            if (reusableFileManager != null) {
+                task = new FileManagerReleasingCompilationTask(task, ReusableJavaFileManagers.getInstance(), reusableFileManager, jarsReadBy(spec));
+            } else {
+                task = new ResourceCleaningCompilationTask(task, fileManager);
+            }
+            created = true;
+            return task;
+        } finally {
+            if (!created) {
+                // The compilation task would have released the file manager, so release it here when the task could not be created
+                if (reusableFileManager != null) {
+                    ReusableJavaFileManagers.getInstance().discard(reusableFileManager);
+                } else {
+                    closeQuietly(standardFileManager);
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(StandardJavaFileManager fileManager) {
+        try {
+            fileManager.close();
+        } catch (IOException e) {
+            LOGGER.debug("Could not close file manager.", e);
+        }
+    }
+
+    private static List<File> jarsReadBy(JavaCompileSpec spec) {
+        List<File> jars = new ArrayList<File>();
+        if (spec.getCompileClasspath() != null) {
+            jars.addAll(spec.getCompileClasspath());
+        }
+        if (spec.getModulePath() != null) {
+            jars.addAll(spec.getModulePath());
+        }
+        String bootClasspath = spec.getCompileOptions().getBootClasspath();
+        if (bootClasspath != null) {
+            for (String path : bootClasspath.split(File.pathSeparator)) {
+                if (!path.isEmpty()) {
+                    jars.add(new File(path));
+                }
+            }
+        }
+        return jars;
     }
 
     private static boolean emptySourcepathIn(List<String> options) {
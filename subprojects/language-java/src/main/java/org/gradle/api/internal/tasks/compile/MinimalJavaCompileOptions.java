@@ -43,6 +43,7 @@ public class MinimalJavaCompileOptions implements Serializable {
     private boolean listFiles;
     private boolean verbose;
     private boolean warnings;
+    private boolean reuseFileManager;
     private File annotationProcessorGeneratedSourcesDirectory;
     private final File headerOutputDirectory;
 
@@ -61,6 +62,7 @@ public class MinimalJavaCompileOptions implements Serializable {
         this.listFiles = compileOptions.isListFiles();
         this.verbose = compileOptions.isVerbose();
         this.warnings = compileOptions.isWarnings();
+        this.reuseFileManager = compileOptions.isReuseFileManager();
         this.annotationProcessorGeneratedSourcesDirectory = compileOptions.getAnnotationProcessorGeneratedSourcesDirectory();
         DirectoryProperty headerOutputDirectory = compileOptions.getHeaderOutputDirectory();
         this.headerOutputDirectory = headerOutputDirectory.isPresent() ? headerOutputDirectory.get().getAsFile() : null;
@@ -175,6 +177,14 @@ public class MinimalJavaCompileOptions implements Serializable {
         this.warnings = warnings;
     }
 
+    public boolean isReuseFileManager() {
+        return reuseFileManager;
+    }
+
+    public void setReuseFileManager(boolean reuseFileManager) {
+        this.reuseFileManager = reuseFileManager;
+    }
+
     public File getAnnotationProcessorGeneratedSourcesDirectory() {
         return annotationProcessorGeneratedSourcesDirectory;
     }
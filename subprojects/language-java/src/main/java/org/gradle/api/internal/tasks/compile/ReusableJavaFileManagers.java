@@ -0,0 +1,168 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Keeps the file managers of finished compilations, so that later compilations in the same process can use the jars they have already
+ * opened and indexed. A file manager is only handed out again to a compilation that uses the same compiler, encoding and command line
+ * options, so that every option, and every location in particular, that the previous compilation has set on it is set again.
+ * A file manager is discarded as soon as one of the jars it has read has changed.
+ */
+class ReusableJavaFileManagers {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReusableJavaFileManagers.class);
+    private static final ReusableJavaFileManagers INSTANCE = new ReusableJavaFileManagers(Runtime.getRuntime().availableProcessors());
+
+    private final int maxIdleFileManagers;
+    private final Object lock = new Object();
+    private final LinkedList<ReusableFileManager> idleFileManagers = new LinkedList<ReusableFileManager>();
+
+    ReusableJavaFileManagers(int maxIdleFileManagers) {
+        this.maxIdleFileManagers = maxIdleFileManagers;
+    }
+
+    static ReusableJavaFileManagers getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns an idle file manager that can be used for a compilation with the given settings, or creates a new one.
+     */
+    ReusableFileManager reserve(JavaCompiler compiler, @Nullable Charset charset, List<String> options) {
+        String key = keyOf(compiler, charset, options);
+        List<ReusableFileManager> stale = new ArrayList<ReusableFileManager>();
+        ReusableFileManager reserved = null;
+        synchronized (lock) {
+            Iterator<ReusableFileManager> iterator = idleFileManagers.descendingIterator();
+            while (iterator.hasNext()) {
+                ReusableFileManager candidate = iterator.next();
+                if (candidate.key.equals(key)) {
+                    iterator.remove();
+                    if (candidate.hasChangedJars()) {
+                        stale.add(candidate);
+                    } else {
+                        reserved = candidate;
+                        break;
+                    }
+                }
+            }
+        }
+        close(stale);
+        if (reserved != null) {
+            LOGGER.debug("Reusing Java compiler file manager.");
+            return reserved;
+        }
+        return new ReusableFileManager(key, compiler.getStandardFileManager(null, null, charset));
+    }
+
+    /**
+     * Keeps the given file manager for later compilations.
+     *
+     * @param jars the jars the finished compilation has read from, in addition to those the file manager had read before.
+     */
+    void release(ReusableFileManager fileManager, Iterable<File> jars) {
+        fileManager.recordJars(jars);
+        List<ReusableFileManager> expired = new ArrayList<ReusableFileManager>();
+        synchronized (lock) {
+            idleFileManagers.addLast(fileManager);
+            while (idleFileManagers.size() > maxIdleFileManagers) {
+                expired.add(idleFileManagers.removeFirst());
+            }
+        }
+        close(expired);
+    }
+
+    /**
+     * Closes the given file manager instead of keeping it for later compilations.
+     */
+    void discard(ReusableFileManager fileManager) {
+        close(Collections.singletonList(fileManager));
+    }
+
+    private static void close(List<ReusableFileManager> fileManagers) {
+        List<StandardJavaFileManager> toClose = new ArrayList<StandardJavaFileManager>(fileManagers.size());
+        for (ReusableFileManager fileManager : fileManagers) {
+            toClose.add(fileManager.getFileManager());
+        }
+        CompositeStoppable.stoppable(toClose).stop();
+    }
+
+    private static String keyOf(JavaCompiler compiler, @Nullable Charset charset, List<String> options) {
+        // Values follow the option that they belong to, so the set of option names is enough to know
+        // that a compilation sets everything again that the previous one has set
+        TreeSet<String> optionNames = new TreeSet<String>();
+        for (String option : options) {
+            if (option.startsWith("-")) {
+                optionNames.add(option);
+            }
+        }
+        return compiler.getClass().getName() + "\n" + charset + "\n" + optionNames;
+    }
+
+    static class ReusableFileManager {
+        private final String key;
+        private final StandardJavaFileManager fileManager;
+        private final Map<File, String> jarStates = new HashMap<File, String>();
+
+        private ReusableFileManager(String key, StandardJavaFileManager fileManager) {
+            this.key = key;
+            this.fileManager = fileManager;
+        }
+
+        StandardJavaFileManager getFileManager() {
+            return fileManager;
+        }
+
+        private void recordJars(Iterable<File> jars) {
+            for (File jar : jars) {
+                if (jar.isFile()) {
+                    jarStates.put(jar, stateOf(jar));
+                }
+            }
+        }
+
+        private boolean hasChangedJars() {
+            for (Map.Entry<File, String> entry : jarStates.entrySet()) {
+                if (!stateOf(entry.getKey()).equals(entry.getValue())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static String stateOf(File jar) {
+            return jar.length() + ":" + jar.lastModified();
+        }
+    }
+}
@@ -22,4 +22,6 @@ import org.gradle.internal.hash.HashCode;
 
 public interface ClassDependenciesAnalyzer {
     ClassAnalysis getClassAnalysis(HashCode classFileHash, FileTreeElement classFile);
+
+    ClassAnalysis getClassAnalysis(HashCode classFileHash, byte[] classFile);
 }
@@ -36,7 +36,11 @@ public class DefaultClassDependenciesAnalyzer implements ClassDependenciesAnalyz
     }
 
     public ClassAnalysis getClassAnalysis(InputStream input) throws IOException {
-        ClassReader reader = new ClassReader(ByteStreams.toByteArray(input));
+        return analyze(ByteStreams.toByteArray(input));
+    }
+
+    private ClassAnalysis analyze(byte[] classFile) {
+        ClassReader reader = new ClassReader(classFile);
         String className = reader.getClassName().replace("/", ".");
         return ClassDependenciesVisitor.analyze(className, reader, interner);
     }
@@ -54,4 +58,9 @@ public class DefaultClassDependenciesAnalyzer implements ClassDependenciesAnalyz
             throw new RuntimeException("Problems loading class analysis for " + classFile.toString());
         }
     }
+
+    @Override
+    public ClassAnalysis getClassAnalysis(HashCode classFileHash, byte[] classFile) {
+        return analyze(classFile);
+    }
 }
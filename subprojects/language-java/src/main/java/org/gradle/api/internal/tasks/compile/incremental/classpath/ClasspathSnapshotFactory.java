@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.classpath;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.gradle.api.Action;
@@ -28,6 +29,7 @@ import org.gradle.internal.operations.RunnableBuildOperation;
 
 import java.io.File;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Set;
 
 public class ClasspathSnapshotFactory {
@@ -40,13 +42,15 @@ public class ClasspathSnapshotFactory {
         this.buildOperationExecutor = buildOperationExecutor;
     }
 
+    /**
+     * Snapshots the entries concurrently, looking for duplicate classes as each snapshot becomes available.
+     */
     ClasspathSnapshot createSnapshot(final Iterable<File> entries) {
-        final Set<CreateSnapshot> snapshotOperations = snapshotAll(entries);
+        final DuplicateClassDetector duplicateClassDetector = new DuplicateClassDetector();
+        final List<CreateSnapshot> snapshotOperations = snapshotAll(entries, duplicateClassDetector);
 
         final LinkedHashMap<File, ClasspathEntrySnapshot> snapshots = Maps.newLinkedHashMap();
         final LinkedHashMap<File, HashCode> hashes = Maps.newLinkedHashMap();
-        final Set<String> allClasses = Sets.newHashSet();
-        final Set<String> duplicateClasses = Sets.newHashSet();
 
         for (CreateSnapshot operation : snapshotOperations) {
             File entry = operation.entry;
@@ -54,26 +58,21 @@ public class ClasspathSnapshotFactory {
             if (snapshot != null) {
                 snapshots.put(entry, snapshot);
                 hashes.put(entry, snapshot.getHash());
-                for (String c : snapshot.getClasses()) {
-                    if (!allClasses.add(c)) {
-                        duplicateClasses.add(c);
-                    }
-                }
             }
         }
 
-        ClasspathSnapshotData classpathSnapshotData = new ClasspathSnapshotData(hashes, duplicateClasses);
+        ClasspathSnapshotData classpathSnapshotData = new ClasspathSnapshotData(hashes, duplicateClassDetector.getDuplicateClasses());
         return new ClasspathSnapshot(snapshots, classpathSnapshotData);
     }
 
-    private Set<CreateSnapshot> snapshotAll(final Iterable<File> entries) {
-        final Set<CreateSnapshot> snapshotOperations = Sets.newLinkedHashSet();
+    private List<CreateSnapshot> snapshotAll(final Iterable<File> entries, final DuplicateClassDetector duplicateClassDetector) {
+        final List<CreateSnapshot> snapshotOperations = Lists.newArrayList();
 
         buildOperationExecutor.runAll(new Action<BuildOperationQueue<CreateSnapshot>>() {
             @Override
             public void execute(BuildOperationQueue<CreateSnapshot> buildOperationQueue) {
                 for (File entry : entries) {
-                    CreateSnapshot operation = new CreateSnapshot(entry);
+                    CreateSnapshot operation = new CreateSnapshot(entry, duplicateClassDetector);
                     snapshotOperations.add(operation);
                     buildOperationQueue.add(operation);
                 }
@@ -82,18 +81,38 @@ public class ClasspathSnapshotFactory {
         return snapshotOperations;
     }
 
+    private static class DuplicateClassDetector {
+        private final Set<String> allClasses = Sets.newHashSet();
+        private final Set<String> duplicateClasses = Sets.newHashSet();
+
+        synchronized void add(Set<String> classes) {
+            for (String c : classes) {
+                if (!allClasses.add(c)) {
+                    duplicateClasses.add(c);
+                }
+            }
+        }
+
+        synchronized Set<String> getDuplicateClasses() {
+            return duplicateClasses;
+        }
+    }
+
     private class CreateSnapshot implements RunnableBuildOperation {
         private final File entry;
+        private final DuplicateClassDetector duplicateClassDetector;
         private ClasspathEntrySnapshot snapshot;
 
-        private CreateSnapshot(File entry) {
+        private CreateSnapshot(File entry, DuplicateClassDetector duplicateClassDetector) {
             this.entry = entry;
+            this.duplicateClassDetector = duplicateClassDetector;
         }
 
         @Override
         public void run(BuildOperationContext context) {
             if (entry.exists()) {
                 snapshot = classpathEntrySnapshotter.createSnapshot(entry);
+                duplicateClassDetector.add(snapshot.getClasses());
             }
         }
 
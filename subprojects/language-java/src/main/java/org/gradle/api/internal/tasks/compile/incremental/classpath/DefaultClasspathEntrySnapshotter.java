@@ -16,6 +16,7 @@
 package org.gradle.api.internal.tasks.compile.incremental.classpath;
 
 import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
 import org.gradle.api.internal.file.FileOperations;
@@ -24,14 +25,18 @@ import org.gradle.api.internal.tasks.compile.incremental.deps.ClassAnalysis;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassDependentsAccumulator;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
-import org.gradle.internal.IoActions;
 import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.hash.StreamHasher;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.Enumeration;
 import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
@@ -66,20 +71,63 @@ public class DefaultClasspathEntrySnapshotter {
         return new ClasspathEntrySnapshot(new ClasspathEntrySnapshotData(hash, hashes, accumulator.getAnalysis()));
     }
 
-    private void visit(File classpathEntry, Map<String, HashCode> hashes, ClassDependentsAccumulator accumulator) {
+    private void visit(File classpathEntry, Map<String, HashCode> hashes, ClassDependentsAccumulator accumulator) throws IOException {
         if (hasExtension(classpathEntry, ".jar")) {
-            fileOperations.zipTree(classpathEntry).visit(new JarEntryVisitor(accumulator, hashes));
+            visitJar(classpathEntry, hashes, accumulator);
         }
         if (classpathEntry.isDirectory()) {
             fileOperations.fileTree(classpathEntry).visit(new DirectoryEntryVisitor(accumulator, hashes));
         }
     }
 
-    private abstract class EntryVisitor implements FileVisitor {
+    /**
+     * Reads the class files of the jar straight from its central directory, each of them exactly once, without expanding the jar.
+     */
+    private void visitJar(File jar, Map<String, HashCode> hashes, ClassDependentsAccumulator accumulator) throws IOException {
+        ZipFile zipFile = new ZipFile(jar);
+        try {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
+                    continue;
+                }
+                try {
+                    byte[] classFile = readEntry(zipFile, entry);
+                    HashCode classFileHash = hasher.hash(new ByteArrayInputStream(classFile));
+                    ClassAnalysis analysis = analyzer.getClassAnalysis(classFileHash, classFile);
+                    accumulator.addClass(analysis);
+                    hashes.put(analysis.getClassName(), classFileHash);
+                } catch (Exception e) {
+                    classFileNotAnalyzed(accumulator, entry.getName(), e);
+                }
+            }
+        } finally {
+            zipFile.close();
+        }
+    }
+
+    private static byte[] readEntry(ZipFile zipFile, ZipEntry entry) throws IOException {
+        InputStream inputStream = zipFile.getInputStream(entry);
+        try {
+            return ByteStreams.toByteArray(inputStream);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private static void classFileNotAnalyzed(ClassDependentsAccumulator accumulator, String name, Exception e) {
+        accumulator.fullRebuildNeeded(name + " could not be analyzed for incremental compilation. See the debug log for more details");
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Could not analyze " + name + " for incremental compilation", e);
+        }
+    }
+
+    private class DirectoryEntryVisitor implements FileVisitor {
         private final ClassDependentsAccumulator accumulator;
         private final Map<String, HashCode> hashes;
 
-        public EntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
+        public DirectoryEntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
             this.accumulator = accumulator;
             this.hashes = hashes;
         }
@@ -92,50 +140,15 @@ public class DefaultClasspathEntrySnapshotter {
                 return;
             }
 
-            HashCode classFileHash = getHashCode(fileDetails);
+            HashCode classFileHash = fileHasher.hash(fileDetails);
 
             try {
                 ClassAnalysis analysis = analyzer.getClassAnalysis(classFileHash, fileDetails);
                 accumulator.addClass(analysis);
                 hashes.put(analysis.getClassName(), classFileHash);
             } catch (Exception e) {
-                accumulator.fullRebuildNeeded(fileDetails.getName() + " could not be analyzed for incremental compilation. See the debug log for more details");
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Could not analyze " + fileDetails.getName() + " for incremental compilation", e);
-                }
+                classFileNotAnalyzed(accumulator, fileDetails.getName(), e);
             }
         }
-
-        protected abstract HashCode getHashCode(FileVisitDetails fileDetails);
     }
-
-    private class JarEntryVisitor extends EntryVisitor {
-
-        public JarEntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
-            super(accumulator, hashes);
-        }
-
-        @Override
-        protected HashCode getHashCode(FileVisitDetails fileDetails) {
-            InputStream inputStream = fileDetails.open();
-            try {
-                return hasher.hash(inputStream);
-            } finally {
-                IoActions.closeQuietly(inputStream);
-            }
-        }
-    }
-
-    private class DirectoryEntryVisitor extends EntryVisitor {
-
-        public DirectoryEntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
-            super(accumulator, hashes);
-        }
-
-        @Override
-        protected HashCode getHashCode(FileVisitDetails fileDetails) {
-            return fileHasher.hash(fileDetails);
-        }
-    }
-
 }
@@ -16,9 +16,9 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.deps;
 
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.ints.IntSets;
 import org.apache.commons.lang.StringUtils;
@@ -26,28 +26,105 @@ import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.internal.serialize.AbstractSerializer;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
-import org.gradle.internal.serialize.IntSetSerializer;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
+/**
+ * The class dependency analysis of a set of classes.
+ *
+ * <p>Each class name is kept once, in a name table, and the dependency graph refers to classes by their index in that table.
+ * The classes of the set come first in the table, followed by the classes of other sets they reference. This keeps the analysis
+ * of large modules small in memory, and its serialized form is just the name table followed by arrays of class indices.</p>
+ */
 public class ClassSetAnalysisData {
     public static final String PACKAGE_INFO = "package-info";
 
-    private final Set<String> classes;
-    private final Map<String, DependentsSet> dependents;
-    private final Map<String, IntSet> classesToConstants;
-    private final Map<String, Set<String>> classesToChildren;
+    private static final int[] DEPENDENCY_TO_ALL = new int[0];
+    private static final int NO_CLASS = -1;
+
+    private final String[] classNames;
+    private final int classCount;
+    // By class index: the indices of the dependent classes, DEPENDENCY_TO_ALL, or null when the class has no dependents
+    private final int[][] dependents;
+    private final Map<Integer, String> dependencyToAllReasons;
+    // By class index: the constants of the class, or null when it has none
+    private final int[][] constants;
+    // By class index: the indices of the direct subtypes of the class, or null when it has none
+    private final int[][] children;
     private final String fullRebuildCause;
+    private volatile Map<String, Integer> classIds;
+
+    public ClassSetAnalysisData(Set<String> classes, Map<String, DependentsSet> dependents, Map<String, IntSet> classesToConstants, Map<String, ? extends Collection<String>> classesToChildren, String fullRebuildCause) {
+        Set<String> referencedClasses = new TreeSet<String>();
+        for (Map.Entry<String, DependentsSet> entry : dependents.entrySet()) {
+            referencedClasses.add(entry.getKey());
+            if (!entry.getValue().isDependencyToAll()) {
+                referencedClasses.addAll(entry.getValue().getDependentClasses());
+            }
+        }
+        referencedClasses.addAll(classesToConstants.keySet());
+        for (Map.Entry<String, ? extends Collection<String>> entry : classesToChildren.entrySet()) {
+            referencedClasses.add(entry.getKey());
+            referencedClasses.addAll(entry.getValue());
+        }
+        referencedClasses.removeAll(classes);
+
+        String[] sortedClasses = classes.toArray(new String[0]);
+        Arrays.sort(sortedClasses);
+        this.classCount = sortedClasses.length;
+        this.classNames = new String[classCount + referencedClasses.size()];
+        System.arraycopy(sortedClasses, 0, classNames, 0, classCount);
+        int next = classCount;
+        for (String referencedClass : referencedClasses) {
+            classNames[next++] = referencedClass;
+        }
+
+        this.dependents = new int[classNames.length][];
+        this.dependencyToAllReasons = new HashMap<Integer, String>();
+        for (Map.Entry<String, DependentsSet> entry : dependents.entrySet()) {
+            int id = idOf(entry.getKey());
+            DependentsSet dependentsSet = entry.getValue();
+            if (dependentsSet.isDependencyToAll()) {
+                this.dependents[id] = DEPENDENCY_TO_ALL;
+                if (dependentsSet.getDescription() != null) {
+                    dependencyToAllReasons.put(id, dependentsSet.getDescription());
+                }
+            } else if (!dependentsSet.getDependentClasses().isEmpty()) {
+                this.dependents[id] = idsOf(dependentsSet.getDependentClasses());
+            }
+        }
+
+        this.constants = new int[classNames.length][];
+        for (Map.Entry<String, IntSet> entry : classesToConstants.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                this.constants[idOf(entry.getKey())] = entry.getValue().toIntArray();
+            }
+        }
+
+        this.children = new int[classNames.length][];
+        for (Map.Entry<String, ? extends Collection<String>> entry : classesToChildren.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                this.children[idOf(entry.getKey())] = idsOf(entry.getValue());
+            }
+        }
 
-    public ClassSetAnalysisData(Set<String> classes, Map<String, DependentsSet> dependents, Map<String, IntSet> classesToConstants, Map<String, Set<String>> classesToChildren, String fullRebuildCause) {
-        this.classes = classes;
+        this.fullRebuildCause = fullRebuildCause;
+    }
+
+    private ClassSetAnalysisData(String[] classNames, int classCount, int[][] dependents, Map<Integer, String> dependencyToAllReasons, int[][] constants, int[][] children, String fullRebuildCause) {
+        this.classNames = classNames;
+        this.classCount = classCount;
         this.dependents = dependents;
-        this.classesToConstants = classesToConstants;
-        this.classesToChildren = classesToChildren;
+        this.dependencyToAllReasons = dependencyToAllReasons;
+        this.constants = constants;
+        this.children = children;
         this.fullRebuildCause = fullRebuildCause;
     }
 
@@ -59,15 +136,23 @@ public class ClassSetAnalysisData {
             String packageName = className.equals(PACKAGE_INFO) ? null : StringUtils.removeEnd(className, "." + PACKAGE_INFO);
             return getDependentsOfPackage(packageName);
         }
-        DependentsSet dependentsSet = dependents.get(className);
-        return dependentsSet == null ? DependentsSet.empty() : dependentsSet;
+        int id = idOf(className);
+        if (id == NO_CLASS || dependents[id] == null) {
+            return DependentsSet.empty();
+        }
+        if (dependents[id] == DEPENDENCY_TO_ALL) {
+            String reason = dependencyToAllReasons.get(id);
+            return reason == null ? DependentsSet.dependencyToAll() : DependentsSet.dependencyToAll(reason);
+        }
+        return DependentsSet.dependents(namesOf(dependents[id]));
     }
 
     private DependentsSet getDependentsOfPackage(String packageName) {
         Set<String> typesInPackage = Sets.newHashSet();
-        for (String type : classes) {
-            int i = type.lastIndexOf(".");
-            if (i < 0 && packageName == null || i > 0 && type.substring(0, i).equals(packageName)) {
+        for (int i = 0; i < classCount; i++) {
+            String type = classNames[i];
+            int index = type.lastIndexOf(".");
+            if (index < 0 && packageName == null || index > 0 && type.substring(0, index).equals(packageName)) {
                 typesInPackage.add(type);
             }
         }
@@ -75,19 +160,60 @@ public class ClassSetAnalysisData {
     }
 
     public IntSet getConstants(String className) {
-        IntSet integers = classesToConstants.get(className);
-        if (integers == null) {
+        int id = idOf(className);
+        if (id == NO_CLASS || constants[id] == null) {
             return IntSets.EMPTY_SET;
         }
-        return integers;
+        return new IntOpenHashSet(constants[id]);
     }
 
     public Set<String> getChildren(String className) {
-        Set<String> children = classesToChildren.get(className);
-        return children == null ? Collections.<String>emptySet() : children;
+        int id = idOf(className);
+        if (id == NO_CLASS || children[id] == null) {
+            return Collections.emptySet();
+        }
+        return namesOf(children[id]);
     }
 
+    private int idOf(String className) {
+        Map<String, Integer> ids = classIds;
+        if (ids == null) {
+            ids = new HashMap<String, Integer>(classNames.length * 4 / 3 + 1);
+            for (int i = 0; i < classNames.length; i++) {
+                ids.put(classNames[i], i);
+            }
+            classIds = ids;
+        }
+        Integer id = ids.get(className);
+        return id == null ? NO_CLASS : id;
+    }
+
+    private int[] idsOf(Collection<String> classes) {
+        int[] ids = new int[classes.size()];
+        int i = 0;
+        for (String className : classes) {
+            ids[i++] = idOf(className);
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private Set<String> namesOf(int[] ids) {
+        ImmutableSet.Builder<String> names = ImmutableSet.builder();
+        for (int id : ids) {
+            names.add(classNames[id]);
+        }
+        return names.build();
+    }
+
+    /**
+     * Writes the name table with each name sharing its prefix with the previous name, followed by the dependents, constants
+     * and children of each class in table order. Class indices are sorted, so each index is written as the difference to the previous one.
+     */
     public static class Serializer extends AbstractSerializer<ClassSetAnalysisData> {
+        private static final int NO_DEPENDENTS = 0;
+        private static final int DEPENDENT_TO_ALL = 1;
+        private static final int DEPENDENTS = 2;
 
         private final StringInterner interner;
 
@@ -97,127 +223,134 @@ public class ClassSetAnalysisData {
 
         @Override
         public ClassSetAnalysisData read(Decoder decoder) throws Exception {
-            Map<Integer, String> classNameMap = new HashMap<Integer, String>();
-
-            int count = decoder.readSmallInt();
-            ImmutableSet.Builder<String> classes = ImmutableSet.builder();
-            for (int i = 0; i < count; i++) {
-                classes.add(readClassName(decoder, classNameMap));
+            int nameCount = decoder.readSmallInt();
+            int classCount = decoder.readSmallInt();
+            String[] classNames = new String[nameCount];
+            String previous = "";
+            for (int i = 0; i < nameCount; i++) {
+                int sharedPrefix = decoder.readSmallInt();
+                String className = interner.intern(previous.substring(0, sharedPrefix) + decoder.readString());
+                classNames[i] = className;
+                previous = className;
             }
 
-            count = decoder.readSmallInt();
-            ImmutableMap.Builder<String, DependentsSet> dependentsBuilder = ImmutableMap.builder();
-            for (int i = 0; i < count; i++) {
-                String className = readClassName(decoder, classNameMap);
-                DependentsSet dependents = readDependentsSet(decoder, classNameMap);
-                dependentsBuilder.put(className, dependents);
+            int[][] dependents = new int[nameCount][];
+            Map<Integer, String> dependencyToAllReasons = new HashMap<Integer, String>();
+            for (int i = 0; i < nameCount; i++) {
+                int kind = decoder.readSmallInt();
+                if (kind == DEPENDENT_TO_ALL) {
+                    dependents[i] = DEPENDENCY_TO_ALL;
+                    String reason = decoder.readNullableString();
+                    if (reason != null) {
+                        dependencyToAllReasons.put(i, reason);
+                    }
+                } else if (kind >= DEPENDENTS) {
+                    dependents[i] = readIds(decoder, kind - DEPENDENTS + 1);
+                }
             }
 
-            count = decoder.readSmallInt();
-            ImmutableMap.Builder<String, IntSet> classesToConstantsBuilder = ImmutableMap.builder();
-            for (int i = 0; i < count; i++) {
-                String className = readClassName(decoder, classNameMap);
-                IntSet constants = IntSetSerializer.INSTANCE.read(decoder);
-                classesToConstantsBuilder.put(className, constants);
+            int[][] constants = new int[nameCount][];
+            for (int i = 0; i < nameCount; i++) {
+                int count = decoder.readSmallInt();
+                if (count > 0) {
+                    int[] classConstants = new int[count];
+                    for (int j = 0; j < count; j++) {
+                        classConstants[j] = decoder.readInt();
+                    }
+                    constants[i] = classConstants;
+                }
             }
 
-            count = decoder.readSmallInt();
-            ImmutableMap.Builder<String, Set<String>> classNameToChildren = ImmutableMap.builder();
-            for (int i = 0; i < count; i++) {
-                String parent = readClassName(decoder, classNameMap);
-                int nameCount = decoder.readSmallInt();
-                ImmutableSet.Builder<String> namesBuilder = ImmutableSet.builder();
-                for (int j = 0; j < nameCount; j++) {
-                    namesBuilder.add(readClassName(decoder, classNameMap));
+            int[][] children = new int[nameCount][];
+            for (int i = 0; i < nameCount; i++) {
+                int count = decoder.readSmallInt();
+                if (count > 0) {
+                    children[i] = readIds(decoder, count);
                 }
-                classNameToChildren.put(parent, namesBuilder.build());
             }
 
             String fullRebuildCause = decoder.readNullableString();
-
-            return new ClassSetAnalysisData(classes.build(), dependentsBuilder.build(), classesToConstantsBuilder.build(), classNameToChildren.build(), fullRebuildCause);
+            return new ClassSetAnalysisData(classNames, classCount, dependents, dependencyToAllReasons, constants, children, fullRebuildCause);
         }
 
         @Override
         public void write(Encoder encoder, ClassSetAnalysisData value) throws Exception {
-            Map<String, Integer> classNameMap = new HashMap<String, Integer>();
-            encoder.writeSmallInt(value.classes.size());
-            for (String clazz : value.classes) {
-                writeClassName(clazz, classNameMap, encoder);
+            String[] classNames = value.classNames;
+            encoder.writeSmallInt(classNames.length);
+            encoder.writeSmallInt(value.classCount);
+            String previous = "";
+            for (String className : classNames) {
+                int sharedPrefix = sharedPrefixLength(previous, className);
+                encoder.writeSmallInt(sharedPrefix);
+                encoder.writeString(className.substring(sharedPrefix));
+                previous = className;
             }
 
-            encoder.writeSmallInt(value.dependents.size());
-            for (Map.Entry<String, DependentsSet> entry : value.dependents.entrySet()) {
-                writeClassName(entry.getKey(), classNameMap, encoder);
-                writeDependentSet(entry.getValue(), classNameMap, encoder);
+            for (int i = 0; i < classNames.length; i++) {
+                int[] classDependents = value.dependents[i];
+                if (classDependents == null) {
+                    encoder.writeSmallInt(NO_DEPENDENTS);
+                } else if (classDependents == DEPENDENCY_TO_ALL) {
+                    encoder.writeSmallInt(DEPENDENT_TO_ALL);
+                    encoder.writeNullableString(value.dependencyToAllReasons.get(i));
+                } else {
+                    encoder.writeSmallInt(DEPENDENTS + classDependents.length - 1);
+                    writeIds(encoder, classDependents);
+                }
             }
 
-            encoder.writeSmallInt(value.classesToConstants.size());
-            for (Map.Entry<String, IntSet> entry : value.classesToConstants.entrySet()) {
-                writeClassName(entry.getKey(), classNameMap, encoder);
-                IntSetSerializer.INSTANCE.write(encoder, entry.getValue());
+            for (int[] classConstants : value.constants) {
+                if (classConstants == null) {
+                    encoder.writeSmallInt(0);
+                } else {
+                    encoder.writeSmallInt(classConstants.length);
+                    for (int constant : classConstants) {
+                        encoder.writeInt(constant);
+                    }
+                }
             }
 
-            encoder.writeSmallInt(value.classesToChildren.size());
-            for (Map.Entry<String, Set<String>> entry : value.classesToChildren.entrySet()) {
-                writeClassName(entry.getKey(), classNameMap, encoder);
-                encoder.writeSmallInt(entry.getValue().size());
-                for (String className : entry.getValue()) {
-                    writeClassName(className, classNameMap, encoder);
+            for (int[] classChildren : value.children) {
+                if (classChildren == null) {
+                    encoder.writeSmallInt(0);
+                } else {
+                    encoder.writeSmallInt(classChildren.length);
+                    writeIds(encoder, classChildren);
                 }
             }
 
             encoder.writeNullableString(value.fullRebuildCause);
         }
 
-        private DependentsSet readDependentsSet(Decoder decoder, Map<Integer, String> classNameMap) throws IOException {
-            byte b = decoder.readByte();
-            if (b == 1) {
-                return DependentsSet.dependencyToAll(decoder.readNullableString());
-            }
-            int count = decoder.readSmallInt();
-            ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+        private static int[] readIds(Decoder decoder, int count) throws IOException {
+            int[] ids = new int[count];
+            int previous = 0;
             for (int i = 0; i < count; i++) {
-                builder.add(readClassName(decoder, classNameMap));
+                previous += decoder.readSmallInt();
+                ids[i] = previous;
             }
-            return DependentsSet.dependents(builder.build());
+            return ids;
         }
 
-        private void writeDependentSet(DependentsSet dependentsSet, Map<String, Integer> classNameMap, Encoder encoder) throws IOException {
-            if (dependentsSet.isDependencyToAll()) {
-                encoder.writeByte((byte) 1);
-                encoder.writeNullableString(dependentsSet.getDescription());
-            } else {
-                encoder.writeByte((byte) 2);
-                encoder.writeSmallInt(dependentsSet.getDependentClasses().size());
-                for (String className : dependentsSet.getDependentClasses()) {
-                    writeClassName(className, classNameMap, encoder);
-                }
+        private static void writeIds(Encoder encoder, int[] ids) throws IOException {
+            int previous = 0;
+            for (int id : ids) {
+                encoder.writeSmallInt(id - previous);
+                previous = id;
             }
         }
 
-        private String readClassName(Decoder decoder, Map<Integer, String> classNameMap) throws IOException {
-            int id = decoder.readSmallInt();
-            if (id == 0) {
-                id = decoder.readSmallInt();
-                String className = interner.intern(decoder.readString());
-                classNameMap.put(id, className);
-                return className;
+        private static int sharedPrefixLength(String previous, String className) {
+            int max = Math.min(previous.length(), className.length());
+            int i = 0;
+            while (i < max && previous.charAt(i) == className.charAt(i)) {
+                i++;
             }
-            return classNameMap.get(id);
-        }
-
-        private void writeClassName(String className, Map<String, Integer> classIdMap, Encoder encoder) throws IOException {
-            Integer id = classIdMap.get(className);
-            if (id == null) {
-                id = classIdMap.size() + 1;
-                classIdMap.put(className, id);
-                encoder.writeSmallInt(0);
-                encoder.writeSmallInt(id);
-                encoder.writeString(className);
-            } else {
-                encoder.writeSmallInt(id);
+            if (i > 0 && Character.isHighSurrogate(previous.charAt(i - 1))) {
+                // Do not split a surrogate pair
+                i--;
             }
+            return i;
         }
     }
 }
@@ -27,11 +27,16 @@ import com.google.common.io.Files;
 import com.google.common.io.LineProcessor;
 import org.apache.tools.zip.ZipEntry;
 import org.apache.tools.zip.ZipFile;
+import org.gradle.api.Transformer;
 import org.gradle.api.logging.Logger;
 import org.gradle.cache.internal.FileContentCache;
 import org.gradle.cache.internal.FileContentCacheFactory;
 import org.gradle.internal.FileUtils;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.serialize.ListSerializer;
+import org.gradle.internal.snapshot.FileSystemSnapshotter;
 
 import java.io.File;
 import java.io.IOException;
@@ -45,6 +50,10 @@ import java.util.Map;
 /**
  * Inspects a classpath to find annotation processors contained in it. If several versions of the same annotation processor are found,
  * the first one is returned, mimicking the behavior of {@link java.util.ServiceLoader}.
+ *
+ * <p>The processors found on a processor path made only of jars are remembered across tasks and builds by the fingerprint of the content of
+ * these jars, so that modules sharing the same processor path do not inspect it again. Processor paths that contain directories are inspected
+ * each time, as the declarations of each jar are.</p>
  */
 public class AnnotationProcessorDetector {
 
@@ -52,16 +61,50 @@ public class AnnotationProcessorDetector {
     public static final String INCREMENTAL_PROCESSOR_DECLARATION = "META-INF/gradle/incremental.annotation.processors";
 
     private final FileContentCache<List<AnnotationProcessorDeclaration>> cache;
+    private final FileSystemSnapshotter fileSystemSnapshotter;
+    private final AnnotationProcessorPathCache processorPathCache;
     private final Logger logger;
     private final boolean logStackTraces;
 
-    public AnnotationProcessorDetector(FileContentCacheFactory cacheFactory, Logger logger, boolean logStackTraces) {
+    public AnnotationProcessorDetector(FileContentCacheFactory cacheFactory, FileSystemSnapshotter fileSystemSnapshotter, AnnotationProcessorPathCache processorPathCache, Logger logger, boolean logStackTraces) {
         this.cache = cacheFactory.newCache("annotation-processors", 20000, new ProcessorServiceLocator(), new ListSerializer<AnnotationProcessorDeclaration>(AnnotationProcessorDeclarationSerializer.INSTANCE));
+        this.fileSystemSnapshotter = fileSystemSnapshotter;
+        this.processorPathCache = processorPathCache;
         this.logger = logger;
         this.logStackTraces = logStackTraces;
     }
 
-    public Map<String, AnnotationProcessorDeclaration> detectProcessors(Iterable<File> processorPath) {
+    public Map<String, AnnotationProcessorDeclaration> detectProcessors(final Iterable<File> processorPath) {
+        HashCode fingerprint = fingerprintOfJars(processorPath);
+        if (fingerprint == null) {
+            return detectProcessorsInEntries(processorPath);
+        }
+        return processorPathCache.get(fingerprint, new Transformer<Map<String, AnnotationProcessorDeclaration>, HashCode>() {
+            @Override
+            public Map<String, AnnotationProcessorDeclaration> transform(HashCode fingerprint) {
+                return Collections.unmodifiableMap(detectProcessorsInEntries(processorPath));
+            }
+        });
+    }
+
+    /**
+     * Returns the fingerprint of the given processor path, or null when it contains something else than regular files.
+     */
+    private HashCode fingerprintOfJars(Iterable<File> processorPath) {
+        Hasher hasher = Hashing.newHasher();
+        for (File entry : processorPath) {
+            HashCode contentHash = fileSystemSnapshotter.getRegularFileContentHash(entry);
+            if (contentHash == null) {
+                return null;
+            }
+            // Only the files with a jar extension are inspected
+            hasher.putBoolean(FileUtils.hasExtensionIgnoresCase(entry.getName(), ".jar"));
+            hasher.putHash(contentHash);
+        }
+        return hasher.hash();
+    }
+
+    private Map<String, AnnotationProcessorDeclaration> detectProcessorsInEntries(Iterable<File> processorPath) {
         Map<String, AnnotationProcessorDeclaration> processors = Maps.newLinkedHashMap();
         for (File jarOrClassesDir : processorPath) {
             for (AnnotationProcessorDeclaration declaration : cache.get(jarOrClassesDir)) {
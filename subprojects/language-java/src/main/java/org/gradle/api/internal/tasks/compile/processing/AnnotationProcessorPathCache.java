@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.processing;
+
+import org.gradle.api.Transformer;
+import org.gradle.cache.internal.CrossBuildInMemoryCache;
+import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory;
+import org.gradle.internal.hash.HashCode;
+
+import java.util.Map;
+
+/**
+ * Remembers the annotation processors detected on a processor path across tasks and builds, keyed by the fingerprint of the content of the processor path.
+ */
+public class AnnotationProcessorPathCache {
+    private final CrossBuildInMemoryCache<HashCode, Map<String, AnnotationProcessorDeclaration>> processors;
+
+    public AnnotationProcessorPathCache(CrossBuildInMemoryCacheFactory cacheFactory) {
+        this.processors = cacheFactory.newCache();
+    }
+
+    /**
+     * Returns the processors detected on a processor path with the given fingerprint, using the given detector when the processor path has not been seen yet.
+     */
+    public Map<String, AnnotationProcessorDeclaration> get(HashCode processorPathFingerprint, Transformer<Map<String, AnnotationProcessorDeclaration>, HashCode> detector) {
+        return processors.get(processorPathFingerprint, detector);
+    }
+}
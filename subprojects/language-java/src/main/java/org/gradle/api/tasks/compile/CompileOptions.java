@@ -53,7 +53,7 @@ public class CompileOptions extends AbstractOptions {
     private static final long serialVersionUID = 0;
 
     private static final ImmutableSet<String> EXCLUDE_FROM_ANT_PROPERTIES =
-            ImmutableSet.of("debugOptions", "forkOptions", "compilerArgs", "incremental", "allCompilerArgs", "compilerArgumentProviders");
+            ImmutableSet.of("debugOptions", "forkOptions", "compilerArgs", "incremental", "reuseFileManager", "allCompilerArgs", "compilerArgumentProviders");
 
     private boolean failOnError = true;
 
@@ -84,6 +84,8 @@ public class CompileOptions extends AbstractOptions {
 
     private boolean incremental = true;
 
+    private boolean reuseFileManager;
+
     private FileCollection sourcepath;
 
     private FileCollection annotationProcessorPath;
@@ -418,6 +420,30 @@ public class CompileOptions extends AbstractOptions {
         return incremental;
     }
 
+    /**
+     * Whether the file manager of the Java compiler, along with the jars it has opened and indexed, is kept after compilation and reused by later compilations
+     * with the same compiler settings in the same process. A file manager is not reused once any of the jars it has read has changed.
+     * This speeds up compiling many modules against the same classpath, but keeps the jars of the classpath open between compilations.
+     * Only applies when compiling with the compiler API, in the build process or in a forked compiler daemon. Defaults to {@code false}.
+     *
+     * @since 5.1
+     */
+    @Incubating
+    @Internal
+    public boolean isReuseFileManager() {
+        return reuseFileManager;
+    }
+
+    /**
+     * Sets whether the file manager of the Java compiler is reused by later compilations. See {@link #isReuseFileManager()}.
+     *
+     * @since 5.1
+     */
+    @Incubating
+    public void setReuseFileManager(boolean reuseFileManager) {
+        this.reuseFileManager = reuseFileManager;
+    }
+
     /**
      * The source path to use for the compilation.
      * <p>
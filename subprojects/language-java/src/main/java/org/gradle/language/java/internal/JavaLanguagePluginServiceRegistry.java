@@ -23,9 +23,11 @@ import org.gradle.api.internal.file.FileOperations;
 import org.gradle.api.internal.tasks.compile.incremental.IncrementalCompilerFactory;
 import org.gradle.api.internal.tasks.compile.incremental.cache.GeneralCompileCaches;
 import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorDetector;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorPathCache;
 import org.gradle.api.logging.Logging;
 import org.gradle.api.logging.configuration.LoggingConfiguration;
 import org.gradle.api.logging.configuration.ShowStacktrace;
+import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory;
 import org.gradle.cache.internal.FileContentCacheFactory;
 import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.hash.StreamHasher;
@@ -37,6 +39,11 @@ import org.gradle.jvm.JvmLibrary;
 import org.gradle.language.java.artifact.JavadocArtifact;
 
 public class JavaLanguagePluginServiceRegistry extends AbstractPluginServiceRegistry {
+    @Override
+    public void registerGlobalServices(ServiceRegistration registration) {
+        registration.addProvider(new JavaGlobalScopeServices());
+    }
+
     @Override
     public void registerGradleServices(ServiceRegistration registration) {
         registration.addProvider(new JavaGradleScopeServices());
@@ -47,14 +54,20 @@ public class JavaLanguagePluginServiceRegistry extends AbstractPluginServiceRegi
         registration.addProvider(new JavaProjectScopeServices());
     }
 
+    private static class JavaGlobalScopeServices {
+        public AnnotationProcessorPathCache createAnnotationProcessorPathCache(CrossBuildInMemoryCacheFactory cacheFactory) {
+            return new AnnotationProcessorPathCache(cacheFactory);
+        }
+    }
+
     private static class JavaGradleScopeServices {
         public void configure(ServiceRegistration registration, ComponentTypeRegistry componentTypeRegistry) {
             componentTypeRegistry.maybeRegisterComponentType(JvmLibrary.class)
                 .registerArtifactType(JavadocArtifact.class, ArtifactType.JAVADOC);
         }
 
-        public AnnotationProcessorDetector createAnnotationProcessorDetector(FileContentCacheFactory cacheFactory, LoggingConfiguration loggingConfiguration) {
-            return new AnnotationProcessorDetector(cacheFactory, Logging.getLogger(AnnotationProcessorDetector.class), loggingConfiguration.getShowStacktrace() != ShowStacktrace.INTERNAL_EXCEPTIONS);
+        public AnnotationProcessorDetector createAnnotationProcessorDetector(FileContentCacheFactory cacheFactory, FileSystemSnapshotter fileSystemSnapshotter, AnnotationProcessorPathCache processorPathCache, LoggingConfiguration loggingConfiguration) {
+            return new AnnotationProcessorDetector(cacheFactory, fileSystemSnapshotter, processorPathCache, Logging.getLogger(AnnotationProcessorDetector.class), loggingConfiguration.getShowStacktrace() != ShowStacktrace.INTERNAL_EXCEPTIONS);
         }
     }
 
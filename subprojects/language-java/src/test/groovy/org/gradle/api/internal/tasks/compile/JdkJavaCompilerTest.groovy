@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.api.file.ProjectLayout
+import org.gradle.api.tasks.compile.CompileOptions
+import org.gradle.internal.Factory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.TestUtil
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import javax.tools.JavaCompiler
+import javax.tools.StandardJavaFileManager
+
+class JdkJavaCompilerTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmp = new TestNameTestDirectoryProvider()
+    def fileManager = Mock(StandardJavaFileManager)
+    def compiler = Stub(JavaCompiler)
+    def spec = new DefaultJavaCompileSpec()
+
+    def setup() {
+        spec.tempDir = tmp.file("tmp")
+        spec.sourceFiles = []
+        spec.compileOptions = new CompileOptions(Stub(ProjectLayout), TestUtil.objectFactory())
+        compiler.getStandardFileManager(_, _, _) >> fileManager
+        compiler.getTask(_, _, _, _, _, _) >> { throw new IllegalArgumentException("invalid flag") }
+    }
+
+    @Unroll
+    def "closes the file manager when the compilation task cannot be created (reuse file manager: #reuseFileManager)"() {
+        given:
+        spec.compileOptions.reuseFileManager = reuseFileManager
+
+        when:
+        new JdkJavaCompiler({ compiler } as Factory).execute(spec)
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "invalid flag"
+        1 * fileManager.close()
+
+        where:
+        reuseFileManager << [true, false]
+    }
+}
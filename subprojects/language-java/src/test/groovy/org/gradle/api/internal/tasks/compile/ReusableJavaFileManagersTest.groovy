@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.tools.JavaCompiler
+import javax.tools.StandardJavaFileManager
+import java.nio.charset.Charset
+
+class ReusableJavaFileManagersTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmp = new TestNameTestDirectoryProvider()
+    def compiler = Mock(JavaCompiler)
+    def fileManagers = new ReusableJavaFileManagers(1)
+    def jar = tmp.file("lib.jar")
+
+    def setup() {
+        jar.text = "jar"
+        _ * compiler.getStandardFileManager(_, _, _) >> { Mock(StandardJavaFileManager) }
+    }
+
+    def "reuses a file manager for a compilation with the same settings"() {
+        def fileManager = fileManagers.reserve(compiler, null, ["-d", "out", "-classpath", jar.path])
+        fileManagers.release(fileManager, [jar])
+
+        expect:
+        fileManagers.reserve(compiler, null, ["-d", "other", "-classpath", ""]).is(fileManager)
+    }
+
+    def "does not hand out a file manager that is in use"() {
+        def fileManager = fileManagers.reserve(compiler, null, [])
+
+        expect:
+        !fileManagers.reserve(compiler, null, []).is(fileManager)
+    }
+
+    def "does not reuse a file manager for a compilation with other options or encoding"() {
+        def fileManager = fileManagers.reserve(compiler, null, ["-d", "out"])
+        fileManagers.release(fileManager, [])
+
+        expect:
+        !fileManagers.reserve(compiler, null, ["-d", "out", "-s", "generated"]).is(fileManager)
+        !fileManagers.reserve(compiler, Charset.forName("UTF-8"), ["-d", "out"]).is(fileManager)
+    }
+
+    def "closes a file manager when a jar it has read has changed"() {
+        def fileManager = fileManagers.reserve(compiler, null, [])
+        fileManagers.release(fileManager, [jar])
+
+        when:
+        jar.text = "changed jar"
+        def reserved = fileManagers.reserve(compiler, null, [])
+
+        then:
+        !reserved.is(fileManager)
+        1 * fileManager.fileManager.close()
+    }
+
+    def "closes the least recently used file manager when there are too many idle file managers"() {
+        def first = fileManagers.reserve(compiler, null, [])
+        def second = fileManagers.reserve(compiler, null, [])
+
+        when:
+        fileManagers.release(first, [])
+        fileManagers.release(second, [])
+
+        then:
+        1 * first.fileManager.close()
+        0 * second.fileManager.close()
+    }
+}
@@ -33,6 +33,9 @@ import org.junit.Rule
 import spock.lang.Specification
 import spock.lang.Subject
 
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
 @UsesNativeServices
 class DefaultClasspathEntrySnapshotterTest extends Specification {
 
@@ -87,4 +90,33 @@ class DefaultClasspathEntrySnapshotterTest extends Specification {
         snapshot.hashes == ["Foo": f1Hash, "com.Foo2": f2Hash]
         snapshot.classAnalysis
     }
+
+    def "creates snapshot of a jar with classes without expanding it"() {
+        def jar = temp.file("foo.jar")
+        new ZipOutputStream(new FileOutputStream(jar)).withStream { zip ->
+            zip.putNextEntry(new ZipEntry("com/"))
+            zip.putNextEntry(new ZipEntry("com/Foo.class"))
+            zip.write([1, 2, 3] as byte[])
+            zip.putNextEntry(new ZipEntry("com/app.properties"))
+            zip.write([4] as byte[])
+        }
+        def fooHash = HashCode.fromInt(1)
+
+        when:
+        def snapshot = snapshotter.createSnapshot(HashCode.fromInt(123), jar)
+
+        then:
+        1 * streamHasher.hash(_) >> { InputStream input ->
+            assert input.bytes == [1, 2, 3] as byte[]
+            fooHash
+        }
+        1 * classDependenciesAnalyzer.getClassAnalysis(fooHash, [1, 2, 3] as byte[]) >> Stub(ClassAnalysis) {
+            getClassName() >> "com.Foo"
+        }
+        0 * _._
+
+        and:
+        snapshot.hashes == ["com.Foo": fooHash]
+        snapshot.classAnalysis
+    }
 }
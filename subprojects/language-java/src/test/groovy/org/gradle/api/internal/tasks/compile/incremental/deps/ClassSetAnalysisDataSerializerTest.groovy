@@ -39,24 +39,59 @@ class ClassSetAnalysisDataSerializerTest extends Specification {
             ,
             ['A': ['SA'] as Set, B: ['SB1', 'SB2'] as Set], "Because"
         )
-        def os = new ByteArrayOutputStream()
-        def e = new OutputStreamBackedEncoder(os)
 
         when:
-        serializer.write(e, data)
-        ClassSetAnalysisData read = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
+        ClassSetAnalysisData read = roundTrip(data)
 
         then:
-        read.dependents.keySet() == data.dependents.keySet()
-
-        ["A", "B", "C"].each {
-            assert read.dependents[it].dependentClasses == data.dependents[it].dependentClasses
-            assert read.dependents[it].dependencyToAll == data.dependents[it].dependencyToAll
+        ["A", "B", "C", "D", "SA"].each {
+            assert read.getConstants(it) == data.getConstants(it)
+            assert read.getChildren(it) == data.getChildren(it)
         }
+        read.getConstants("C") == [1, 2] as Set
+        read.getConstants("D").empty
+        read.getChildren("A") == ['SA'] as Set
+        read.getChildren("B") == ['SB1', 'SB2'] as Set
+        read.getDependents("A").dependencyToAll
+        read.getDependents("A").description == "Because"
+    }
+
+    def "serializes dependents"() {
+        def data = new ClassSetAnalysisData(["org.a.A", "org.a.B", "org.b.C", "D", "E"] as Set,
+            ["org.a.A": dependents("org.a.B", "org.b.C"), "org.a.B": dependents("org.b.C"), "org.b.C": dependents(), "D": dependencyToAll(), "E": dependencyToAll("reason"), "org.other.X": dependents("org.a.A")],
+            [:], [:], null
+        )
+
+        when:
+        ClassSetAnalysisData read = roundTrip(data)
 
-        read.dependents["D"].dependencyToAll
-        read.classesToConstants == [C: [1,2] as Set, D: [] as Set]
-        read.classesToChildren == ['A': ['SA'] as Set, B: ['SB1', 'SB2'] as Set]
-        read.fullRebuildCause == "Because"
+        then:
+        read.getDependents("org.a.A").dependentClasses == ["org.a.B", "org.b.C"] as Set
+        read.getDependents("org.a.B").dependentClasses == ["org.b.C"] as Set
+        read.getDependents("org.b.C").dependentClasses.empty
+        read.getDependents("org.other.X").dependentClasses == ["org.a.A"] as Set
+        read.getDependents("Unknown").dependentClasses.empty
+        read.getDependents("D").dependencyToAll
+        read.getDependents("D").description == null
+        read.getDependents("E").dependencyToAll
+        read.getDependents("E").description == "reason"
+        read.getDependents("org.a.package-info").dependentClasses == ["org.a.A", "org.a.B"] as Set
+        read.getDependents("package-info").dependentClasses == ["D", "E"] as Set
+    }
+
+    def "serializes class names that share a prefix"() {
+        def classes = ["org.gradle.Foo", "org.gradle.Foo\$Inner", "org.gradle.Fo\uD83D\uDE00", "org.gradle.Fo\uD83D\uDE01", "a"]
+        def data = new ClassSetAnalysisData(classes as Set, ["a": dependents(classes[0..3] as Set)], [:], [:], null)
+
+        expect:
+        roundTrip(data).getDependents("a").dependentClasses == classes[0..3] as Set
+    }
+
+    private ClassSetAnalysisData roundTrip(ClassSetAnalysisData data) {
+        def os = new ByteArrayOutputStream()
+        def e = new OutputStreamBackedEncoder(os)
+        serializer.write(e, data)
+        e.flush()
+        return serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
     }
 }
@@ -19,7 +19,10 @@ package org.gradle.api.internal.tasks.compile.processing
 import org.gradle.api.file.FileCollection
 import org.gradle.api.internal.file.collections.ImmutableFileCollection
 import org.gradle.api.logging.Logger
+import org.gradle.cache.internal.TestCrossBuildInMemoryCacheFactory
 import org.gradle.cache.internal.TestFileContentCacheFactory
+import org.gradle.internal.hash.Hashing
+import org.gradle.internal.snapshot.FileSystemSnapshotter
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.JarUtils
 import org.junit.Rule
@@ -36,7 +39,13 @@ class AnnotationProcessorDetectorTest extends Specification {
         0 * _
     }
 
-    AnnotationProcessorDetector detector = new AnnotationProcessorDetector(new TestFileContentCacheFactory(), logger, true)
+    FileSystemSnapshotter fileSystemSnapshotter = Stub(FileSystemSnapshotter) {
+        getRegularFileContentHash(_) >> { File file -> file.file ? Hashing.hashBytes(file.bytes) : null }
+    }
+
+    AnnotationProcessorPathCache processorPathCache = new AnnotationProcessorPathCache(new TestCrossBuildInMemoryCacheFactory())
+
+    AnnotationProcessorDetector detector = newDetector()
 
     def "detects no processors in broken jars"() {
         given:
@@ -228,6 +237,58 @@ class AnnotationProcessorDetectorTest extends Specification {
         }
     }
 
+    def "reuses the processors detected on a processor path with the same jar contents"() {
+        given:
+        def jar = tmpDir.file("first/processor.jar")
+        jar << JarUtils.jarWithContents((PROCESSOR_DECLARATION): "Foo")
+        def copy = tmpDir.file("second/processor.jar")
+        copy.bytes = jar.bytes
+        def otherDetector = newDetector()
+
+        when:
+        def first = detector.detectProcessors(files(jar))
+        def second = otherDetector.detectProcessors(files(copy))
+
+        then:
+        first.keySet() == ["Foo"] as Set
+        second.is(first)
+    }
+
+    def "detects processors again when a jar on the processor path changes"() {
+        given:
+        def jar = tmpDir.file("processor.jar")
+        jar << JarUtils.jarWithContents((PROCESSOR_DECLARATION): "Foo")
+
+        when:
+        def first = detector.detectProcessors(files(jar))
+        jar.delete()
+        jar << JarUtils.jarWithContents((PROCESSOR_DECLARATION): "Bar")
+        def second = newDetector().detectProcessors(files(jar))
+
+        then:
+        first.keySet() == ["Foo"] as Set
+        second.keySet() == ["Bar"] as Set
+    }
+
+    def "does not reuse the processors detected on a processor path containing directories"() {
+        given:
+        def dir = tmpDir.file("classes")
+        dir.file(PROCESSOR_DECLARATION) << "Foo"
+
+        when:
+        def first = detector.detectProcessors(files(dir))
+        dir.file(PROCESSOR_DECLARATION).text = "Bar"
+        def second = newDetector().detectProcessors(files(dir))
+
+        then:
+        first.keySet() == ["Foo"] as Set
+        second.keySet() == ["Bar"] as Set
+    }
+
+    AnnotationProcessorDetector newDetector() {
+        new AnnotationProcessorDetector(new TestFileContentCacheFactory(), fileSystemSnapshotter, processorPathCache, logger, true)
+    }
+
     FileCollection files(File... files) {
         ImmutableFileCollection.of(files)
     }
@@ -22,6 +22,8 @@ import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.classpath.DefaultClassPath;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.jvm.inspection.JvmVersionDetector;
 import org.gradle.internal.logging.LoggingManagerInternal;
 import org.gradle.internal.logging.services.LoggingServiceRegistry;
 import org.gradle.internal.nativeintegration.ProcessEnvironment;
@@ -40,6 +42,7 @@ import org.gradle.launcher.daemon.server.Daemon;
 import org.gradle.launcher.daemon.server.DaemonServices;
 import org.gradle.launcher.daemon.server.MasterExpirationStrategy;
 import org.gradle.launcher.daemon.server.expiry.DaemonExpirationStrategy;
+import org.gradle.process.internal.ClassDataSharingArchives;
 import org.gradle.process.internal.shutdown.ShutdownHooks;
 import org.gradle.process.internal.streams.EncodedStream;
 
@@ -125,17 +128,20 @@ public class DaemonMain extends EntryPoint {
 
         Daemon daemon = daemonServices.get(Daemon.class);
         daemon.start();
+        ClassDataSharingArchives classDataSharingArchives = new ClassDataSharingArchives(gradleHomeDir, daemonServices.get(JvmVersionDetector.class), daemonServices.get(ExecutorFactory.class));
 
         try {
             DaemonContext daemonContext = daemonServices.get(DaemonContext.class);
             Long pid = daemonContext.getPid();
             daemonStarted(pid, daemon.getUid(), daemon.getAddress(), daemonLog);
+            // The client does not wait for the dump of the archive of the daemon, so dump it here once the client has been told the daemon is ready
+            classDataSharingArchives.dumpArchiveOfCurrentJvmIfRequested();
             DaemonExpirationStrategy expirationStrategy = daemonServices.get(MasterExpirationStrategy.class);
             daemon.stopOnExpiration(expirationStrategy, parameters.getPeriodicCheckIntervalMs());
         } finally {
             daemon.stop();
             // TODO: Stop all daemon services
-            CompositeStoppable.stoppable(daemonServices.get(GradleUserHomeScopeServiceRegistry.class)).stop();
+            CompositeStoppable.stoppable(classDataSharingArchives, daemonServices.get(GradleUserHomeScopeServiceRegistry.class)).stop();
         }
     }
 
@@ -38,6 +38,7 @@ import org.gradle.launcher.daemon.bootstrap.GradleDaemon;
 import org.gradle.launcher.daemon.configuration.DaemonParameters;
 import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo;
 import org.gradle.launcher.daemon.registry.DaemonDir;
+import org.gradle.process.internal.ClassDataSharingArchives;
 import org.gradle.process.internal.DefaultExecActionFactory;
 import org.gradle.process.internal.ExecHandle;
 import org.gradle.process.internal.streams.EncodedStream;
@@ -61,12 +62,14 @@ public class DefaultDaemonStarter implements DaemonStarter {
     private final DaemonParameters daemonParameters;
     private final DaemonGreeter daemonGreeter;
     private final JvmVersionValidator versionValidator;
+    private final ClassDataSharingArchives classDataSharingArchives;
 
-    public DefaultDaemonStarter(DaemonDir daemonDir, DaemonParameters daemonParameters, DaemonGreeter daemonGreeter, JvmVersionValidator versionValidator) {
+    public DefaultDaemonStarter(DaemonDir daemonDir, DaemonParameters daemonParameters, DaemonGreeter daemonGreeter, JvmVersionValidator versionValidator, ClassDataSharingArchives classDataSharingArchives) {
         this.daemonDir = daemonDir;
         this.daemonParameters = daemonParameters;
         this.daemonGreeter = daemonGreeter;
         this.versionValidator = versionValidator;
+        this.classDataSharingArchives = classDataSharingArchives;
     }
 
     public DaemonStartupInfo startDaemon(boolean singleUse) {
@@ -96,10 +99,14 @@ public class DefaultDaemonStarter implements DaemonStarter {
 
         List<String> daemonArgs = new ArrayList<String>();
         daemonArgs.addAll(getPriorityArgs(daemonParameters.getPriority()));
-        daemonArgs.add(daemonParameters.getEffectiveJvm().getJavaExecutable().getAbsolutePath());
+        String javaExecutable = daemonParameters.getEffectiveJvm().getJavaExecutable().getAbsolutePath();
+        daemonArgs.add(javaExecutable);
 
         List<String> daemonOpts = daemonParameters.getEffectiveJvmArgs();
         daemonArgs.addAll(daemonOpts);
+        // Not part of the daemon options, as these do not affect whether the daemon can run a build
+        ClassDataSharingArchives.Usage classDataSharing = classDataSharingArchives.usageFor(javaExecutable, daemonOpts, classpath.getAsFiles());
+        daemonArgs.addAll(classDataSharing.getJvmArgs());
         daemonArgs.add("-cp");
         daemonArgs.add(CollectionUtils.join(File.pathSeparator, classpath.getAsFiles()));
 
@@ -137,7 +144,7 @@ public class DefaultDaemonStarter implements DaemonStarter {
         }
         InputStream stdInput = buffer.getInputStream();
 
-        return startProcess(daemonArgs, daemonDir.getVersionedDir(), stdInput);
+        return startProcess(daemonArgs, daemonDir.getVersionedDir(), stdInput, classDataSharing);
     }
 
     private List<String> getPriorityArgs(DaemonParameters.Priority priority) {
@@ -154,7 +161,7 @@ public class DefaultDaemonStarter implements DaemonStarter {
         }
     }
 
-    private DaemonStartupInfo startProcess(List<String> args, File workingDir, InputStream stdInput) {
+    private DaemonStartupInfo startProcess(List<String> args, File workingDir, InputStream stdInput, ClassDataSharingArchives.Usage classDataSharing) {
         LOGGER.debug("Starting daemon process: workingDir = {}, daemonArgs: {}", workingDir, args);
         Timer clock = Time.startTimer();
         try {
@@ -175,7 +182,9 @@ public class DefaultDaemonStarter implements DaemonStarter {
                 execActionFactory.stop();
             }
 
-            return daemonGreeter.parseDaemonOutput(outputConsumer.getProcessOutput());
+            DaemonStartupInfo startupInfo = daemonGreeter.parseDaemonOutput(outputConsumer.getProcessOutput());
+            classDataSharing.started("Gradle daemon", clock.getElapsedMillis());
+            return startupInfo;
         } catch (GradleException e) {
             throw e;
         } catch (Exception e) {
@@ -18,6 +18,7 @@ package org.gradle.api.tasks.testing
 
 import org.apache.commons.io.FileUtils
 import org.gradle.api.Action
+import org.gradle.api.InvalidUserDataException
 import org.gradle.api.file.FileCollection
 import org.gradle.api.file.FileTree
 import org.gradle.api.internal.ConventionTask
@@ -27,6 +28,7 @@ import org.gradle.api.internal.file.collections.DefaultFileCollectionResolveCont
 import org.gradle.api.internal.file.collections.DirectoryFileTree
 import org.gradle.api.internal.file.collections.FileTreeAdapter
 import org.gradle.api.internal.file.collections.ImmutableFileCollection
+import org.gradle.api.internal.tasks.testing.JvmTestExecutionSpec
 import org.gradle.api.internal.tasks.testing.TestExecuter
 import org.gradle.api.internal.tasks.testing.TestExecutionSpec
 import org.gradle.api.internal.tasks.testing.TestFramework
@@ -194,6 +196,34 @@ class TestTest extends AbstractConventionTaskTest {
         test.getMaxParallelForks() == 1
     }
 
+    def "passes shard to the test executer"() {
+        given:
+        configureTask()
+        test.setShardCount(3)
+        test.setShardIndex(2)
+
+        when:
+        test.executeTests()
+
+        then:
+        1 * testExecuterMock.execute({ JvmTestExecutionSpec spec -> spec.shardIndex == 2 && spec.shardCount == 3 }, _ as TestResultProcessor)
+    }
+
+    def "fails when shard index is not less than shard count"() {
+        given:
+        configureTask()
+        test.setShardCount(2)
+        test.setShardIndex(2)
+
+        when:
+        test.executeTests()
+
+        then:
+        def e = thrown(InvalidUserDataException)
+        e.message == "Cannot run shard 2 of ${test.path} as it is split into only 2 shards."
+        0 * testExecuterMock._
+    }
+
     def "test includes"() {
         expect:
         test.is(test.include(TEST_PATTERN_1, TEST_PATTERN_2))
@@ -47,7 +47,7 @@ public abstract class ExternalResourceMetaDataCompare {
 
         String remoteEtag = remote.getEtag();
         if (localEtag != null && remoteEtag != null) {
-            return localEtag.equals(remoteEtag);
+            return opaqueTag(localEtag).equals(opaqueTag(remoteEtag));
         }
 
         Date remoteLastModified = remote.getLastModified();
@@ -63,4 +63,14 @@ public abstract class ExternalResourceMetaDataCompare {
 
         return localContentLength == remoteContentLength && remoteLastModified.equals(localLastModified);
     }
+
+    /**
+     * Strips the weakness indicator from an HTTP entity tag.
+     *
+     * Servers that compress responses on the fly typically turn a strong etag into a weak one for GET requests, but not for HEAD requests.
+     * Revalidation compares tags using the weak comparison function, so that such resources are not downloaded again when unchanged.
+     */
+    private static String opaqueTag(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
 }
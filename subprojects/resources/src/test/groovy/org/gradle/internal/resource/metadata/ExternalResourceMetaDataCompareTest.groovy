@@ -115,6 +115,27 @@ class ExternalResourceMetaDataCompareTest extends Specification {
         unchanged
     }
 
+    @Unroll
+    def "etags #localEtag and #remoteEtag are compared using weak comparison"() {
+        given:
+        configureMetadata(local, localEtag, null, -1)
+        configureMetadataForEtagMatch(remote, remoteEtag)
+
+        when:
+        compare(local, remote)
+
+        then:
+        unchanged == matches
+
+        where:
+        localEtag  | remoteEtag | matches
+        '"abc"'    | 'W/"abc"'  | true
+        'W/"abc"'  | '"abc"'    | true
+        'W/"abc"'  | 'W/"abc"'  | true
+        'W/"abc"'  | 'W/"cde"'  | false
+        '"abc"'    | 'W/"cde"'  | false
+    }
+
     def "non matching etags, no mod date, but matching content length does not match"() {
         given:
         configureMetadata(local, "abc", null, 10)
@@ -17,14 +17,27 @@
 package org.gradle.api.internal.tasks.testing;
 
 import org.gradle.api.internal.tasks.testing.operations.TestExecutionBuildOperationBuildSessionScopeServices;
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerPool;
+import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.AbstractPluginServiceRegistry;
+import org.gradle.process.internal.health.memory.MemoryManager;
 
 public class TestingBasePluginServiceRegistry extends AbstractPluginServiceRegistry {
 
+    @Override
+    public void registerGradleUserHomeServices(ServiceRegistration registration) {
+        registration.addProvider(new GradleUserHomeServices());
+    }
+
     @Override
     public void registerBuildSessionServices(ServiceRegistration registration) {
         registration.addProvider(new TestExecutionBuildOperationBuildSessionScopeServices());
     }
 
+    private static class GradleUserHomeServices {
+        TestWorkerPool createTestWorkerPool(FileHasher fileHasher, MemoryManager memoryManager) {
+            return new TestWorkerPool(fileHasher, memoryManager, Runtime.getRuntime().availableProcessors());
+        }
+    }
 }
@@ -34,8 +34,11 @@ import org.gradle.util.GFileUtils;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FilenameFilter;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Binary2JUnitXmlReportGenerator {
+    private static final int BATCH_SIZE = 1000;
 
     private final File testResultsDir;
     private final TestResultsProvider testResultsProvider;
@@ -74,21 +77,37 @@ public class Binary2JUnitXmlReportGenerator {
             }
         });
 
-        buildOperationExecutor.runAll(new Action<BuildOperationQueue<JUnitXmlReportFileGenerator>>() {
-            @Override
-            public void execute(final BuildOperationQueue<JUnitXmlReportFileGenerator> queue) {
-                testResultsProvider.visitClasses(new Action<TestClassResult>() {
-                    public void execute(final TestClassResult result) {
-                        final File reportFile = new File(testResultsDir, getReportFileName(result));
-                        queue.add(new JUnitXmlReportFileGenerator(result, reportFile, xmlWriter));
-                    }
-                });
+        // Generate the files in batches, so that only the results of a batch of test classes are held in memory at a time
+        final List<JUnitXmlReportFileGenerator> batch = new ArrayList<JUnitXmlReportFileGenerator>(BATCH_SIZE);
+        testResultsProvider.visitClasses(new Action<TestClassResult>() {
+            public void execute(final TestClassResult result) {
+                final File reportFile = new File(testResultsDir, getReportFileName(result));
+                batch.add(new JUnitXmlReportFileGenerator(result, reportFile, xmlWriter));
+                if (batch.size() == BATCH_SIZE) {
+                    generate(batch);
+                }
             }
         });
+        generate(batch);
 
         LOG.info("Finished generating test XML results ({}) into: {}", clock.getElapsed(), testResultsDir);
     }
 
+    private void generate(final List<JUnitXmlReportFileGenerator> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        buildOperationExecutor.runAll(new Action<BuildOperationQueue<JUnitXmlReportFileGenerator>>() {
+            @Override
+            public void execute(BuildOperationQueue<JUnitXmlReportFileGenerator> queue) {
+                for (JUnitXmlReportFileGenerator generator : batch) {
+                    queue.add(generator);
+                }
+            }
+        });
+        batch.clear();
+    }
+
     private String getReportFileName(TestClassResult result) {
         return "TEST-" + FileUtils.toSafeFileName(result.getClassName()) + ".xml";
     }
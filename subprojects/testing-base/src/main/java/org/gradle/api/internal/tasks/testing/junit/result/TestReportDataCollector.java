@@ -21,6 +21,7 @@ import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
 import org.gradle.api.tasks.testing.*;
 import org.gradle.internal.serialize.PlaceholderException;
 
+import javax.annotation.Nullable;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.HashMap;
@@ -29,19 +30,31 @@ import java.util.Map;
 
 /**
  * Collects the test results into memory and spools the test output to file during execution (to avoid holding it all in memory).
+ * When given a results writer, the results of each test class are written out and released as soon as the test class completes.
  */
 public class TestReportDataCollector implements TestListener, TestOutputListener {
 
     public static final String EXECUTION_FAILURE = "failed to execute tests";
     private final Map<String, TestClassResult> results;
     private final TestOutputStore.Writer outputWriter;
+    private final TestResultSerializer.Writer resultsWriter;
+    private final Map<String, Long> completedClassIds = new HashMap<String, Long>();
     private final Map<TestDescriptor, TestMethodResult> currentTestMethods = new HashMap<TestDescriptor, TestMethodResult>();
     private final List<TestOutputEvent> rootOutputEvents = Lists.newArrayList();
     private long internalIdCounter = 1;
 
     public TestReportDataCollector(Map<String, TestClassResult> results, TestOutputStore.Writer outputWriter) {
+        this(results, outputWriter, null);
+    }
+
+    /**
+     * @param results receives the results of the test classes that have not completed yet.
+     * @param resultsWriter receives the results of each test class when it completes, or null to keep all results in {@code results}.
+     */
+    public TestReportDataCollector(Map<String, TestClassResult> results, TestOutputStore.Writer outputWriter, @Nullable TestResultSerializer.Writer resultsWriter) {
         this.results = results;
         this.outputWriter = outputWriter;
+        this.resultsWriter = resultsWriter;
     }
 
     @Override
@@ -54,7 +67,7 @@ public class TestReportDataCollector implements TestListener, TestOutputListener
             //there are some exceptions attached to the suite. Let's make sure they are reported to the user.
             //this may happen for example when suite initialisation fails and no tests are executed
             TestMethodResult methodResult = new TestMethodResult(internalIdCounter++, EXECUTION_FAILURE);
-            TestClassResult classResult = new TestClassResult(internalIdCounter++, suite.getName(), result.getStartTime());
+            TestClassResult classResult = new TestClassResult(classId(suite.getName()), suite.getName(), result.getStartTime());
             for (Throwable throwable : result.getExceptions()) {
                 methodResult.addFailure(failureMessage(throwable), stackTrace(throwable), exceptionClassName(throwable));
             }
@@ -68,6 +81,19 @@ public class TestReportDataCollector implements TestListener, TestOutputListener
             classResult.add(methodResult);
             results.put(suite.getName(), classResult);
         }
+        if (resultsWriter != null && suite.getClassName() != null) {
+            TestClassResult classResult = results.remove(suite.getClassName());
+            if (classResult != null) {
+                // Tests of this class that are reported later on are written separately, and merged when the results are read
+                completedClassIds.put(classResult.getClassName(), classResult.getId());
+                resultsWriter.write(classResult);
+            }
+        }
+    }
+
+    private long classId(String className) {
+        Long id = completedClassIds.get(className);
+        return id != null ? id : internalIdCounter++;
     }
 
     @Override
@@ -87,7 +113,7 @@ public class TestReportDataCollector implements TestListener, TestOutputListener
         }
         TestClassResult classResult = results.get(className);
         if (classResult == null) {
-            classResult = new TestClassResult(internalIdCounter++, className, classDisplayName, result.getStartTime());
+            classResult = new TestClassResult(classId(className), className, classDisplayName, result.getStartTime());
             results.put(className, classResult);
         } else if (classResult.getStartTime() == 0) {
             //class results may be created earlier, where we don't yet have access to the start time
@@ -146,7 +172,7 @@ public class TestReportDataCollector implements TestListener, TestOutputListener
             //it's possible that we receive an output for a suite here
             //in this case we will create the test result for a suite that normally would not be created
             //feels like this scenario should modelled more explicitly
-            classResult = new TestClassResult(internalIdCounter++, className, TestDescriptorInternal.class.cast(testDescriptor).getClassDisplayName(), 0);
+            classResult = new TestClassResult(classId(className), className, TestDescriptorInternal.class.cast(testDescriptor).getClassDisplayName(), 0);
             results.put(className, classResult);
         }
 
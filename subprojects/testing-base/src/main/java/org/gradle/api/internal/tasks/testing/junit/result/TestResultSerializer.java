@@ -20,46 +20,112 @@ import org.gradle.api.Action;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.tasks.testing.TestResult;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.io.RandomAccessFileInputStream;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
-import org.gradle.internal.serialize.FlushableEncoder;
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Stores the test class results in a results file, to which each result is appended as soon as it is written. An index file maps
+ * each test class to the results written for it, so that the results of a test class can be read without reading all the others.
+ * A test class may be written more than once, for example when its tests are run in several batches. These results are merged when read.
+ */
 public class TestResultSerializer {
-    private static final int RESULT_VERSION = 3;
+    private static final int RESULT_VERSION = 4;
 
     private final File resultsFile;
+    private final File indexFile;
 
     public TestResultSerializer(File resultsDir) {
         this.resultsFile = new File(resultsDir, "results.bin");
+        this.indexFile = new File(resultsDir, resultsFile.getName() + ".idx");
     }
 
     public void write(Collection<TestClassResult> results) {
+        Writer writer = writer();
         try {
-            OutputStream outputStream = new FileOutputStream(resultsFile);
+            writer.write(results);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Creates a writer that replaces the current results. The writer must be closed when done with.
+     */
+    public Writer writer() {
+        return new Writer();
+    }
+
+    public class Writer implements Closeable {
+        private final KryoBackedEncoder encoder;
+        private final Map<String, List<Long>> index = new LinkedHashMap<String, List<Long>>();
+
+        private Writer() {
+            indexFile.delete();
             try {
-                if (!results.isEmpty()) { // only write if we have results, otherwise truncate
-                    FlushableEncoder encoder = new KryoBackedEncoder(outputStream);
-                    encoder.writeSmallInt(RESULT_VERSION);
-                    write(results, encoder);
-                    encoder.flush();
-                }
-            } finally {
-                outputStream.close();
+                encoder = new KryoBackedEncoder(new FileOutputStream(resultsFile));
+            } catch (FileNotFoundException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public synchronized void write(TestClassResult result) {
+            if (index.isEmpty()) {
+                encoder.writeSmallInt(RESULT_VERSION);
+            }
+            List<Long> offsets = index.get(result.getClassName());
+            if (offsets == null) {
+                offsets = new ArrayList<Long>(1);
+                index.put(result.getClassName(), offsets);
+            }
+            offsets.add(encoder.getWritePosition());
+            try {
+                TestResultSerializer.this.write(result, encoder);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public void write(Iterable<TestClassResult> results) {
+            for (TestClassResult result : results) {
+                write(result);
             }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
         }
-    }
 
-    private void write(Collection<TestClassResult> results, Encoder encoder) throws IOException {
-        encoder.writeSmallInt(results.size());
-        for (TestClassResult result : results) {
-            write(result, encoder);
+        @Override
+        public synchronized void close() {
+            encoder.close();
+            if (index.isEmpty()) {
+                return;
+            }
+            try {
+                OutputStream outputStream = new FileOutputStream(indexFile);
+                try {
+                    KryoBackedEncoder indexEncoder = new KryoBackedEncoder(outputStream);
+                    indexEncoder.writeSmallInt(index.size());
+                    for (Map.Entry<String, List<Long>> entry : index.entrySet()) {
+                        indexEncoder.writeString(entry.getKey());
+                        indexEncoder.writeSmallInt(entry.getValue().size());
+                        for (Long offset : entry.getValue()) {
+                            indexEncoder.writeSmallLong(offset);
+                        }
+                    }
+                    indexEncoder.flush();
+                } finally {
+                    outputStream.close();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         }
     }
 
@@ -89,21 +155,28 @@ public class TestResultSerializer {
         }
     }
 
+    /**
+     * Visits the results of each test class, in the order in which the test classes were first written. Only the results
+     * of a single test class are held in memory at a time.
+     */
     public void read(Action<? super TestClassResult> visitor) {
         if (!isHasResults()) {
             return;
         }
         try {
-            InputStream inputStream = new FileInputStream(resultsFile);
+            Map<String, long[]> index = readIndex();
+            RandomAccessFile dataFile = new RandomAccessFile(resultsFile, "r");
             try {
-                Decoder decoder = new KryoBackedDecoder(inputStream);
+                Decoder decoder = new KryoBackedDecoder(new RandomAccessFileInputStream(dataFile));
                 int version = decoder.readSmallInt();
                 if (version != RESULT_VERSION) {
                     throw new IllegalArgumentException(String.format("Unexpected result file version %d found in %s.", version, resultsFile));
                 }
-                readResults(decoder, visitor);
+                for (long[] offsets : index.values()) {
+                    visitor.execute(readClassResult(dataFile, offsets));
+                }
             } finally {
-                inputStream.close();
+                dataFile.close();
             }
         } catch (Exception e) {
             throw UncheckedException.throwAsUncheckedException(e);
@@ -111,15 +184,46 @@ public class TestResultSerializer {
     }
 
     public boolean isHasResults() {
-        return resultsFile.exists() && resultsFile.length() > 0;
+        return resultsFile.exists() && resultsFile.length() > 0 && indexFile.exists();
     }
 
-    private void readResults(Decoder decoder, Action<? super TestClassResult> visitor) throws ClassNotFoundException, IOException {
-        int classCount = decoder.readSmallInt();
-        for (int i = 0; i < classCount; i++) {
-            TestClassResult classResult = readClassResult(decoder);
-            visitor.execute(classResult);
+    private Map<String, long[]> readIndex() throws IOException {
+        InputStream inputStream = new FileInputStream(indexFile);
+        try {
+            Decoder decoder = new KryoBackedDecoder(inputStream);
+            int classCount = decoder.readSmallInt();
+            Map<String, long[]> index = new LinkedHashMap<String, long[]>(classCount);
+            for (int i = 0; i < classCount; i++) {
+                String className = decoder.readString();
+                long[] offsets = new long[decoder.readSmallInt()];
+                for (int j = 0; j < offsets.length; j++) {
+                    offsets[j] = decoder.readSmallLong();
+                }
+                index.put(className, offsets);
+            }
+            return index;
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private TestClassResult readClassResult(RandomAccessFile dataFile, long[] offsets) throws IOException, ClassNotFoundException {
+        TestClassResult result = null;
+        for (long offset : offsets) {
+            dataFile.seek(offset);
+            TestClassResult partialResult = readClassResult(new KryoBackedDecoder(new RandomAccessFileInputStream(dataFile)));
+            if (result == null) {
+                result = partialResult;
+            } else {
+                for (TestMethodResult methodResult : partialResult.getResults()) {
+                    result.add(methodResult);
+                }
+                if (result.getStartTime() == 0 || partialResult.getStartTime() != 0 && partialResult.getStartTime() < result.getStartTime()) {
+                    result.setStartTime(partialResult.getStartTime());
+                }
+            }
         }
+        return result;
     }
 
     private TestClassResult readClassResult(Decoder decoder) throws IOException, ClassNotFoundException {
@@ -27,18 +27,32 @@ import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.dispatch.DispatchException;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Manages a set of parallel TestClassProcessors. Uses a simple round-robin algorithm to assign test classes to
- * processors.
+ * Manages a set of parallel TestClassProcessors. Test classes are kept in a queue shared by all processors, and each
+ * processor takes the next class from the queue once it has finished with the previous one. The queue hands out the
+ * classes that took longest in the previous run first. Classes without a known duration are handed out before all others.
  */
 public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     private final int maxProcessors;
     private final Factory<TestClassProcessor> factory;
     private final ActorFactory actorFactory;
+    private final Map<String, Long> previousTestClassDurations;
+    private final Lock lock = new ReentrantLock();
+    private final Condition queueDrained = lock.newCondition();
+    private final PriorityQueue<QueuedTestClass> queue = new PriorityQueue<QueuedTestClass>();
+    private final Queue<TestClassProcessor> idleProcessors = new LinkedList<TestClassProcessor>();
+    private long queuedCount;
     private TestResultProcessor resultProcessor;
-    private int pos;
     private List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
     private List<TestClassProcessor> rawProcessors = new ArrayList<TestClassProcessor>();
     private List<Actor> actors = new ArrayList<Actor>();
@@ -46,9 +60,17 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     private volatile boolean stoppedNow;
 
     public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory) {
+        this(maxProcessors, factory, actorFactory, Collections.<String, Long>emptyMap());
+    }
+
+    /**
+     * @param previousTestClassDurations - duration in milliseconds of each test class in the previous run, used to hand out the longest classes first.
+     */
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Map<String, Long> previousTestClassDurations) {
         this.maxProcessors = maxProcessors;
         this.factory = factory;
         this.actorFactory = actorFactory;
+        this.previousTestClassDurations = previousTestClassDurations;
     }
 
     @Override
@@ -64,24 +86,63 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
             return;
         }
 
-        TestClassProcessor processor;
-        if (processors.size() < maxProcessors) {
-            processor = factory.create();
-            rawProcessors.add(processor);
-            Actor actor = actorFactory.createActor(processor);
-            processor = actor.getProxy(TestClassProcessor.class);
-            actors.add(actor);
-            processors.add(processor);
-            processor.startProcessing(resultProcessor);
-        } else {
-            processor = processors.get(pos);
-            pos = (pos + 1) % processors.size();
+        lock.lock();
+        try {
+            Long duration = previousTestClassDurations.get(testClass.getTestClassName());
+            queue.add(new QueuedTestClass(testClass, duration == null ? Long.MAX_VALUE : duration, queuedCount++));
+            dispatchQueuedTestClasses();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dispatchQueuedTestClasses() {
+        while (!queue.isEmpty() && !stoppedNow) {
+            TestClassProcessor processor = idleProcessors.poll();
+            if (processor == null) {
+                if (processors.size() >= maxProcessors) {
+                    return;
+                }
+                processor = startProcessor();
+            }
+            processor.processTestClass(queue.poll().testClass);
+        }
+        queueDrained.signalAll();
+    }
+
+    private TestClassProcessor startProcessor() {
+        TestClassProcessor rawProcessor = factory.create();
+        rawProcessors.add(rawProcessor);
+        IdleTrackingTestClassProcessor trackingProcessor = new IdleTrackingTestClassProcessor(rawProcessor);
+        Actor actor = actorFactory.createActor(trackingProcessor);
+        TestClassProcessor processor = actor.getProxy(TestClassProcessor.class);
+        trackingProcessor.proxy = processor;
+        actors.add(actor);
+        processors.add(processor);
+        processor.startProcessing(resultProcessor);
+        return processor;
+    }
+
+    private void processorIdle(TestClassProcessor processor) {
+        lock.lock();
+        try {
+            idleProcessors.add(processor);
+            dispatchQueuedTestClasses();
+        } finally {
+            lock.unlock();
         }
-        processor.processTestClass(testClass);
     }
 
     @Override
     public void stop() {
+        lock.lock();
+        try {
+            while (!queue.isEmpty() && !stoppedNow) {
+                queueDrained.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
         try {
             CompositeStoppable.stoppable(processors).add(actors).add(resultProcessorActor).stop();
         } catch (DispatchException e) {
@@ -92,8 +153,71 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     @Override
     public void stopNow() {
         stoppedNow = true;
+        lock.lock();
+        try {
+            queue.clear();
+            queueDrained.signalAll();
+        } finally {
+            lock.unlock();
+        }
         for (TestClassProcessor processor : rawProcessors) {
             processor.stopNow();
         }
     }
+
+    private static class QueuedTestClass implements Comparable<QueuedTestClass> {
+        private final TestClassRunInfo testClass;
+        private final long previousDuration;
+        private final long sequence;
+
+        QueuedTestClass(TestClassRunInfo testClass, long previousDuration, long sequence) {
+            this.testClass = testClass;
+            this.previousDuration = previousDuration;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(QueuedTestClass other) {
+            if (previousDuration != other.previousDuration) {
+                return previousDuration > other.previousDuration ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+
+    /**
+     * Returns its processor to the idle processors once it has finished with a test class. Invoked from the processor's actor.
+     */
+    private class IdleTrackingTestClassProcessor implements TestClassProcessor {
+        private final TestClassProcessor delegate;
+        private TestClassProcessor proxy;
+
+        IdleTrackingTestClassProcessor(TestClassProcessor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void startProcessing(TestResultProcessor resultProcessor) {
+            delegate.startProcessing(resultProcessor);
+        }
+
+        @Override
+        public void processTestClass(TestClassRunInfo testClass) {
+            try {
+                delegate.processTestClass(testClass);
+            } finally {
+                processorIdle(proxy);
+            }
+        }
+
+        @Override
+        public void stop() {
+            delegate.stop();
+        }
+
+        @Override
+        public void stopNow() {
+            delegate.stopNow();
+        }
+    }
 }
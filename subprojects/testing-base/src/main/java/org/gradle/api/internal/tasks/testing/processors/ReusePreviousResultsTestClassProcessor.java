@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor;
+import org.gradle.api.internal.tasks.testing.DefaultTestDescriptor;
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
+import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult;
+import org.gradle.api.tasks.testing.TestResult;
+import org.gradle.internal.id.CompositeIdGenerator;
+import org.gradle.internal.id.IdGenerator;
+import org.gradle.internal.id.LongIdGenerator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Does not pass on the test classes for which a previous result can be reused. Instead, the previous results of these test classes are
+ * reported once all other test classes have been processed.
+ */
+public class ReusePreviousResultsTestClassProcessor implements TestClassProcessor {
+    private final Map<String, TestClassResult> reusableResults;
+    private final TestClassProcessor delegate;
+    private final IdGenerator<?> idGenerator = new CompositeIdGenerator("previous", new LongIdGenerator());
+    private final Map<String, TestClassResult> reusedResults = new LinkedHashMap<String, TestClassResult>();
+    private TestResultProcessor resultProcessor;
+
+    public ReusePreviousResultsTestClassProcessor(Map<String, TestClassResult> reusableResults, TestClassProcessor delegate) {
+        this.reusableResults = reusableResults;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        this.resultProcessor = resultProcessor;
+        delegate.startProcessing(resultProcessor);
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        TestClassResult previousResult = reusableResults.get(testClass.getTestClassName());
+        if (previousResult == null) {
+            delegate.processTestClass(testClass);
+            return;
+        }
+        synchronized (reusedResults) {
+            reusedResults.put(previousResult.getClassName(), previousResult);
+        }
+    }
+
+    @Override
+    public void stop() {
+        delegate.stop();
+        List<TestClassResult> results;
+        synchronized (reusedResults) {
+            results = new ArrayList<TestClassResult>(reusedResults.values());
+        }
+        for (TestClassResult result : results) {
+            report(result);
+        }
+    }
+
+    @Override
+    public void stopNow() {
+        delegate.stopNow();
+    }
+
+    private void report(TestClassResult classResult) {
+        Object classId = idGenerator.generateId();
+        resultProcessor.started(new DefaultTestClassDescriptor(classId, classResult.getClassName(), classResult.getClassDisplayName()), new TestStartEvent(classResult.getStartTime()));
+        for (TestMethodResult methodResult : classResult.getResults()) {
+            Object methodId = idGenerator.generateId();
+            DefaultTestDescriptor descriptor = new DefaultTestDescriptor(methodId, classResult.getClassName(), methodResult.getName(), classResult.getClassDisplayName(), methodResult.getDisplayName());
+            resultProcessor.started(descriptor, new TestStartEvent(methodResult.getEndTime() - methodResult.getDuration(), classId));
+            TestResult.ResultType resultType = methodResult.getResultType() == TestResult.ResultType.SKIPPED ? TestResult.ResultType.SKIPPED : null;
+            resultProcessor.completed(methodId, new TestCompleteEvent(methodResult.getEndTime(), resultType));
+        }
+        resultProcessor.completed(classId, new TestCompleteEvent(classResult.getStartTime() + classResult.getDuration()));
+    }
+}
@@ -20,21 +20,27 @@ import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
  * In order to speed up the development feedback cycle, this class guarantee previous failed test classes
  * to be passed to its delegate first.
+ *
+ * <p>Previous failed test classes are passed on as soon as they are received. Other test classes are held back until all previous failed
+ * test classes have been received, or until the end of processing, and are passed on as soon as they are received after that.</p>
  */
 public class RunPreviousFailedFirstTestClassProcessor implements TestClassProcessor {
     private final Set<String> previousFailedTestClasses;
+    private final Set<String> pendingFailedTestClasses;
     private final TestClassProcessor delegate;
-    private final LinkedHashSet<TestClassRunInfo> prioritizedTestClasses = new LinkedHashSet<TestClassRunInfo>();
+    private final Set<TestClassRunInfo> receivedTestClasses = new HashSet<TestClassRunInfo>();
     private final LinkedHashSet<TestClassRunInfo> otherTestClasses = new LinkedHashSet<TestClassRunInfo>();
 
     public RunPreviousFailedFirstTestClassProcessor(Set<String> previousFailedTestClasses, TestClassProcessor delegate) {
         this.previousFailedTestClasses = previousFailedTestClasses;
+        this.pendingFailedTestClasses = new HashSet<String>(previousFailedTestClasses);
         this.delegate = delegate;
     }
 
@@ -45,21 +51,32 @@ public class RunPreviousFailedFirstTestClassProcessor implements TestClassProces
 
     @Override
     public void processTestClass(TestClassRunInfo testClass) {
+        if (!receivedTestClasses.add(testClass)) {
+            return;
+        }
         if (previousFailedTestClasses.contains(testClass.getTestClassName())) {
-            prioritizedTestClasses.add(testClass);
+            delegate.processTestClass(testClass);
+            pendingFailedTestClasses.remove(testClass.getTestClassName());
+            if (pendingFailedTestClasses.isEmpty()) {
+                passOtherTestClasses();
+            }
+        } else if (pendingFailedTestClasses.isEmpty()) {
+            delegate.processTestClass(testClass);
         } else {
             otherTestClasses.add(testClass);
         }
     }
 
-    @Override
-    public void stop() {
-        for (TestClassRunInfo test : prioritizedTestClasses) {
-            delegate.processTestClass(test);
-        }
+    private void passOtherTestClasses() {
         for (TestClassRunInfo test : otherTestClasses) {
             delegate.processTestClass(test);
         }
+        otherTestClasses.clear();
+    }
+
+    @Override
+    public void stop() {
+        passOtherTestClasses();
         delegate.stop();
     }
 
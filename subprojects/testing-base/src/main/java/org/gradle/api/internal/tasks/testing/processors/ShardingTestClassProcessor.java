@@ -0,0 +1,69 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+
+/**
+ * Passes to its delegate only the test classes that belong to a given shard. A test class is assigned to a shard by
+ * consistent hashing of its name, so that every machine running a shard makes the same assignment, and adding or
+ * removing a test class does not move any other test class to a different shard.
+ */
+public class ShardingTestClassProcessor implements TestClassProcessor {
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_32();
+
+    private final int shardIndex;
+    private final int shardCount;
+    private final TestClassProcessor delegate;
+
+    public ShardingTestClassProcessor(int shardIndex, int shardCount, TestClassProcessor delegate) {
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        delegate.startProcessing(resultProcessor);
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        if (shardOf(testClass.getTestClassName(), shardCount) == shardIndex) {
+            delegate.processTestClass(testClass);
+        }
+    }
+
+    @Override
+    public void stop() {
+        delegate.stop();
+    }
+
+    @Override
+    public void stopNow() {
+        delegate.stopNow();
+    }
+
+    static int shardOf(String testClassName, int shardCount) {
+        return Hashing.consistentHash(HASH_FUNCTION.hashString(testClassName, Charsets.UTF_8), shardCount);
+    }
+}
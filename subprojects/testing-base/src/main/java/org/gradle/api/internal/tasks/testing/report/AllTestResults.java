@@ -52,6 +52,14 @@ public class AllTestResults extends CompositeTestResults {
         return addTest(packageResults.addTest(classId, className, classDisplayName, testName, testDisplayName, duration));
     }
 
+    /**
+     * Counts a passed test towards the totals of its class and package, without keeping its details.
+     */
+    public void addPassedTest(long classId, String className, String classDisplayName, long duration) {
+        addPackageForClass(className).addPassedTest(classId, className, classDisplayName, duration);
+        addTest(duration);
+    }
+
     public ClassTestResults addTestClass(long classId, String className) {
         return addTestClass(classId, className, className);
     }
@@ -91,6 +91,13 @@ public class ClassTestResults extends CompositeTestResults {
         return results;
     }
 
+    /**
+     * Counts a passed test towards the totals of this class, without keeping its details.
+     */
+    public void addPassedTest(long duration) {
+        addTest(duration);
+    }
+
     public TestResult addTest(String testName, String testDisplayName, long duration) {
         TestResult test = new TestResult(testName, testDisplayName, duration, this);
         results.add(test);
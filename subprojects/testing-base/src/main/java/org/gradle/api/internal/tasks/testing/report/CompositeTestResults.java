@@ -151,8 +151,15 @@ public abstract class CompositeTestResults extends TestResultModel {
     }
 
     protected TestResult addTest(TestResult test) {
-        tests++;
-        duration += test.getDuration();
+        addTest(test.getDuration());
         return test;
     }
+
+    /**
+     * Counts a test towards the totals of these results, without keeping its details.
+     */
+    protected void addTest(long duration) {
+        tests++;
+        this.duration += duration;
+    }
 }
@@ -37,11 +37,13 @@ import org.gradle.util.GFileUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.gradle.api.tasks.testing.TestResult.ResultType.SKIPPED;
 
 public class DefaultTestReport implements TestReporter {
+    private static final int BATCH_SIZE = 1000;
     private final BuildOperationExecutor buildOperationExecutor;
     private final static Logger LOG = Logging.getLogger(DefaultTestReport.class);
 
@@ -54,33 +56,46 @@ public class DefaultTestReport implements TestReporter {
         LOG.info("Generating HTML test report...");
 
         Timer clock = Time.startTimer();
-        AllTestResults model = loadModelFromProvider(resultsProvider);
+        AllTestResults model = loadSummaryFromProvider(resultsProvider);
         generateFiles(model, resultsProvider, reportDir);
         LOG.info("Finished generating test html results ({}) into: {}", clock.getElapsed(), reportDir);
     }
 
-    private AllTestResults loadModelFromProvider(TestResultsProvider resultsProvider) {
+    /**
+     * Loads the totals of all test classes, along with the failed and ignored tests. The details of the passed tests are
+     * only loaded when the page of their class is generated.
+     */
+    private AllTestResults loadSummaryFromProvider(TestResultsProvider resultsProvider) {
         final AllTestResults model = new AllTestResults();
         resultsProvider.visitClasses(new Action<TestClassResult>() {
             public void execute(TestClassResult classResult) {
-                model.addTestClass(classResult.getId(), classResult.getClassName(), classResult.getClassDisplayName());
-                List<TestMethodResult> collectedResults = classResult.getResults();
-                for (TestMethodResult collectedResult : collectedResults) {
-                    final TestResult testResult = model.addTest(classResult.getId(), classResult.getClassName(), classResult.getClassDisplayName(), collectedResult.getName(), collectedResult.getDisplayName(), collectedResult.getDuration());
-                    if (collectedResult.getResultType() == SKIPPED) {
-                        testResult.setIgnored();
-                    } else {
-                        List<TestFailure> failures = collectedResult.getFailures();
-                        for (TestFailure failure : failures) {
-                            testResult.addFailure(failure);
-                        }
-                    }
-                }
+                addClass(model, classResult, false);
             }
         });
         return model;
     }
 
+    private static ClassTestResults addClass(AllTestResults model, TestClassResult classResult, boolean includePassedTests) {
+        ClassTestResults classResults = model.addTestClass(classResult.getId(), classResult.getClassName(), classResult.getClassDisplayName());
+        List<TestMethodResult> collectedResults = classResult.getResults();
+        for (TestMethodResult collectedResult : collectedResults) {
+            if (!includePassedTests && collectedResult.getResultType() != SKIPPED && collectedResult.getFailures().isEmpty()) {
+                model.addPassedTest(classResult.getId(), classResult.getClassName(), classResult.getClassDisplayName(), collectedResult.getDuration());
+                continue;
+            }
+            final TestResult testResult = model.addTest(classResult.getId(), classResult.getClassName(), classResult.getClassDisplayName(), collectedResult.getName(), collectedResult.getDisplayName(), collectedResult.getDuration());
+            if (collectedResult.getResultType() == SKIPPED) {
+                testResult.setIgnored();
+            } else {
+                List<TestFailure> failures = collectedResult.getFailures();
+                for (TestFailure failure : failures) {
+                    testResult.addFailure(failure);
+                }
+            }
+        }
+        return classResults;
+    }
+
     private void generateFiles(AllTestResults model, final TestResultsProvider resultsProvider, final File reportDir) {
         try {
             HtmlReportRenderer htmlRenderer = new HtmlReportRenderer();
@@ -107,12 +122,22 @@ public class DefaultTestReport implements TestReporter {
                             queue.add(generator("index.html", model, new OverviewPageRenderer(), output));
                             for (PackageTestResults packageResults : model.getPackages()) {
                                 queue.add(generator(packageResults.getBaseUrl(), packageResults, new PackagePageRenderer(), output));
-                                for (ClassTestResults classResults : packageResults.getClasses()) {
-                                    queue.add(generator(classResults.getBaseUrl(), classResults, new ClassPageRenderer(resultsProvider), output));
-                                }
                             }
                         }
                     });
+
+                    // Load the details of each class again and generate the class pages in batches, so that only the details of a batch of classes are held in memory at a time
+                    final List<HtmlReportFileGenerator<ClassTestResults>> batch = new ArrayList<HtmlReportFileGenerator<ClassTestResults>>(BATCH_SIZE);
+                    resultsProvider.visitClasses(new Action<TestClassResult>() {
+                        public void execute(TestClassResult classResult) {
+                            ClassTestResults classResults = addClass(new AllTestResults(), classResult, true);
+                            batch.add(generator(classResults.getBaseUrl(), classResults, new ClassPageRenderer(resultsProvider), output));
+                            if (batch.size() == BATCH_SIZE) {
+                                generate(batch);
+                            }
+                        }
+                    });
+                    generate(batch);
                 }
             }, reportDir);
         } catch (Exception e) {
@@ -120,6 +145,21 @@ public class DefaultTestReport implements TestReporter {
         }
     }
 
+    private void generate(final List<HtmlReportFileGenerator<ClassTestResults>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        buildOperationExecutor.runAll(new Action<BuildOperationQueue<HtmlReportFileGenerator<ClassTestResults>>>() {
+            @Override
+            public void execute(BuildOperationQueue<HtmlReportFileGenerator<ClassTestResults>> queue) {
+                for (HtmlReportFileGenerator<ClassTestResults> generator : batch) {
+                    queue.add(generator);
+                }
+            }
+        });
+        batch.clear();
+    }
+
     public static <T extends CompositeTestResults> HtmlReportFileGenerator<T> generator(String fileUrl, T results, PageRenderer<T> renderer, HtmlReportBuilder output) {
         return new HtmlReportFileGenerator<T>(fileUrl, results, renderer, output);
     }
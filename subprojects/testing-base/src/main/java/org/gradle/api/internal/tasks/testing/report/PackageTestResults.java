@@ -59,6 +59,11 @@ public class PackageTestResults extends CompositeTestResults {
         return addTest(classResults.addTest(testName, testDisplayName, duration));
     }
 
+    public void addPassedTest(long classId, String className, String classDisplayName, long duration) {
+        addClass(classId, className, classDisplayName).addPassedTest(duration);
+        addTest(duration);
+    }
+
     public ClassTestResults addClass(long classId, String className) {
         return addClass(classId, className, className);
     }
@@ -23,6 +23,7 @@ import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.internal.dispatch.StreamCompletion;
 import org.gradle.internal.remote.ObjectConnection;
 import org.gradle.internal.work.WorkerLeaseRegistry;
 import org.gradle.process.JavaForkOptions;
@@ -32,13 +33,24 @@ import org.gradle.process.internal.worker.WorkerProcessBuilder;
 import org.gradle.process.internal.worker.WorkerProcessFactory;
 import org.gradle.util.CollectionUtils;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
-public class ForkingTestClassProcessor implements TestClassProcessor {
+/**
+ * Runs test classes in a forked worker process. Hands a single test class at a time to the worker, and blocks until the worker
+ * asks for the next one, so that a caller with several of these processors can give each class to whichever worker is free first.
+ *
+ * <p>When given a {@link TestWorkerPool}, runs the test classes in a session of a reusable worker process taken from the pool. Only the jars
+ * of the classpath are put on the application classpath of such a process. The directories of the classpath are loaded by a class loader
+ * that exists for the session only.</p>
+ */
+public class ForkingTestClassProcessor implements TestClassProcessor, RemoteTestClassRequests, StreamCompletion {
     private final WorkerLeaseRegistry.WorkerLease currentWorkerLease;
     private final WorkerProcessFactory workerFactory;
     private final WorkerTestClassProcessorFactory processorFactory;
@@ -46,15 +58,23 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     private final Iterable<File> classPath;
     private final Action<WorkerProcessBuilder> buildConfigAction;
     private final ModuleRegistry moduleRegistry;
+    private final TestWorkerPool workerPool;
     private final Lock lock = new ReentrantLock();
+    private final Semaphore testClassRequests = new Semaphore(0);
     private RemoteTestClassProcessor remoteProcessor;
     private WorkerProcess workerProcess;
+    private PooledTestWorker pooledWorker;
     private TestResultProcessor resultProcessor;
     private WorkerLeaseRegistry.WorkerLeaseCompletion completion;
     private DocumentationRegistry documentationRegistry;
-    private boolean stoppedNow;
+    private volatile boolean stoppedNow;
+    private volatile boolean workerFinished;
 
     public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLease, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry) {
+        this(parentWorkerLease, workerFactory, processorFactory, options, classPath, buildConfigAction, moduleRegistry, documentationRegistry, null);
+    }
+
+    public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLease, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry, @Nullable TestWorkerPool workerPool) {
         this.currentWorkerLease = parentWorkerLease;
         this.workerFactory = workerFactory;
         this.processorFactory = processorFactory;
@@ -63,6 +83,7 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         this.buildConfigAction = buildConfigAction;
         this.moduleRegistry = moduleRegistry;
         this.documentationRegistry = documentationRegistry;
+        this.workerPool = workerPool;
     }
 
     @Override
@@ -93,29 +114,77 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         } finally {
             lock.unlock();
         }
+        awaitNextTestClassRequest();
+    }
+
+    private void awaitNextTestClassRequest() {
+        if (!workerFinished && !stoppedNow) {
+            testClassRequests.acquireUninterruptibly();
+        }
+    }
+
+    @Override
+    public void requestNextTestClass() {
+        testClassRequests.release();
+    }
+
+    @Override
+    public void sessionFinished(boolean reusable) {
+        // Only sent by a reusable worker, whose messages are received by the PooledTestWorker
+    }
+
+    @Override
+    public void endStream() {
+        // The worker has gone away, so do not wait for any further requests from it
+        workerFinished = true;
+        testClassRequests.release();
     }
 
     RemoteTestClassProcessor forkProcess() {
-        WorkerProcessBuilder builder = workerFactory.create(new TestWorker(processorFactory));
-        builder.setBaseName("Gradle Test Executor");
-        builder.setImplementationClasspath(getTestWorkerImplementationClasspath());
-        builder.applicationClasspath(classPath);
-        options.copyTo(builder.getJavaCommand());
-        builder.getJavaCommand().jvmArgs("-Dorg.gradle.native=false");
-        buildConfigAction.execute(builder);
+        if (workerPool != null) {
+            return startSessionInPooledWorker();
+        }
 
+        WorkerProcessBuilder builder = createWorkerProcessBuilder(new TestWorker(processorFactory), classPath);
         workerProcess = builder.build();
         workerProcess.start();
 
         ObjectConnection connection = workerProcess.getConnection();
         connection.useParameterSerializers(TestEventSerializer.create());
         connection.addIncoming(TestResultProcessor.class, resultProcessor);
+        connection.addIncoming(RemoteTestClassRequests.class, this);
         RemoteTestClassProcessor remoteProcessor = connection.addOutgoing(RemoteTestClassProcessor.class);
         connection.connect();
         remoteProcessor.startProcessing();
         return remoteProcessor;
     }
 
+    private RemoteTestClassProcessor startSessionInPooledWorker() {
+        List<File> applicationClasspath = new ArrayList<File>();
+        List<File> sessionClasspath = new ArrayList<File>();
+        for (File file : classPath) {
+            if (file.isDirectory()) {
+                sessionClasspath.add(file);
+            } else {
+                applicationClasspath.add(file);
+            }
+        }
+        WorkerProcessBuilder builder = createWorkerProcessBuilder(new TestWorker(), applicationClasspath);
+        pooledWorker = workerPool.reserve(builder);
+        return pooledWorker.startSession(resultProcessor, this, processorFactory, sessionClasspath);
+    }
+
+    private WorkerProcessBuilder createWorkerProcessBuilder(TestWorker worker, Iterable<File> applicationClasspath) {
+        WorkerProcessBuilder builder = workerFactory.create(worker);
+        builder.setBaseName("Gradle Test Executor");
+        builder.setImplementationClasspath(getTestWorkerImplementationClasspath());
+        builder.applicationClasspath(applicationClasspath);
+        options.copyTo(builder.getJavaCommand());
+        builder.getJavaCommand().jvmArgs("-Dorg.gradle.native=false");
+        buildConfigAction.execute(builder);
+        return builder;
+    }
+
     List<URL> getTestWorkerImplementationClasspath() {
         return CollectionUtils.flattenCollections(URL.class,
             moduleRegistry.getModule("gradle-core-api").getImplementationClasspath().getAsURLs(),
@@ -153,7 +222,11 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
                 } finally {
                     lock.unlock();
                 }
-                workerProcess.waitForStop();
+                if (pooledWorker != null) {
+                    workerPool.release(pooledWorker);
+                } else {
+                    workerProcess.waitForStop();
+                }
             }
         } catch (ExecException e) {
             if (!stoppedNow) {
@@ -172,11 +245,14 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         lock.lock();
         try {
             stoppedNow = true;
-            if (remoteProcessor != null) {
+            if (pooledWorker != null) {
+                pooledWorker.stopNow();
+            } else if (remoteProcessor != null) {
                 workerProcess.stopNow();
             }
         } finally {
             lock.unlock();
+            testClassRequests.release();
         }
     }
 }
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.dispatch.StreamCompletion;
+import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.process.internal.health.memory.MemoryAmount;
+import org.gradle.process.internal.worker.WorkerProcess;
+import org.gradle.process.internal.worker.WorkerProcessBuilder;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * A test worker process that runs the sessions of several test executions, one after the other. Passes the messages received from the
+ * worker process on to the session in progress.
+ */
+public class PooledTestWorker implements TestResultProcessor, RemoteTestClassRequests, StreamCompletion, Stoppable {
+    private final String key;
+    private final WorkerProcess workerProcess;
+    private final long maxHeapSize;
+    private final Object lock = new Object();
+    private RemoteTestClassProcessor remoteProcessor;
+    private TestResultProcessor sessionResultProcessor;
+    private RemoteTestClassRequests sessionTestClassRequests;
+    private Object sessionSuiteId;
+    private boolean sessionSuiteCompleted;
+    private Boolean sessionReusable;
+    private boolean failed;
+
+    private PooledTestWorker(String key, WorkerProcess workerProcess, long maxHeapSize) {
+        this.key = key;
+        this.workerProcess = workerProcess;
+        this.maxHeapSize = maxHeapSize;
+    }
+
+    /**
+     * Starts a worker process for a {@link TestWorker} created by {@link TestWorker#TestWorker()}.
+     */
+    static PooledTestWorker start(String key, WorkerProcessBuilder builder) {
+        builder.enableJvmMemoryInfoPublishing(true);
+        WorkerProcess workerProcess = builder.build();
+        workerProcess.start();
+
+        PooledTestWorker worker = new PooledTestWorker(key, workerProcess, MemoryAmount.parseNotation(builder.getJavaCommand().getMaxHeapSize()));
+        ObjectConnection connection = workerProcess.getConnection();
+        connection.useParameterSerializers(TestEventSerializer.create());
+        connection.addIncoming(TestResultProcessor.class, worker);
+        connection.addIncoming(RemoteTestClassRequests.class, worker);
+        worker.remoteProcessor = connection.addOutgoing(RemoteTestClassProcessor.class);
+        connection.connect();
+        return worker;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the memory the worker process is known to use, or its maximum heap size when it has not reported its memory usage yet.
+     */
+    long getMemoryUsage() {
+        try {
+            return workerProcess.getJvmMemoryStatus().getCommittedMemory();
+        } catch (IllegalStateException e) {
+            // The worker has not reported its memory usage yet
+            return Math.max(maxHeapSize, 0);
+        }
+    }
+
+    boolean isFailed() {
+        synchronized (lock) {
+            return failed;
+        }
+    }
+
+    /**
+     * Starts a new session in the worker process. Messages received from the worker process are passed to the given targets until the session finishes.
+     */
+    public RemoteTestClassProcessor startSession(TestResultProcessor resultProcessor, RemoteTestClassRequests testClassRequests, WorkerTestClassProcessorFactory factory, List<File> sessionClasspath) {
+        synchronized (lock) {
+            sessionResultProcessor = resultProcessor;
+            sessionTestClassRequests = testClassRequests;
+            sessionSuiteId = null;
+            sessionSuiteCompleted = false;
+            sessionReusable = null;
+        }
+        remoteProcessor.startSession(factory, sessionClasspath);
+        return remoteProcessor;
+    }
+
+    /**
+     * Waits until the current session has finished and all of its results have been received.
+     *
+     * @return true if the worker process can run another session.
+     */
+    boolean awaitEndOfSession() {
+        synchronized (lock) {
+            try {
+                while (!failed && (sessionReusable == null || (sessionReusable && !sessionSuiteCompleted))) {
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            return !failed && sessionReusable;
+        }
+    }
+
+    @Override
+    public void started(TestDescriptorInternal test, TestStartEvent event) {
+        synchronized (lock) {
+            if (sessionSuiteId == null && test instanceof WorkerTestClassProcessor.WorkerTestSuiteDescriptor) {
+                sessionSuiteId = test.getId();
+            }
+        }
+        sessionResultProcessor().started(test, event);
+    }
+
+    @Override
+    public void completed(Object testId, TestCompleteEvent event) {
+        TestResultProcessor resultProcessor = sessionResultProcessor();
+        resultProcessor.completed(testId, event);
+        synchronized (lock) {
+            if (testId.equals(sessionSuiteId)) {
+                sessionSuiteCompleted = true;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public void output(Object testId, TestOutputEvent event) {
+        sessionResultProcessor().output(testId, event);
+    }
+
+    @Override
+    public void failure(Object testId, Throwable result) {
+        sessionResultProcessor().failure(testId, result);
+    }
+
+    @Override
+    public void requestNextTestClass() {
+        RemoteTestClassRequests testClassRequests;
+        synchronized (lock) {
+            testClassRequests = sessionTestClassRequests;
+        }
+        if (testClassRequests != null) {
+            testClassRequests.requestNextTestClass();
+        }
+    }
+
+    @Override
+    public void sessionFinished(boolean reusable) {
+        synchronized (lock) {
+            sessionReusable = reusable;
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public void endStream() {
+        RemoteTestClassRequests testClassRequests;
+        synchronized (lock) {
+            if (failed) {
+                return;
+            }
+            failed = true;
+            testClassRequests = sessionTestClassRequests;
+            lock.notifyAll();
+        }
+        if (testClassRequests instanceof StreamCompletion) {
+            ((StreamCompletion) testClassRequests).endStream();
+        }
+    }
+
+    private TestResultProcessor sessionResultProcessor() {
+        synchronized (lock) {
+            return sessionResultProcessor;
+        }
+    }
+
+    /**
+     * Stops the worker process immediately.
+     */
+    public void stopNow() {
+        workerProcess.stopNow();
+    }
+
+    /**
+     * Stops the worker process, once it has no session in progress.
+     */
+    @Override
+    public void stop() {
+        if (!isFailed()) {
+            remoteProcessor.shutdown();
+        }
+        workerProcess.waitForStop();
+    }
+
+    @Override
+    public String toString() {
+        return workerProcess.toString();
+    }
+}
@@ -17,6 +17,10 @@
 package org.gradle.api.internal.tasks.testing.worker;
 
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+
+import java.io.File;
+import java.util.List;
 
 /**
  * @see org.gradle.api.internal.tasks.testing.TestClassProcessor
@@ -27,6 +31,12 @@ public interface RemoteTestClassProcessor {
      */
     void startProcessing();
 
+    /**
+     * Starts a session of a reusable worker. The classes of the given session classpath are loaded through a new class loader, and the test classes
+     * are processed by a processor created by the given factory. The session ends with {@link #stop()}. Does not block.
+     */
+    void startSession(WorkerTestClassProcessorFactory factory, List<File> sessionClasspath);
+
     /**
      * Does not block.
      */
@@ -36,4 +46,9 @@ public interface RemoteTestClassProcessor {
      * Does not block.
      */
     void stop();
+
+    /**
+     * Stops a reusable worker that has no session in progress. Does not block.
+     */
+    void shutdown();
 }
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+/**
+ * Sent by a test worker to the build process to ask for more work.
+ */
+public interface RemoteTestClassRequests {
+    /**
+     * Signals that the worker has finished with the test class it was last given and can accept the next one. Does not block.
+     */
+    void requestNextTestClass();
+
+    /**
+     * Signals that a reusable worker has finished its current session, and whether it could be reset so that it can run another session. Does not block.
+     */
+    void sessionFinished(boolean reusable);
+}
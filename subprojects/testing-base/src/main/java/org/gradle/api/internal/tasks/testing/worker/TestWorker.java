@@ -24,6 +24,8 @@ import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.actor.ActorFactory;
 import org.gradle.internal.actor.internal.DefaultActorFactory;
+import org.gradle.internal.classpath.DefaultClassPath;
+import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.concurrent.DefaultExecutorFactory;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.Stoppable;
@@ -39,33 +41,74 @@ import org.gradle.process.internal.worker.WorkerProcessContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.security.AccessControlException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 
+/**
+ * Runs test classes in a worker process. A worker created for a single session creates its test class processor up front, and exits
+ * once the processor has been stopped. A reusable worker runs one session after the other, each with a new test class processor and
+ * a new class loader for the session classpath, and restores the state of the JVM at the end of each session.
+ */
 public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClassProcessor, Serializable, Stoppable {
     private static final Logger LOGGER = LoggerFactory.getLogger(TestWorker.class);
     public static final String WORKER_ID_SYS_PROPERTY = "org.gradle.test.worker";
+    /**
+     * A reusable worker is not reused when more than this fraction of its maximum heap size is still in use after a session.
+     */
+    private static final double MAX_RETAINED_HEAP_FRACTION = 0.5;
+    @Nullable
     private final WorkerTestClassProcessorFactory factory;
     private CountDownLatch completed;
     private TestClassProcessor processor;
     private TestResultProcessor resultProcessor;
+    private RemoteTestClassRequests testClassRequests;
+    private WorkerProcessContext workerProcessContext;
+    private ServiceRegistry testServices;
+    private SecurityManager securityManager;
+    private Properties sessionSystemProperties;
+    private Set<Thread> sessionThreads;
+    private URLClassLoader sessionClassLoader;
 
+    /**
+     * Creates a worker that runs a single session with a processor created by the given factory.
+     */
     public TestWorker(WorkerTestClassProcessorFactory factory) {
         this.factory = factory;
     }
 
+    /**
+     * Creates a reusable worker, which runs the sessions started by {@link #startSession(WorkerTestClassProcessorFactory, List)} until it is shut down.
+     */
+    public TestWorker() {
+        this.factory = null;
+    }
+
     @Override
     public void execute(final WorkerProcessContext workerProcessContext) {
         LOGGER.info("{} started executing tests.", workerProcessContext.getDisplayName());
 
-        SecurityManager securityManager = System.getSecurityManager();
+        this.workerProcessContext = workerProcessContext;
+        securityManager = System.getSecurityManager();
         completed = new CountDownLatch(1);
 
         System.setProperty(WORKER_ID_SYS_PROPERTY, workerProcessContext.getWorkerId().toString());
 
         DefaultServiceRegistry testServices = new TestFrameworkServiceRegistry(workerProcessContext);
-        startReceivingTests(workerProcessContext, testServices);
+        this.testServices = testServices;
+        startReceivingTests(workerProcessContext);
 
         try {
             try {
@@ -76,41 +119,52 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
         } finally {
             LOGGER.info("{} finished executing tests.", workerProcessContext.getDisplayName());
 
-            if (System.getSecurityManager() != securityManager) {
-                try {
-                    // Reset security manager the tests seem to have installed
-                    System.setSecurityManager(securityManager);
-                } catch (SecurityException e) {
-                    LOGGER.warn("Unable to reset SecurityManager. Continuing anyway...", e);
-                }
-            }
+            resetSecurityManager();
             testServices.close();
         }
     }
 
-    private void startReceivingTests(WorkerProcessContext workerProcessContext, ServiceRegistry testServices) {
-        TestClassProcessor targetProcessor = factory.create(testServices);
-        IdGenerator<Object> idGenerator = testServices.get(IdGenerator.class);
-
-        targetProcessor = new WorkerTestClassProcessor(targetProcessor, idGenerator.generateId(),
-                workerProcessContext.getDisplayName(), testServices.get(Clock.class));
-        ContextClassLoaderProxy<TestClassProcessor> proxy = new ContextClassLoaderProxy<TestClassProcessor>(
-                TestClassProcessor.class, targetProcessor, workerProcessContext.getApplicationClassLoader());
-        processor = proxy.getSource();
+    private void startReceivingTests(WorkerProcessContext workerProcessContext) {
+        if (factory != null) {
+            processor = createProcessor(factory, workerProcessContext.getApplicationClassLoader());
+        }
 
         ObjectConnection serverConnection = workerProcessContext.getServerConnection();
         serverConnection.useParameterSerializers(TestEventSerializer.create());
         this.resultProcessor = serverConnection.addOutgoing(TestResultProcessor.class);
+        this.testClassRequests = serverConnection.addOutgoing(RemoteTestClassRequests.class);
         serverConnection.addIncoming(RemoteTestClassProcessor.class, this);
         serverConnection.connect();
     }
 
+    private TestClassProcessor createProcessor(WorkerTestClassProcessorFactory factory, ClassLoader applicationClassLoader) {
+        TestClassProcessor targetProcessor = factory.create(testServices);
+        IdGenerator<Object> idGenerator = testServices.get(IdGenerator.class);
+
+        targetProcessor = new WorkerTestClassProcessor(targetProcessor, idGenerator.generateId(),
+                workerProcessContext.getDisplayName(), testServices.get(Clock.class));
+        ContextClassLoaderProxy<TestClassProcessor> proxy = new ContextClassLoaderProxy<TestClassProcessor>(
+                TestClassProcessor.class, targetProcessor, applicationClassLoader);
+        return proxy.getSource();
+    }
+
     @Override
     public void startProcessing() {
         Thread.currentThread().setName("Test worker");
         processor.startProcessing(resultProcessor);
     }
 
+    @Override
+    public void startSession(WorkerTestClassProcessorFactory factory, List<File> sessionClasspath) {
+        Thread.currentThread().setName("Test worker");
+        sessionSystemProperties = new Properties();
+        sessionSystemProperties.putAll(System.getProperties());
+        sessionThreads = getLiveNonDaemonThreads();
+        sessionClassLoader = new SessionClassLoader(DefaultClassPath.of(sessionClasspath).getAsURLArray(), workerProcessContext.getApplicationClassLoader());
+        processor = createProcessor(factory, sessionClassLoader);
+        processor.startProcessing(resultProcessor);
+    }
+
     @Override
     public void processTestClass(final TestClassRunInfo testClass) {
         Thread.currentThread().setName("Test worker");
@@ -122,19 +176,124 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
         } finally {
             // Clean the interrupted status
             Thread.interrupted();
+            testClassRequests.requestNextTestClass();
         }
     }
 
     @Override
     public void stop() {
         Thread.currentThread().setName("Test worker");
+        boolean stopped = false;
         try {
             processor.stop();
+            stopped = true;
         } finally {
-            completed.countDown();
             // Clean the interrupted status
             // because some test class processors do work here, e.g. JUnitPlatform
             Thread.interrupted();
+            if (factory == null) {
+                testClassRequests.sessionFinished(stopped && resetAfterSession());
+            } else {
+                completed.countDown();
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        completed.countDown();
+    }
+
+    /**
+     * Restores the state of the JVM as it was at the start of the session, and checks whether the JVM can run another session.
+     */
+    private boolean resetAfterSession() {
+        processor = null;
+        CompositeStoppable.stoppable(sessionClassLoader).stop();
+        sessionClassLoader = null;
+        Properties systemProperties = System.getProperties();
+        systemProperties.clear();
+        systemProperties.putAll(sessionSystemProperties);
+        if (!resetSecurityManager()) {
+            return false;
+        }
+
+        Set<Thread> remainingThreads = getLiveNonDaemonThreads();
+        remainingThreads.removeAll(sessionThreads);
+        if (!remainingThreads.isEmpty()) {
+            LOGGER.info("{} cannot be reused as threads started by the tests are still running: {}", workerProcessContext.getDisplayName(), remainingThreads);
+            return false;
+        }
+
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        long retainedHeap = runtime.totalMemory() - runtime.freeMemory();
+        if (retainedHeap > runtime.maxMemory() * MAX_RETAINED_HEAP_FRACTION) {
+            LOGGER.info("{} cannot be reused as {} bytes of heap are still in use.", workerProcessContext.getDisplayName(), retainedHeap);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean resetSecurityManager() {
+        if (System.getSecurityManager() != securityManager) {
+            try {
+                // Reset security manager the tests seem to have installed
+                System.setSecurityManager(securityManager);
+            } catch (SecurityException e) {
+                LOGGER.warn("Unable to reset SecurityManager. Continuing anyway...", e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<Thread> getLiveNonDaemonThreads() {
+        Set<Thread> threads = new HashSet<Thread>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && !thread.isDaemon()) {
+                threads.add(thread);
+            }
+        }
+        return threads;
+    }
+
+    /**
+     * Loads the classes and resources of the session classpath in preference to those of the application class loader, as the
+     * session classpath comes first in the test runtime classpath.
+     */
+    private static class SessionClassLoader extends URLClassLoader {
+        SessionClassLoader(URL[] urls, ClassLoader parent) {
+            super(urls, parent);
+        }
+
+        @Override
+        protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            Class<?> type = findLoadedClass(name);
+            if (type == null) {
+                try {
+                    type = findClass(name);
+                } catch (ClassNotFoundException e) {
+                    return super.loadClass(name, resolve);
+                }
+            }
+            if (resolve) {
+                resolveClass(type);
+            }
+            return type;
+        }
+
+        @Override
+        public URL getResource(String name) {
+            URL resource = findResource(name);
+            return resource != null ? resource : super.getResource(name);
+        }
+
+        @Override
+        public Enumeration<URL> getResources(String name) throws IOException {
+            List<URL> resources = new ArrayList<URL>(Collections.list(findResources(name)));
+            resources.addAll(Collections.list(getParent().getResources(name)));
+            return Collections.enumeration(resources);
         }
     }
 
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.process.internal.JavaExecHandleBuilder;
+import org.gradle.process.internal.health.memory.MemoryHolder;
+import org.gradle.process.internal.health.memory.MemoryManager;
+import org.gradle.process.internal.worker.WorkerProcessBuilder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Keeps the worker processes of finished test executions that opted in to reusing them, so that later test executions, in the same build
+ * or in later builds, can run in an already warmed up process. A worker process is only reused by test executions that would start it
+ * with the same command line, environment and working directory, and with the same jars on its application classpath.
+ *
+ * <p>The least recently used idle worker processes are stopped when there are too many of them, or when the system is low on memory.</p>
+ */
+public class TestWorkerPool implements MemoryHolder, Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(TestWorkerPool.class);
+
+    private final FileHasher fileHasher;
+    private final MemoryManager memoryManager;
+    private final int maxIdleWorkers;
+    private final Object lock = new Object();
+    private final LinkedList<PooledTestWorker> idleWorkers = new LinkedList<PooledTestWorker>();
+
+    public TestWorkerPool(FileHasher fileHasher, MemoryManager memoryManager, int maxIdleWorkers) {
+        this.fileHasher = fileHasher;
+        this.memoryManager = memoryManager;
+        this.maxIdleWorkers = maxIdleWorkers;
+        memoryManager.addMemoryHolder(this);
+    }
+
+    /**
+     * Returns an idle worker process that was started with the same settings as the given builder, or starts a new worker process using the builder.
+     * The builder must be configured to run a {@link TestWorker} created by {@link TestWorker#TestWorker()}.
+     */
+    public PooledTestWorker reserve(WorkerProcessBuilder builder) {
+        String key = keyOf(builder);
+        synchronized (lock) {
+            Iterator<PooledTestWorker> iterator = idleWorkers.descendingIterator();
+            while (iterator.hasNext()) {
+                PooledTestWorker candidate = iterator.next();
+                if (candidate.getKey().equals(key)) {
+                    iterator.remove();
+                    if (!candidate.isFailed()) {
+                        LOGGER.info("Reusing test worker {}.", candidate);
+                        return candidate;
+                    }
+                }
+            }
+        }
+        return PooledTestWorker.start(key, builder);
+    }
+
+    /**
+     * Waits for the current session of the given worker process to finish, and then keeps the worker process for reuse, or stops it when it cannot be reused.
+     */
+    public void release(PooledTestWorker worker) {
+        if (!worker.awaitEndOfSession()) {
+            worker.stop();
+            return;
+        }
+        List<PooledTestWorker> expired = new ArrayList<PooledTestWorker>();
+        synchronized (lock) {
+            idleWorkers.addLast(worker);
+            while (idleWorkers.size() > maxIdleWorkers) {
+                expired.add(idleWorkers.removeFirst());
+            }
+        }
+        CompositeStoppable.stoppable(expired).stop();
+    }
+
+    @Override
+    public long attemptToRelease(long memoryAmountBytes) throws IllegalArgumentException {
+        if (memoryAmountBytes < 0) {
+            throw new IllegalArgumentException("Negative memory amount");
+        }
+        List<PooledTestWorker> expired = new ArrayList<PooledTestWorker>();
+        long releasedBytes = 0;
+        synchronized (lock) {
+            while (releasedBytes < memoryAmountBytes && !idleWorkers.isEmpty()) {
+                PooledTestWorker worker = idleWorkers.removeFirst();
+                expired.add(worker);
+                releasedBytes += worker.getMemoryUsage();
+            }
+        }
+        if (!expired.isEmpty()) {
+            LOGGER.debug("Stopping {} idle test worker(s) to free some system memory.", expired.size());
+            CompositeStoppable.stoppable(expired).stop();
+        }
+        return releasedBytes;
+    }
+
+    @Override
+    public void stop() {
+        List<PooledTestWorker> workers;
+        synchronized (lock) {
+            workers = new ArrayList<PooledTestWorker>(idleWorkers);
+            idleWorkers.clear();
+        }
+        memoryManager.removeMemoryHolder(this);
+        CompositeStoppable.stoppable(workers).stop();
+    }
+
+    private String keyOf(WorkerProcessBuilder builder) {
+        JavaExecHandleBuilder javaCommand = builder.getJavaCommand();
+        StringBuilder key = new StringBuilder();
+        key.append(javaCommand.getExecutable()).append('\n');
+        key.append(javaCommand.getAllJvmArgs()).append('\n');
+        key.append(javaCommand.getEnvironment()).append('\n');
+        key.append(javaCommand.getWorkingDir()).append('\n');
+        key.append(builder.getLogLevel()).append('\n');
+        key.append(builder.getSharedPackages()).append('\n');
+        for (File file : builder.getApplicationClasspath()) {
+            key.append(file.getAbsolutePath());
+            if (file.isFile()) {
+                key.append('=').append(fileHasher.hash(file));
+            }
+            key.append('\n');
+        }
+        return key.toString();
+    }
+}
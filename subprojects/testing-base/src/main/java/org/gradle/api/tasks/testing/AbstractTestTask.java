@@ -40,7 +40,7 @@ import org.gradle.api.internal.tasks.testing.TestExecutionSpec;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter;
 import org.gradle.api.internal.tasks.testing.junit.result.Binary2JUnitXmlReportGenerator;
-import org.gradle.api.internal.tasks.testing.junit.result.InMemoryTestResultsProvider;
+import org.gradle.api.internal.tasks.testing.junit.result.BinaryResultBackedTestResultsProvider;
 import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestOutputAssociation;
 import org.gradle.api.internal.tasks.testing.junit.result.TestOutputStore;
@@ -444,7 +444,8 @@ public abstract class AbstractTestTask extends ConventionTask implements Verific
         TestOutputStore testOutputStore = new TestOutputStore(binaryResultsDir);
 
         TestOutputStore.Writer outputWriter = testOutputStore.writer();
-        TestReportDataCollector testReportDataCollector = new TestReportDataCollector(results, outputWriter);
+        TestResultSerializer.Writer resultsWriter = new TestResultSerializer(binaryResultsDir).writer();
+        TestReportDataCollector testReportDataCollector = new TestReportDataCollector(results, outputWriter, resultsWriter);
 
         addTestListener(testReportDataCollector);
         addTestOutputListener(testReportDataCollector);
@@ -477,11 +478,11 @@ public abstract class AbstractTestTask extends ConventionTask implements Verific
             getTestOutputListenerBroadcaster().removeAll();
             getTestListenerInternalBroadcaster().removeAll();
             outputWriter.close();
+            resultsWriter.write(results.values());
+            resultsWriter.close();
         }
 
-        new TestResultSerializer(binaryResultsDir).write(results.values());
-
-        createReporting(results, testOutputStore);
+        createReporting(binaryResultsDir);
 
         if (testCountLogger.hadFailures()) {
             handleTestFailures();
@@ -511,8 +512,8 @@ public abstract class AbstractTestTask extends ConventionTask implements Verific
         return reasons;
     }
 
-    private void createReporting(Map<String, TestClassResult> results, TestOutputStore testOutputStore) {
-        TestResultsProvider testResultsProvider = new InMemoryTestResultsProvider(results.values(), testOutputStore);
+    private void createReporting(File binaryResultsDir) {
+        TestResultsProvider testResultsProvider = new BinaryResultBackedTestResultsProvider(binaryResultsDir);
 
         try {
             if (testReporter == null) {
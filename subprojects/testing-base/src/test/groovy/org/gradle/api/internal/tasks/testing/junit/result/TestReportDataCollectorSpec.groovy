@@ -16,9 +16,12 @@
 
 package org.gradle.api.internal.tasks.testing.junit.result
 
+import org.gradle.api.Action
 import org.gradle.api.internal.tasks.testing.*
 import org.gradle.api.internal.tasks.testing.results.DefaultTestResult
 import org.gradle.internal.serialize.PlaceholderException
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
 import spock.lang.Issue
 import spock.lang.Specification
 
@@ -29,6 +32,7 @@ import static org.gradle.api.tasks.testing.TestResult.ResultType.FAILURE
 import static org.gradle.api.tasks.testing.TestResult.ResultType.SUCCESS
 
 class TestReportDataCollectorSpec extends Specification {
+    @Rule TestNameTestDirectoryProvider tmp = new TestNameTestDirectoryProvider()
     def Map<String, TestClassResult> results = [:]
     def TestOutputStore.Writer writer = Mock()
     def collector = new TestReportDataCollector(results, writer)
@@ -67,6 +71,39 @@ class TestReportDataCollectorSpec extends Specification {
         fooTest.results.find { it.name == 'testMethod2' && it.endTime == 300 && it.duration == 50 }
     }
 
+    def "writes the results of a test class as soon as the class completes"() {
+        def serializer = new TestResultSerializer(tmp.createDir("results"))
+        def resultsWriter = serializer.writer()
+        def collector = new TestReportDataCollector(results, writer, resultsWriter)
+        def root = new DefaultTestSuiteDescriptor("1", "Suite")
+        def clazz = new DecoratingTestDescriptor(new DefaultTestClassDescriptor("1.1", "FooTest"), root)
+        def test1 = new DecoratingTestDescriptor(new DefaultTestDescriptor("1.1.1", "FooTest", "testMethod"), clazz)
+        def test2 = new DecoratingTestDescriptor(new DefaultTestDescriptor("1.1.2", "FooTest", "testMethod2"), clazz)
+
+        when:
+        collector.beforeSuite(clazz)
+        collector.beforeTest(test1)
+        collector.afterTest(test1, new DefaultTestResult(SUCCESS, 100, 200, 1, 1, 0, []))
+        collector.afterSuite(clazz, new DefaultTestResult(SUCCESS, 100, 200, 1, 1, 0, []))
+
+        then:
+        results.isEmpty()
+
+        when:
+        collector.beforeTest(test2)
+        collector.afterTest(test2, new DefaultTestResult(SUCCESS, 300, 400, 1, 1, 0, []))
+        resultsWriter.write(results.values())
+        resultsWriter.close()
+        def read = []
+        serializer.read({ read << it } as Action)
+
+        then:
+        read.size() == 1
+        read[0].className == 'FooTest'
+        read[0].startTime == 100
+        read[0].results*.name == ['testMethod', 'testMethod2']
+    }
+
     def "writes test outputs for interleaved tests"() {
         def test = new DefaultTestDescriptor("1.1.1", "FooTest", "testMethod")
         def test2 = new DefaultTestDescriptor("1.1.2", "FooTest", "testMethod2")
@@ -67,6 +67,42 @@ class TestResultSerializerTest extends Specification {
         readClass2.results.empty
     }
 
+    def "merges the results written for the same class"() {
+        def serializer = new TestResultSerializer(tmp.createDir("results"))
+        def writer = serializer.writer()
+
+        when:
+        writer.write(new TestClassResult(1, 'Class1', 2000).add(new TestMethodResult(1, "method1", TestResult.ResultType.SUCCESS, 100, 2100)))
+        writer.write(new TestClassResult(2, 'Class2', 1500))
+        writer.write(new TestClassResult(1, 'Class1', 1000).add(new TestMethodResult(3, "method2", TestResult.ResultType.SKIPPED, 0, 1000)))
+        writer.close()
+        def read = []
+        serializer.read({ read << it } as Action)
+
+        then:
+        read*.className == ['Class1', 'Class2']
+        read[0].id == 1
+        read[0].startTime == 1000
+        read[0].results*.name == ['method1', 'method2']
+    }
+
+    def "has results only once writing completed"() {
+        def serializer = new TestResultSerializer(tmp.createDir("results"))
+        def writer = serializer.writer()
+
+        when:
+        writer.write(new TestClassResult(1, 'Class1', 2000))
+
+        then:
+        !serializer.hasResults
+
+        when:
+        writer.close()
+
+        then:
+        serializer.hasResults
+    }
+
     List<TestClassResult> serialize(Collection<TestClassResult> results) {
         def serializer = new TestResultSerializer(tmp.createDir("results"))
         serializer.write(results)
@@ -30,7 +30,8 @@ class MaxNParallelTestClassProcessorTest extends Specification {
     private final TestResultProcessor asyncResultProcessor = Mock()
     private final Actor resultProcessorActor = Mock()
     private final ActorFactory actorFactory = Mock()
-    private final MaxNParallelTestClassProcessor processor = new MaxNParallelTestClassProcessor(2, factory, actorFactory)
+    private MaxNParallelTestClassProcessor processor = new MaxNParallelTestClassProcessor(2, factory, actorFactory)
+    private final Map<TestClassProcessor, TestClassProcessor> actorTargets = [:]
 
     def createsThreadSafeWrapperForResultProcessorOnStart() {
         when:
@@ -71,7 +72,7 @@ class MaxNParallelTestClassProcessorTest extends Specification {
 
         then:
         1 * factory.create() >> processor1
-        1 * actorFactory.createActor(processor1) >> actor1
+        1 * actorFactory.createActor(_) >> { TestClassProcessor target -> actorFor(target, asyncProcessor1, actor1) }
         1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
         1 * asyncProcessor1.startProcessing(asyncResultProcessor)
         1 * asyncProcessor1.processTestClass(test)
@@ -101,7 +102,7 @@ class MaxNParallelTestClassProcessorTest extends Specification {
 
         then:
         1 * factory.create() >> processor1
-        1 * actorFactory.createActor(processor1) >> actor1
+        1 * actorFactory.createActor(_) >> { TestClassProcessor target -> actorFor(target, asyncProcessor1, actor1) }
         1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
         1 * asyncProcessor1.startProcessing(asyncResultProcessor)
         1 * asyncProcessor1.processTestClass(test)
@@ -111,7 +112,7 @@ class MaxNParallelTestClassProcessorTest extends Specification {
 
         then:
         1 * factory.create() >> processor2
-        1 * actorFactory.createActor(processor2) >> actor2
+        1 * actorFactory.createActor(_) >> { TestClassProcessor target -> actorFor(target, asyncProcessor2, actor2) }
         1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
         1 * asyncProcessor2.startProcessing(asyncResultProcessor)
         1 * asyncProcessor2.processTestClass(test)
@@ -124,8 +125,11 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * asyncProcessor2.stop()
     }
 
-    def roundRobinsTestClassesToProcessors() {
-        TestClassRunInfo test = Mock()
+    def handsQueuedTestClassesToProcessorsAsTheyBecomeIdle() {
+        TestClassRunInfo test1 = testClass("Test1")
+        TestClassRunInfo test2 = testClass("Test2")
+        TestClassRunInfo test3 = testClass("Test3")
+        TestClassRunInfo test4 = testClass("Test4")
         TestClassProcessor processor1 = Mock()
         TestClassProcessor processor2 = Mock()
         TestClassProcessor asyncProcessor1 = Mock()
@@ -136,36 +140,85 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         startProcessor()
 
         when:
-        processor.processTestClass(test)
+        processor.processTestClass(test1)
+        processor.processTestClass(test2)
+        processor.processTestClass(test3)
+        processor.processTestClass(test4)
+
+        then:
+        2 * factory.create() >>> [processor1, processor2]
+        1 * actorFactory.createActor(_) >> { TestClassProcessor target -> actorFor(target, asyncProcessor1, actor1) }
+        1 * actorFactory.createActor(_) >> { TestClassProcessor target -> actorFor(target, asyncProcessor2, actor2) }
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
+        1 * asyncProcessor1.processTestClass(test1)
+        1 * asyncProcessor2.processTestClass(test2)
+        0 * asyncProcessor1.processTestClass(_)
+        0 * asyncProcessor2.processTestClass(_)
+
+        when:
+        complete(asyncProcessor2, test2)
+
+        then:
+        1 * processor2.processTestClass(test2)
+        1 * asyncProcessor2.processTestClass(test3)
+        0 * asyncProcessor1.processTestClass(_)
+
+        when:
+        complete(asyncProcessor2, test3)
+
+        then:
+        1 * processor2.processTestClass(test3)
+        1 * asyncProcessor2.processTestClass(test4)
+        0 * asyncProcessor1.processTestClass(_)
+    }
+
+    def handsOutLongestTestClassesFromPreviousRunFirst() {
+        processor = new MaxNParallelTestClassProcessor(1, factory, actorFactory, [Short: 10L, Long: 1000L, Medium: 100L])
+        TestClassRunInfo first = testClass("First")
+        TestClassRunInfo shortTest = testClass("Short")
+        TestClassRunInfo longTest = testClass("Long")
+        TestClassRunInfo mediumTest = testClass("Medium")
+        TestClassRunInfo newTest = testClass("New")
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        Actor actor1 = Mock()
+
+        startProcessor()
+
+        when:
+        processor.processTestClass(first)
+        [shortTest, longTest, mediumTest, newTest].each { processor.processTestClass(it) }
 
         then:
         1 * factory.create() >> processor1
-        1 * actorFactory.createActor(processor1) >> actor1
+        1 * actorFactory.createActor(_) >> { TestClassProcessor target -> actorFor(target, asyncProcessor1, actor1) }
         1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
-        1 * asyncProcessor1.startProcessing(asyncResultProcessor)
-        1 * asyncProcessor1.processTestClass(test)
+        1 * asyncProcessor1.processTestClass(first)
 
         when:
-        processor.processTestClass(test)
+        complete(asyncProcessor1, first)
 
         then:
-        1 * factory.create() >> processor2
-        1 * actorFactory.createActor(processor2) >> actor2
-        1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
-        1 * asyncProcessor2.startProcessing(asyncResultProcessor)
-        1 * asyncProcessor2.processTestClass(test)
+        1 * asyncProcessor1.processTestClass(newTest)
 
         when:
-        processor.processTestClass(test)
+        complete(asyncProcessor1, newTest)
 
         then:
-        1 * asyncProcessor1.processTestClass(test)
+        1 * asyncProcessor1.processTestClass(longTest)
 
         when:
-        processor.processTestClass(test)
+        complete(asyncProcessor1, longTest)
 
         then:
-        1 * asyncProcessor2.processTestClass(test)
+        1 * asyncProcessor1.processTestClass(mediumTest)
+
+        when:
+        complete(asyncProcessor1, mediumTest)
+
+        then:
+        1 * asyncProcessor1.processTestClass(shortTest)
     }
 
     def "stopNow propagates to factory created processors"() {
@@ -184,7 +237,7 @@ class MaxNParallelTestClassProcessorTest extends Specification {
 
         then:
         1 * factory.create() >> processor1
-        1 * actorFactory.createActor(processor1) >> actor1
+        1 * actorFactory.createActor(_) >> { TestClassProcessor target -> actorFor(target, asyncProcessor1, actor1) }
         1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
 
         when:
@@ -192,7 +245,7 @@ class MaxNParallelTestClassProcessorTest extends Specification {
 
         then:
         1 * factory.create() >> processor2
-        1 * actorFactory.createActor(processor2) >> actor2
+        1 * actorFactory.createActor(_) >> { TestClassProcessor target -> actorFor(target, asyncProcessor2, actor2) }
         1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
 
         when:
@@ -202,4 +255,42 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * processor1.stopNow()
         1 * processor2.stopNow()
     }
+
+    def "stop does not wait for queued test classes after stopNow"() {
+        TestClassRunInfo test = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        Actor actor1 = Mock()
+        processor = new MaxNParallelTestClassProcessor(1, factory, actorFactory)
+
+        startProcessor()
+
+        when:
+        processor.processTestClass(test)
+        processor.processTestClass(test)
+        processor.stopNow()
+        processor.stop()
+
+        then:
+        1 * factory.create() >> Mock(TestClassProcessor)
+        1 * actorFactory.createActor(_) >> { TestClassProcessor target -> actorFor(target, asyncProcessor1, actor1) }
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        1 * asyncProcessor1.processTestClass(test)
+        1 * asyncProcessor1.stop()
+    }
+
+    private Actor actorFor(TestClassProcessor target, TestClassProcessor proxy, Actor actor) {
+        actorTargets[proxy] = target
+        return actor
+    }
+
+    // Simulates the actor of the given processor finishing with a test class
+    private void complete(TestClassProcessor proxy, TestClassRunInfo test) {
+        actorTargets[proxy].processTestClass(test)
+    }
+
+    private TestClassRunInfo testClass(String name) {
+        return Stub(TestClassRunInfo) {
+            getTestClassName() >> name
+        }
+    }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult
+import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult
+import spock.lang.Specification
+
+import static org.gradle.api.tasks.testing.TestResult.ResultType.SKIPPED
+import static org.gradle.api.tasks.testing.TestResult.ResultType.SUCCESS
+
+class ReusePreviousResultsTestClassProcessorTest extends Specification {
+    def delegate = Mock(TestClassProcessor)
+    def resultProcessor = Mock(TestResultProcessor)
+    def previousResult = new TestClassResult(1, "org.gradle.Unchanged", 100)
+        .add(new TestMethodResult(2, "ok", SUCCESS, 10, 120))
+        .add(new TestMethodResult(3, "ignored", SKIPPED, 0, 130))
+    def processor = new ReusePreviousResultsTestClassProcessor(["org.gradle.Unchanged": previousResult], delegate)
+
+    def "passes on the test classes without a reusable result"() {
+        def testClass = testClass("org.gradle.Changed")
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(testClass)
+        processor.stop()
+
+        then:
+        1 * delegate.startProcessing(resultProcessor)
+        1 * delegate.processTestClass(testClass)
+        1 * delegate.stop()
+        0 * _
+    }
+
+    def "reports the previous result of a test class once the other test classes have been processed"() {
+        def started = []
+        def completed = []
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(testClass("org.gradle.Unchanged"))
+
+        then:
+        1 * delegate.startProcessing(resultProcessor)
+        0 * _
+
+        when:
+        processor.stop()
+
+        then:
+        1 * delegate.stop()
+
+        then:
+        3 * resultProcessor.started(_, _) >> { TestDescriptorInternal descriptor, TestStartEvent event -> started << [descriptor.className, descriptor.name, event.startTime] }
+        3 * resultProcessor.completed(_, _) >> { Object id, TestCompleteEvent event -> completed << [event.endTime, event.resultType] }
+        0 * _
+
+        and:
+        started == [["org.gradle.Unchanged", "org.gradle.Unchanged", 100L], ["org.gradle.Unchanged", "ok", 110L], ["org.gradle.Unchanged", "ignored", 130L]]
+        completed == [[120L, null], [130L, SKIPPED], [130L, null]]
+    }
+
+    def "does not report previous results when stopped immediately"() {
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(testClass("org.gradle.Unchanged"))
+        processor.stopNow()
+
+        then:
+        1 * delegate.startProcessing(resultProcessor)
+        1 * delegate.stopNow()
+        0 * _
+    }
+
+    private TestClassRunInfo testClass(String name) {
+        return Stub(TestClassRunInfo) {
+            getTestClassName() >> name
+        }
+    }
+}
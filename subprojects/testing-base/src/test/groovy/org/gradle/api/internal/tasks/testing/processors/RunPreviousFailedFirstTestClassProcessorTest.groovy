@@ -46,4 +46,52 @@ class RunPreviousFailedFirstTestClassProcessorTest extends Specification {
         then:
         1 * delegate.stop()
     }
+
+    def 'test classes are passed to delegate as soon as they are received when nothing failed previously'() {
+        given:
+        processor = new RunPreviousFailedFirstTestClassProcessor([] as Set, delegate)
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo('Class1'))
+
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('Class1'))
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo('Class2'))
+
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('Class2'))
+    }
+
+    def 'other test classes are passed to delegate once all previous failed test classes have been received'() {
+        given:
+        processor = new RunPreviousFailedFirstTestClassProcessor(['Class2', 'Class4'] as Set, delegate)
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo('Class1'))
+        processor.processTestClass(new DefaultTestClassRunInfo('Class2'))
+
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('Class2'))
+        0 * delegate._
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo('Class3'))
+        processor.processTestClass(new DefaultTestClassRunInfo('Class4'))
+
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('Class4'))
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('Class1'))
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('Class3'))
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo('Class5'))
+        processor.processTestClass(new DefaultTestClassRunInfo('Class5'))
+
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('Class5'))
+    }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import spock.lang.Specification
+
+class ShardingTestClassProcessorTest extends Specification {
+    def delegate = Mock(TestClassProcessor)
+    def testClassNames = (1..100).collect { "org.gradle.Test$it".toString() }
+
+    def "passes only the test classes of its shard to the delegate"() {
+        def processor = new ShardingTestClassProcessor(1, 3, delegate)
+        def processed = []
+
+        when:
+        testClassNames.each { processor.processTestClass(testClass(it)) }
+
+        then:
+        _ * delegate.processTestClass(_) >> { TestClassRunInfo testClass -> processed << testClass.testClassName }
+        processed == testClassNames.findAll { ShardingTestClassProcessor.shardOf(it, 3) == 1 }
+    }
+
+    def "every test class belongs to exactly one shard"() {
+        def processed = []
+        def processors = (0..2).collect { new ShardingTestClassProcessor(it, 3, delegate) }
+
+        when:
+        testClassNames.each { name -> processors.each { it.processTestClass(testClass(name)) } }
+
+        then:
+        _ * delegate.processTestClass(_) >> { TestClassRunInfo testClass -> processed << testClass.testClassName }
+        processed.sort() == testClassNames.sort()
+    }
+
+    def "spreads test classes across shards"() {
+        expect:
+        testClassNames.countBy { ShardingTestClassProcessor.shardOf(it, 3) }.values().every { it > 15 }
+    }
+
+    def "adding a shard only moves test classes to the new shard"() {
+        expect:
+        testClassNames.every {
+            def before = ShardingTestClassProcessor.shardOf(it, 3)
+            def after = ShardingTestClassProcessor.shardOf(it, 4)
+            after == before || after == 3
+        }
+    }
+
+    def "delegates lifecycle to the delegate"() {
+        def processor = new ShardingTestClassProcessor(0, 2, delegate)
+        def resultProcessor = Mock(TestResultProcessor)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.stop()
+        processor.stopNow()
+
+        then:
+        1 * delegate.startProcessing(resultProcessor)
+        1 * delegate.stop()
+        1 * delegate.stopNow()
+        0 * _
+    }
+
+    private TestClassRunInfo testClass(String name) {
+        return Stub(TestClassRunInfo) {
+            getTestClassName() >> name
+        }
+    }
+}
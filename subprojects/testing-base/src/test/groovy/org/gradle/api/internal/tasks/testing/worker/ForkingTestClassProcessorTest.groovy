@@ -65,11 +65,27 @@ class ForkingTestClassProcessorTest extends Specification {
         then:
         1 * workerLease.startChild()
         1 * processor.forkProcess() >> remoteProcessor
-        1 * remoteProcessor.processTestClass(test1)
-        1 * remoteProcessor.processTestClass(test2)
+        1 * remoteProcessor.processTestClass(test1) >> { processor.requestNextTestClass() }
+        1 * remoteProcessor.processTestClass(test2) >> { processor.requestNextTestClass() }
         0 * remoteProcessor._
     }
 
+    def "does not wait for worker to request next test class once the worker has gone away"() {
+        def test1 = Mock(TestClassRunInfo)
+        def test2 = Mock(TestClassRunInfo)
+
+        def remoteProcessor = Mock(RemoteTestClassProcessor)
+
+        when:
+        processor.processTestClass(test1)
+        processor.processTestClass(test2)
+
+        then:
+        1 * processor.forkProcess() >> remoteProcessor
+        1 * remoteProcessor.processTestClass(test1) >> { processor.endStream() }
+        1 * remoteProcessor.processTestClass(test2)
+    }
+
     def "starts process with a limited implementation classpath"() {
         setup:
         1 * workerProcess.getConnection() >> Stub(ObjectConnection) { addOutgoing(_) >> Stub(RemoteTestClassProcessor) }
@@ -96,7 +112,7 @@ class ForkingTestClassProcessorTest extends Specification {
         ForkingTestClassProcessor processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), Stub(ModuleRegistry), documentationRegistry)
 
         setup:
-        1 * workerProcess.getConnection() >> Stub(ObjectConnection) { addOutgoing(_) >> Stub(RemoteTestClassProcessor) }
+        1 * workerProcess.getConnection() >> Stub(ObjectConnection) { addOutgoing(_) >> Stub(RemoteTestClassProcessor) { processTestClass(_) >> { processor.requestNextTestClass() } } }
 
         when:
         processor.processTestClass(Mock(TestClassRunInfo))
@@ -110,7 +126,7 @@ class ForkingTestClassProcessorTest extends Specification {
         ForkingTestClassProcessor processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), Stub(ModuleRegistry), documentationRegistry)
 
         setup:
-        1 * workerProcess.getConnection() >> Stub(ObjectConnection) { addOutgoing(_) >> Stub(RemoteTestClassProcessor) }
+        1 * workerProcess.getConnection() >> Stub(ObjectConnection) { addOutgoing(_) >> Stub(RemoteTestClassProcessor) { processTestClass(_) >> { processor.requestNextTestClass() } } }
 
         when:
         processor.processTestClass(Mock(TestClassRunInfo))
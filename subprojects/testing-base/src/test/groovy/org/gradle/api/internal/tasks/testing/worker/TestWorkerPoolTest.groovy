@@ -0,0 +1,163 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory
+import org.gradle.internal.hash.TestFileHasher
+import org.gradle.internal.remote.ObjectConnection
+import org.gradle.process.internal.JavaExecHandleBuilder
+import org.gradle.process.internal.health.memory.JvmMemoryStatus
+import org.gradle.process.internal.health.memory.MemoryManager
+import org.gradle.process.internal.worker.WorkerProcess
+import org.gradle.process.internal.worker.WorkerProcessBuilder
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class TestWorkerPoolTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmp = new TestNameTestDirectoryProvider()
+    def memoryManager = Mock(MemoryManager)
+    def pool = new TestWorkerPool(new TestFileHasher(), memoryManager, 1)
+    def jar = tmp.file("lib.jar")
+    def resultProcessor = Mock(TestResultProcessor)
+    def testClassRequests = Mock(RemoteTestClassRequests)
+    def remoteProcessor = Mock(RemoteTestClassProcessor)
+    def workerProcess = Mock(WorkerProcess)
+
+    def setup() {
+        jar.text = "jar"
+        _ * workerProcess.connection >> Stub(ObjectConnection) {
+            addOutgoing(RemoteTestClassProcessor) >> remoteProcessor
+        }
+    }
+
+    def "registers as memory holder and unregisters when stopped"() {
+        when:
+        def pool = new TestWorkerPool(new TestFileHasher(), memoryManager, 1)
+
+        then:
+        1 * memoryManager.addMemoryHolder(_)
+
+        when:
+        pool.stop()
+
+        then:
+        1 * memoryManager.removeMemoryHolder(pool)
+    }
+
+    def "reuses an idle worker started with the same settings"() {
+        def worker = pool.reserve(builder())
+        runSession(worker, true)
+        pool.release(worker)
+
+        expect:
+        pool.reserve(builder()).is(worker)
+    }
+
+    def "starts a new worker when the jars of the classpath changed"() {
+        def worker = pool.reserve(builder())
+        runSession(worker, true)
+        pool.release(worker)
+
+        when:
+        jar.text = "changed"
+
+        then:
+        !pool.reserve(builder(otherProcess())).is(worker)
+    }
+
+    def "stops a worker that cannot be reused"() {
+        def worker = pool.reserve(builder())
+
+        when:
+        runSession(worker, false)
+        pool.release(worker)
+
+        then:
+        1 * remoteProcessor.shutdown()
+        1 * workerProcess.waitForStop()
+    }
+
+    def "stops the least recently used idle worker when there are too many idle workers"() {
+        def otherProcess = otherProcess()
+        def worker = pool.reserve(builder())
+        def otherWorker = pool.reserve(builder(otherProcess))
+        runSession(worker, true)
+        runSession(otherWorker, true)
+
+        when:
+        pool.release(worker)
+        pool.release(otherWorker)
+
+        then:
+        1 * remoteProcessor.shutdown()
+        1 * workerProcess.waitForStop()
+        0 * otherProcess.waitForStop()
+    }
+
+    def "stops idle workers to release memory"() {
+        def worker = pool.reserve(builder())
+        runSession(worker, true)
+        pool.release(worker)
+
+        when:
+        def released = pool.attemptToRelease(100)
+
+        then:
+        released == 1024
+        _ * workerProcess.jvmMemoryStatus >> Stub(JvmMemoryStatus) {
+            getCommittedMemory() >> 1024
+        }
+        1 * workerProcess.waitForStop()
+
+        and:
+        pool.attemptToRelease(100) == 0
+    }
+
+    private WorkerProcess otherProcess() {
+        return Mock(WorkerProcess) {
+            getConnection() >> Stub(ObjectConnection) {
+                addOutgoing(RemoteTestClassProcessor) >> Stub(RemoteTestClassProcessor)
+            }
+        }
+    }
+
+    private WorkerProcessBuilder builder(WorkerProcess process = workerProcess) {
+        def builder = Mock(WorkerProcessBuilder)
+        _ * builder.javaCommand >> Stub(JavaExecHandleBuilder) {
+            getExecutable() >> "java"
+            getAllJvmArgs() >> ["-Xmx64m"]
+            getEnvironment() >> [:]
+            getWorkingDir() >> tmp.testDirectory
+        }
+        _ * builder.applicationClasspath >> ([jar] as Set)
+        _ * builder.sharedPackages >> (["org.junit"] as Set)
+        _ * builder.build() >> process
+        return builder
+    }
+
+    private void runSession(PooledTestWorker worker, boolean reusable) {
+        worker.startSession(resultProcessor, testClassRequests, Stub(WorkerTestClassProcessorFactory), [])
+        def suite = new WorkerTestClassProcessor.WorkerTestSuiteDescriptor("suite", "Gradle Test Executor")
+        worker.started(suite, new TestStartEvent(0))
+        worker.completed("suite", new TestCompleteEvent(10))
+        worker.sessionFinished(reusable)
+    }
+}
@@ -38,6 +38,7 @@ public class TestWorkerTest extends ConcurrentSpec {
     def processor = Mock(TestClassProcessor)
     def test = Mock(TestClassRunInfo)
     def resultProcessor = Mock(TestResultProcessor)
+    def testClassRequests = Mock(RemoteTestClassRequests)
     def worker = new TestWorker(factory)
     def serviceRegistry = new DefaultServiceRegistry().add(Clock, Time.clock())
 
@@ -61,6 +62,7 @@ public class TestWorkerTest extends ConcurrentSpec {
         and:
         1 * factory.create(_) >> processor
         1 * connection.addOutgoing(TestResultProcessor) >> resultProcessor
+        1 * connection.addOutgoing(RemoteTestClassRequests) >> testClassRequests
         1 * connection.addIncoming(RemoteTestClassProcessor, worker)
         1 * connection.useParameterSerializers(_)
         1 * connection.connect() >> {
@@ -74,6 +76,44 @@ public class TestWorkerTest extends ConcurrentSpec {
         }
         1 * processor.startProcessing(_)
         1 * processor.processTestClass(test)
+        1 * testClassRequests.requestNextTestClass()
         1 * processor.stop()
     }
+
+    def reusableWorkerRunsSessionsUntilShutDownAndResetsSystemPropertiesAfterEachSession() {
+        def reusableWorker = new TestWorker()
+
+        when:
+        async {
+            reusableWorker.execute(workerContext)
+            instant.completed
+        }
+
+        then:
+        instant.completed > instant.shutdown
+        System.properties['org.gradle.test.session'] == null
+
+        and:
+        1 * connection.addOutgoing(TestResultProcessor) >> resultProcessor
+        1 * connection.addOutgoing(RemoteTestClassRequests) >> testClassRequests
+        1 * connection.addIncoming(RemoteTestClassProcessor, reusableWorker)
+        1 * connection.connect() >> {
+            start {
+                2.times {
+                    reusableWorker.startSession(factory, [])
+                    reusableWorker.processTestClass(test)
+                    reusableWorker.stop()
+                }
+                thread.block()
+                instant.shutdown
+                reusableWorker.shutdown()
+            }
+        }
+        2 * factory.create(_) >> processor
+        2 * processor.startProcessing(_)
+        2 * processor.processTestClass(test) >> { System.setProperty('org.gradle.test.session', 'value') }
+        2 * testClassRequests.requestNextTestClass()
+        2 * processor.stop()
+        2 * testClassRequests.sessionFinished(_) >> { assert System.properties['org.gradle.test.session'] == null }
+    }
 }
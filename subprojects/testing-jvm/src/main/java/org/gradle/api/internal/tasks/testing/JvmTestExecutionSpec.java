@@ -18,10 +18,13 @@ package org.gradle.api.internal.tasks.testing;
 
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.FileTree;
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
 import org.gradle.process.JavaForkOptions;
 import org.gradle.util.Path;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 
 public class JvmTestExecutionSpec implements TestExecutionSpec {
@@ -36,8 +39,17 @@ public class JvmTestExecutionSpec implements TestExecutionSpec {
     private final JavaForkOptions javaForkOptions;
     private final int maxParallelForks;
     private final Set<String> previousFailedTestClasses;
+    private final Map<String, Long> previousTestClassDurations;
+    private final int shardIndex;
+    private final int shardCount;
+    private final Map<String, TestClassResult> reusableTestClassResults;
+    private final boolean reuseForks;
 
     public JvmTestExecutionSpec(TestFramework testFramework, Iterable<? extends File> classpath, FileTree candidateClassFiles, boolean scanForTestClasses, FileCollection testClassesDirs, String path, Path identityPath, long forkEvery, JavaForkOptions javaForkOptions, int maxParallelForks, Set<String> previousFailedTestClasses) {
+        this(testFramework, classpath, candidateClassFiles, scanForTestClasses, testClassesDirs, path, identityPath, forkEvery, javaForkOptions, maxParallelForks, previousFailedTestClasses, Collections.<String, Long>emptyMap(), 0, 1, Collections.<String, TestClassResult>emptyMap(), false);
+    }
+
+    public JvmTestExecutionSpec(TestFramework testFramework, Iterable<? extends File> classpath, FileTree candidateClassFiles, boolean scanForTestClasses, FileCollection testClassesDirs, String path, Path identityPath, long forkEvery, JavaForkOptions javaForkOptions, int maxParallelForks, Set<String> previousFailedTestClasses, Map<String, Long> previousTestClassDurations, int shardIndex, int shardCount, Map<String, TestClassResult> reusableTestClassResults, boolean reuseForks) {
         this.testFramework = testFramework;
         this.classpath = classpath;
         this.candidateClassFiles = candidateClassFiles;
@@ -49,6 +61,11 @@ public class JvmTestExecutionSpec implements TestExecutionSpec {
         this.javaForkOptions = javaForkOptions;
         this.maxParallelForks = maxParallelForks;
         this.previousFailedTestClasses = previousFailedTestClasses;
+        this.previousTestClassDurations = previousTestClassDurations;
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+        this.reusableTestClassResults = reusableTestClassResults;
+        this.reuseForks = reuseForks;
     }
 
     public TestFramework getTestFramework() {
@@ -94,4 +111,33 @@ public class JvmTestExecutionSpec implements TestExecutionSpec {
     public Set<String> getPreviousFailedTestClasses() {
         return previousFailedTestClasses;
     }
+
+    /**
+     * Returns the duration in milliseconds of each test class that passed in the previous run.
+     */
+    public Map<String, Long> getPreviousTestClassDurations() {
+        return previousTestClassDurations;
+    }
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Returns the previous results of the test classes that do not need to run again.
+     */
+    public Map<String, TestClassResult> getReusableTestClassResults() {
+        return reusableTestClassResults;
+    }
+
+    /**
+     * Returns whether the forked worker processes may be taken from, and returned to, the pool of reusable test worker processes.
+     */
+    public boolean isReuseForks() {
+        return reuseForks;
+    }
 }
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.testing.detection;
 
+import com.google.common.base.Optional;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.gradle.api.internal.file.RelativeFile;
@@ -34,20 +35,25 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
+/**
+ * Detects test classes by inspecting their class files and those of their super classes. May be used by several threads
+ * concurrently. Test classes are passed to the test class processor one at a time.
+ */
 public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor> implements TestFrameworkDetector {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractTestFrameworkDetector.class);
     private static final String JAVA_LANG_OBJECT = "java/lang/Object";
 
     private List<File> testClassDirectories;
     private final ClassFileExtractionManager classFileExtractionManager;
-    private final Map<File, Boolean> superClasses;
+    private final ConcurrentMap<File, Boolean> superClasses;
+    private final ConcurrentMap<String, Optional<File>> superClassFiles;
     private TestClassProcessor testClassProcessor;
 
     private Set<File> testClassesDirectories;
@@ -56,16 +62,26 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     protected AbstractTestFrameworkDetector(ClassFileExtractionManager classFileExtractionManager) {
         assert classFileExtractionManager != null;
         this.classFileExtractionManager = classFileExtractionManager;
-        this.superClasses = new HashMap<File, Boolean>();
+        this.superClasses = new ConcurrentHashMap<File, Boolean>();
+        this.superClassFiles = new ConcurrentHashMap<String, Optional<File>>();
     }
 
     protected abstract T createClassVisitor();
 
     private File getSuperTestClassFile(String superClassName) {
-        prepareClasspath();
         if (StringUtils.isEmpty(superClassName)) {
             throw new IllegalArgumentException("superClassName is empty!");
         }
+        Optional<File> superClassFile = superClassFiles.get(superClassName);
+        if (superClassFile == null) {
+            superClassFile = Optional.fromNullable(findSuperTestClassFile(superClassName));
+            superClassFiles.putIfAbsent(superClassName, superClassFile);
+        }
+        return superClassFile.orNull();
+    }
+
+    private File findSuperTestClassFile(String superClassName) {
+        prepareClasspath();
 
         File superTestClassFile = null;
         for (File testClassDirectory : testClassDirectories) {
@@ -86,12 +102,12 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         }
     }
 
-    private void prepareClasspath() {
+    private synchronized void prepareClasspath() {
         if (testClassDirectories != null) {
             return;
         }
 
-        testClassDirectories = new ArrayList<File>();
+        List<File> testClassDirectories = new ArrayList<File>();
 
         if (testClassesDirectories != null) {
             testClassDirectories.addAll(testClassesDirectories);
@@ -105,6 +121,7 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
                 }
             }
         }
+        this.testClassDirectories = testClassDirectories;
     }
 
     @Override
@@ -186,7 +203,7 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         if (isSuperTest == null) {
             isTest = processTestClass(testClassFile, true, Factories.constant(superClassName));
 
-            superClasses.put(testClassFile, isTest);
+            superClasses.putIfAbsent(testClassFile, isTest);
         } else {
             isTest = isSuperTest;
         }
@@ -201,7 +218,9 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     private void publishTestClass(boolean isTest, TestClass testClass, boolean superClass) {
         if (isTest && !testClass.isAbstract() && !superClass) {
             String className = Type.getObjectType(testClass.getClassName()).getClassName();
-            testClassProcessor.processTestClass(new DefaultTestClassRunInfo(className));
+            synchronized (this) {
+                testClassProcessor.processTestClass(new DefaultTestClassRunInfo(className));
+            }
         }
     }
 
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import it.unimi.dsi.fastutil.ints.IntSets;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.DefaultClassDependenciesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassDependentsAccumulator;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysis;
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.FlushableEncoder;
+import org.gradle.internal.serialize.HashCodeSerializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Determines which classes of a test runtime classpath are affected by the changes made since the previous test run.
+ * The content hashes of the classpath entries are recorded in a state file once the test results of a run have been written,
+ * together with the hash of these results, so that the state is only used along with the results it belongs to. Classes are
+ * affected when their class file changed, or when they transitively depend on a class whose class file changed, as determined
+ * by the class dependency analysis that is also used for incremental Java compilation.
+ */
+public class AffectedClassesDetector {
+    private static final Logger LOGGER = Logging.getLogger(AffectedClassesDetector.class);
+    private static final int STATE_VERSION = 2;
+    private static final String CLASS_FILE_EXTENSION = ".class";
+
+    private final FileHasher fileHasher;
+    private final StringInterner interner;
+    private final File stateFile;
+    private final File resultsFile;
+    private final HashCodeSerializer hashCodeSerializer = new HashCodeSerializer();
+    private HashCode currentConfiguration;
+    private Map<File, Map<String, HashCode>> currentEntries;
+
+    /**
+     * @param stateFile the file to record the state in.
+     * @param resultsFile the file holding the test results that the state belongs to.
+     */
+    public AffectedClassesDetector(FileHasher fileHasher, StringInterner interner, File stateFile, File resultsFile) {
+        this.fileHasher = fileHasher;
+        this.interner = interner;
+        this.stateFile = stateFile;
+        this.resultsFile = resultsFile;
+    }
+
+    /**
+     * Snapshots the given classpath and compares it with the state recorded by the previous call to {@link #recordState()}.
+     *
+     * @param classpath the directories and jars to consider, in classpath order.
+     * @param configuration the hash of everything else that may influence the test results. No class is considered unaffected when this changed.
+     * @return the names of the affected classes, or null when all classes must be considered affected.
+     */
+    @Nullable
+    public Set<String> detectAffectedClasses(Iterable<File> classpath, HashCode configuration) {
+        Map<File, Map<String, HashCode>> current = snapshot(classpath);
+        currentConfiguration = configuration;
+        currentEntries = current;
+        State previous = readState();
+        if (previous == null) {
+            LOGGER.info("All test classes are affected as there is no state from a previous test run.");
+            return null;
+        }
+        if (!resultsFile.isFile() || !previous.results.equals(fileHasher.hash(resultsFile))) {
+            LOGGER.info("All test classes are affected as the previous test results were not produced by the test run that recorded the state.");
+            return null;
+        }
+        if (!previous.configuration.equals(configuration) || !new ArrayList<File>(previous.entries.keySet()).equals(new ArrayList<File>(current.keySet()))) {
+            LOGGER.info("All test classes are affected as the test configuration or classpath changed.");
+            return null;
+        }
+
+        Set<String> changedClasses = new HashSet<String>();
+        for (Map.Entry<File, Map<String, HashCode>> root : current.entrySet()) {
+            Map<String, HashCode> previousFiles = previous.entries.get(root.getKey());
+            Set<String> paths = new HashSet<String>(previousFiles.keySet());
+            paths.addAll(root.getValue().keySet());
+            for (String path : paths) {
+                HashCode previousHash = previousFiles.get(path);
+                HashCode currentHash = root.getValue().get(path);
+                if (previousHash != null && previousHash.equals(currentHash)) {
+                    continue;
+                }
+                if (!path.endsWith(CLASS_FILE_EXTENSION)) {
+                    LOGGER.info("All test classes are affected as {} changed.", path.isEmpty() ? root.getKey() : new File(root.getKey(), path));
+                    return null;
+                }
+                changedClasses.add(path.substring(0, path.length() - CLASS_FILE_EXTENSION.length()).replace('/', '.'));
+            }
+        }
+        if (changedClasses.isEmpty()) {
+            return changedClasses;
+        }
+
+        ClassSetAnalysis analysis = analyze(current);
+        for (String changedClass : changedClasses) {
+            if (!analysis.getConstants(changedClass).isEmpty()) {
+                LOGGER.info("All test classes are affected as {} declares constants that may be inlined.", changedClass);
+                return null;
+            }
+        }
+        DependentsSet dependents = analysis.getRelevantDependents(changedClasses, IntSets.EMPTY_SET);
+        if (dependents.isDependencyToAll()) {
+            LOGGER.info("All test classes are affected as a change to one of {} affects all classes.", changedClasses);
+            return null;
+        }
+        Set<String> affectedClasses = new HashSet<String>(changedClasses);
+        affectedClasses.addAll(dependents.getDependentClasses());
+        return affectedClasses;
+    }
+
+    private Map<File, Map<String, HashCode>> snapshot(Iterable<File> classpath) {
+        Map<File, Map<String, HashCode>> entries = new LinkedHashMap<File, Map<String, HashCode>>();
+        for (File file : classpath) {
+            File root = file.getAbsoluteFile();
+            if (entries.containsKey(root)) {
+                continue;
+            }
+            Map<String, HashCode> files = new HashMap<String, HashCode>();
+            if (root.isDirectory()) {
+                snapshotDirectory(root, "", files);
+            } else if (root.isFile()) {
+                files.put("", fileHasher.hash(root));
+            }
+            entries.put(root, files);
+        }
+        return entries;
+    }
+
+    private void snapshotDirectory(File dir, String prefix, Map<String, HashCode> files) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            String path = prefix + child.getName();
+            if (child.isDirectory()) {
+                snapshotDirectory(child, path + "/", files);
+            } else {
+                files.put(path, fileHasher.hash(child));
+            }
+        }
+    }
+
+    /**
+     * Records the state snapshotted by {@link #detectAffectedClasses(Iterable, HashCode)} along with the test results, once these have been written.
+     */
+    public void recordState() {
+        if (currentEntries == null) {
+            return;
+        }
+        if (resultsFile.isFile()) {
+            writeState(new State(currentConfiguration, fileHasher.hash(resultsFile), currentEntries));
+        } else {
+            stateFile.delete();
+        }
+        currentConfiguration = null;
+        currentEntries = null;
+    }
+
+    private ClassSetAnalysis analyze(Map<File, Map<String, HashCode>> entries) {
+        DefaultClassDependenciesAnalyzer analyzer = new DefaultClassDependenciesAnalyzer(interner);
+        ClassDependentsAccumulator accumulator = new ClassDependentsAccumulator();
+        for (Map.Entry<File, Map<String, HashCode>> root : entries.entrySet()) {
+            if (!root.getKey().isDirectory()) {
+                continue;
+            }
+            for (String path : root.getValue().keySet()) {
+                if (!path.endsWith(CLASS_FILE_EXTENSION)) {
+                    continue;
+                }
+                File classFile = new File(root.getKey(), path);
+                try {
+                    InputStream input = new FileInputStream(classFile);
+                    try {
+                        accumulator.addClass(analyzer.getClassAnalysis(input));
+                    } finally {
+                        input.close();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not analyze class file " + classFile, e);
+                }
+            }
+        }
+        return new ClassSetAnalysis(accumulator.getAnalysis());
+    }
+
+    @Nullable
+    private State readState() {
+        if (!stateFile.isFile()) {
+            return null;
+        }
+        try {
+            InputStream inputStream = new FileInputStream(stateFile);
+            try {
+                Decoder decoder = new KryoBackedDecoder(inputStream);
+                if (decoder.readSmallInt() != STATE_VERSION) {
+                    return null;
+                }
+                HashCode configuration = hashCodeSerializer.read(decoder);
+                HashCode results = hashCodeSerializer.read(decoder);
+                int rootCount = decoder.readSmallInt();
+                Map<File, Map<String, HashCode>> entries = new LinkedHashMap<File, Map<String, HashCode>>();
+                for (int i = 0; i < rootCount; i++) {
+                    File root = new File(decoder.readString());
+                    int fileCount = decoder.readSmallInt();
+                    Map<String, HashCode> files = new HashMap<String, HashCode>(fileCount);
+                    for (int j = 0; j < fileCount; j++) {
+                        files.put(decoder.readString(), hashCodeSerializer.read(decoder));
+                    }
+                    entries.put(root, files);
+                }
+                return new State(configuration, results, entries);
+            } finally {
+                inputStream.close();
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Could not read test class state from {}.", stateFile, e);
+            return null;
+        }
+    }
+
+    private void writeState(State state) {
+        try {
+            stateFile.getParentFile().mkdirs();
+            OutputStream outputStream = new FileOutputStream(stateFile);
+            try {
+                FlushableEncoder encoder = new KryoBackedEncoder(outputStream);
+                encoder.writeSmallInt(STATE_VERSION);
+                hashCodeSerializer.write(encoder, state.configuration);
+                hashCodeSerializer.write(encoder, state.results);
+                encoder.writeSmallInt(state.entries.size());
+                for (Map.Entry<File, Map<String, HashCode>> root : state.entries.entrySet()) {
+                    encoder.writeString(root.getKey().getAbsolutePath());
+                    encoder.writeSmallInt(root.getValue().size());
+                    for (Map.Entry<String, HashCode> file : root.getValue().entrySet()) {
+                        encoder.writeString(file.getKey());
+                        hashCodeSerializer.write(encoder, file.getValue());
+                    }
+                }
+                encoder.flush();
+            } finally {
+                outputStream.close();
+            }
+        } catch (Exception e) {
+            throw new UncheckedIOException("Could not write test class state to " + stateFile, e);
+        }
+    }
+
+    private static class State {
+        private final HashCode configuration;
+        private final HashCode results;
+        private final Map<File, Map<String, HashCode>> entries;
+
+        State(HashCode configuration, HashCode results, Map<File, Map<String, HashCode>> entries) {
+            this.configuration = configuration;
+            this.results = results;
+            this.entries = entries;
+        }
+    }
+}
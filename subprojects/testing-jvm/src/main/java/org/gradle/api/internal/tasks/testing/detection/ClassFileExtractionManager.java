@@ -29,7 +29,7 @@ import java.io.IOException;
 import java.util.*;
 
 /**
- * This class manages class file extraction from library jar files.
+ * This class manages class file extraction from library jar files. It is safe to use from multiple threads.
  */
 public class ClassFileExtractionManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(ClassFileExtractionManager.class);
@@ -51,7 +51,7 @@ public class ClassFileExtractionManager {
      *
      * @param libraryJar Jar file to add to the index.
      */
-    public void addLibraryJar(final File libraryJar) {
+    public synchronized void addLibraryJar(final File libraryJar) {
         new JarFilePackageLister().listJarPackages(libraryJar, new JarFilePackageListener() {
             public void receivePackage(String packageName) {
                 Set<File> jarFiles = packageJarFilesMappings.get(packageName);
@@ -73,7 +73,7 @@ public class ClassFileExtractionManager {
      * @param className Name of the class to extract.
      * @return File that contains the extracted class file.
      */
-    public File getLibraryClassFile(final String className) {
+    public synchronized File getLibraryClassFile(final String className) {
         if (unextractableClasses.contains(className)) {
             return null;
         } else {
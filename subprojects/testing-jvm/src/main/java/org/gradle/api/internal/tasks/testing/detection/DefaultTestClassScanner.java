@@ -23,24 +23,39 @@ import org.gradle.api.internal.file.RelativeFile;
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 
 import java.util.regex.Pattern;
 
 /**
  * The default test class scanner. Depending on the availability of a test framework detector,
- * a detection or filename scan is performed to find test classes.
+ * a detection or filename scan is performed to find test classes. Detection may inspect several class files in parallel,
+ * and each test class is passed on as soon as it has been found.
  */
 public class DefaultTestClassScanner implements Runnable {
     private static final Pattern ANONYMOUS_CLASS_NAME = Pattern.compile(".*\\$\\d+");
     private final FileTree candidateClassFiles;
     private final TestFrameworkDetector testFrameworkDetector;
     private final TestClassProcessor testClassProcessor;
+    private final ExecutorFactory executorFactory;
+    private final int maxDetectionThreads;
 
     public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
                                    TestClassProcessor testClassProcessor) {
+        this(candidateClassFiles, testFrameworkDetector, testClassProcessor, null, 1);
+    }
+
+    /**
+     * @param maxDetectionThreads - the maximum number of class files to inspect in parallel. When 1, class files are inspected by the calling thread.
+     */
+    public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
+                                   TestClassProcessor testClassProcessor, ExecutorFactory executorFactory, int maxDetectionThreads) {
         this.candidateClassFiles = candidateClassFiles;
         this.testFrameworkDetector = testFrameworkDetector;
         this.testClassProcessor = testClassProcessor;
+        this.executorFactory = executorFactory;
+        this.maxDetectionThreads = maxDetectionThreads;
     }
 
     @Override
@@ -54,11 +69,32 @@ public class DefaultTestClassScanner implements Runnable {
 
     private void detectionScan() {
         testFrameworkDetector.startDetection(testClassProcessor);
-        candidateClassFiles.visit(new ClassFileVisitor() {
-            public void visitClassFile(FileVisitDetails fileDetails) {
-                testFrameworkDetector.processTestClass(new RelativeFile(fileDetails.getFile(), fileDetails.getRelativePath()));
-            }
-        });
+        if (maxDetectionThreads <= 1) {
+            candidateClassFiles.visit(new ClassFileVisitor() {
+                public void visitClassFile(FileVisitDetails fileDetails) {
+                    testFrameworkDetector.processTestClass(new RelativeFile(fileDetails.getFile(), fileDetails.getRelativePath()));
+                }
+            });
+            return;
+        }
+
+        final ManagedExecutor executor = executorFactory.create("Test class detection", maxDetectionThreads);
+        try {
+            candidateClassFiles.visit(new ClassFileVisitor() {
+                public void visitClassFile(FileVisitDetails fileDetails) {
+                    final RelativeFile classFile = new RelativeFile(fileDetails.getFile(), fileDetails.getRelativePath());
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            testFrameworkDetector.processTestClass(classFile);
+                        }
+                    });
+                }
+            });
+        } finally {
+            // Waits for the detection of all submitted class files and rethrows any failure
+            executor.stop();
+        }
     }
 
     private void filenameScan() {
@@ -30,13 +30,17 @@ import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter;
 import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.PatternMatchTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.processors.ReusePreviousResultsTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RunPreviousFailedFirstTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.processors.ShardingTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
 import org.gradle.api.internal.tasks.testing.worker.ForkingTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerPool;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.Factory;
 import org.gradle.internal.actor.ActorFactory;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.time.Clock;
 import org.gradle.internal.work.WorkerLeaseRegistry;
@@ -54,6 +58,7 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
 
     private final WorkerProcessFactory workerFactory;
     private final ActorFactory actorFactory;
+    private final ExecutorFactory executorFactory;
     private final ModuleRegistry moduleRegistry;
     private final WorkerLeaseRegistry workerLeaseRegistry;
     private final BuildOperationExecutor buildOperationExecutor;
@@ -61,13 +66,15 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
     private final Clock clock;
     private final DocumentationRegistry documentationRegistry;
     private final DefaultTestFilter testFilter;
+    private final TestWorkerPool workerPool;
     private TestClassProcessor processor;
 
-    public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory actorFactory, ModuleRegistry moduleRegistry,
+    public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory actorFactory, ExecutorFactory executorFactory, ModuleRegistry moduleRegistry,
                                WorkerLeaseRegistry workerLeaseRegistry, BuildOperationExecutor buildOperationExecutor, int maxWorkerCount,
-                               Clock clock, DocumentationRegistry documentationRegistry, DefaultTestFilter testFilter) {
+                               Clock clock, DocumentationRegistry documentationRegistry, DefaultTestFilter testFilter, TestWorkerPool workerPool) {
         this.workerFactory = workerFactory;
         this.actorFactory = actorFactory;
+        this.executorFactory = executorFactory;
         this.moduleRegistry = moduleRegistry;
         this.workerLeaseRegistry = workerLeaseRegistry;
         this.buildOperationExecutor = buildOperationExecutor;
@@ -75,6 +82,7 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
         this.clock = clock;
         this.documentationRegistry = documentationRegistry;
         this.testFilter = testFilter;
+        this.workerPool = workerPool;
     }
 
     @Override
@@ -83,10 +91,11 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
         final WorkerTestClassProcessorFactory testInstanceFactory = testFramework.getProcessorFactory();
         final WorkerLeaseRegistry.WorkerLease currentWorkerLease = workerLeaseRegistry.getCurrentWorkerLease();
         final Set<File> classpath = ImmutableSet.copyOf(testExecutionSpec.getClasspath());
+        final TestWorkerPool reusableWorkers = canReuseForks(testExecutionSpec) ? workerPool : null;
         final Factory<TestClassProcessor> forkingProcessorFactory = new Factory<TestClassProcessor>() {
             public TestClassProcessor create() {
                 return new ForkingTestClassProcessor(currentWorkerLease, workerFactory, testInstanceFactory, testExecutionSpec.getJavaForkOptions(),
-                    classpath, testFramework.getWorkerConfigurationAction(), moduleRegistry, documentationRegistry);
+                    classpath, testFramework.getWorkerConfigurationAction(), moduleRegistry, documentationRegistry, reusableWorkers);
             }
         };
         final Factory<TestClassProcessor> reforkingProcessorFactory = new Factory<TestClassProcessor>() {
@@ -94,10 +103,16 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
                 return new RestartEveryNTestClassProcessor(forkingProcessorFactory, testExecutionSpec.getForkEvery());
             }
         };
-        processor =
-            new PatternMatchTestClassProcessor(testFilter,
-                new RunPreviousFailedFirstTestClassProcessor(testExecutionSpec.getPreviousFailedTestClasses(),
-                    new MaxNParallelTestClassProcessor(getMaxParallelForks(testExecutionSpec), reforkingProcessorFactory, actorFactory)));
+        TestClassProcessor parallelProcessor =
+            new RunPreviousFailedFirstTestClassProcessor(testExecutionSpec.getPreviousFailedTestClasses(),
+                new MaxNParallelTestClassProcessor(getMaxParallelForks(testExecutionSpec), reforkingProcessorFactory, actorFactory, testExecutionSpec.getPreviousTestClassDurations()));
+        if (!testExecutionSpec.getReusableTestClassResults().isEmpty()) {
+            parallelProcessor = new ReusePreviousResultsTestClassProcessor(testExecutionSpec.getReusableTestClassResults(), parallelProcessor);
+        }
+        if (testExecutionSpec.getShardCount() > 1) {
+            parallelProcessor = new ShardingTestClassProcessor(testExecutionSpec.getShardIndex(), testExecutionSpec.getShardCount(), parallelProcessor);
+        }
+        processor = new PatternMatchTestClassProcessor(testFilter, parallelProcessor);
 
         final FileTree testClassFiles = testExecutionSpec.getCandidateClassFiles();
 
@@ -106,7 +121,7 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
             TestFrameworkDetector testFrameworkDetector = testFramework.getDetector();
             testFrameworkDetector.setTestClasses(testExecutionSpec.getTestClassesDirs().getFiles());
             testFrameworkDetector.setTestClasspath(classpath);
-            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor);
+            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor, executorFactory, maxWorkerCount);
         } else {
             detector = new DefaultTestClassScanner(testClassFiles, null, processor);
         }
@@ -123,6 +138,31 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
         }
     }
 
+    private boolean canReuseForks(JvmTestExecutionSpec testExecutionSpec) {
+        if (!testExecutionSpec.isReuseForks()) {
+            return false;
+        }
+        if (testExecutionSpec.getForkEvery() > 0) {
+            LOGGER.info("{} does not reuse test worker processes as forkEvery is set.", testExecutionSpec.getPath());
+            return false;
+        }
+        for (String jvmArg : testExecutionSpec.getJavaForkOptions().getAllJvmArgs()) {
+            if (jvmArg.startsWith("-javaagent:") || jvmArg.startsWith("-agentlib:") || jvmArg.startsWith("-agentpath:")) {
+                // Agents usually report what they collected when the process exits
+                LOGGER.info("{} does not reuse test worker processes as they run with agent {}.", testExecutionSpec.getPath(), jvmArg);
+                return false;
+            }
+        }
+        for (File file : testExecutionSpec.getClasspath()) {
+            if (new File(file, "META-INF/services").isDirectory()) {
+                // Code in the jars of a reusable process cannot see the classes of the directories, which are loaded per task
+                LOGGER.info("{} does not reuse test worker processes as {} declares services.", testExecutionSpec.getPath(), file);
+                return false;
+            }
+        }
+        return true;
+    }
+
     private int getMaxParallelForks(JvmTestExecutionSpec testExecutionSpec) {
         int maxParallelForks = testExecutionSpec.getMaxParallelForks();
         if (maxParallelForks > maxWorkerCount) {
@@ -21,6 +21,7 @@ import groovy.lang.Closure;
 import org.gradle.StartParameter;
 import org.gradle.api.Action;
 import org.gradle.api.Incubating;
+import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.JavaVersion;
 import org.gradle.api.NonNullApi;
 import org.gradle.api.file.FileCollection;
@@ -28,11 +29,13 @@ import org.gradle.api.file.FileTree;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.internal.DocumentationRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
+import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache;
 import org.gradle.api.internal.tasks.testing.JvmTestExecutionSpec;
 import org.gradle.api.internal.tasks.testing.TestExecuter;
 import org.gradle.api.internal.tasks.testing.TestFramework;
+import org.gradle.api.internal.tasks.testing.detection.AffectedClassesDetector;
 import org.gradle.api.internal.tasks.testing.detection.DefaultTestExecuter;
 import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter;
 import org.gradle.api.internal.tasks.testing.junit.JUnitTestFramework;
@@ -40,6 +43,7 @@ import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultSerializer;
 import org.gradle.api.internal.tasks.testing.junitplatform.JUnitPlatformTestFramework;
 import org.gradle.api.internal.tasks.testing.testng.TestNGTestFramework;
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerPool;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.Classpath;
@@ -59,6 +63,11 @@ import org.gradle.api.tasks.util.PatternFilterable;
 import org.gradle.internal.Actions;
 import org.gradle.internal.Cast;
 import org.gradle.internal.actor.ActorFactory;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.jvm.UnsupportedJavaRuntimeException;
 import org.gradle.internal.jvm.inspection.JvmVersionDetector;
 import org.gradle.internal.operations.BuildOperationExecutor;
@@ -75,10 +84,13 @@ import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.io.File;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import static org.gradle.util.ConfigureUtil.configureUsing;
 
@@ -146,6 +158,11 @@ public class Test extends AbstractTestTask implements JavaForkOptions, PatternFi
     private boolean scanForTestClasses = true;
     private long forkEvery;
     private int maxParallelForks = 1;
+    private int shardIndex;
+    private int shardCount = 1;
+    private boolean runOnlyAffectedTestClasses;
+    private AffectedClassesDetector affectedClassesDetector;
+    private boolean reuseForks;
     private TestExecuter<JvmTestExecutionSpec> testExecuter;
 
     public Test() {
@@ -551,25 +568,82 @@ public class Test extends AbstractTestTask implements JavaForkOptions, PatternFi
     protected JvmTestExecutionSpec createTestExecutionSpec() {
         DefaultJavaForkOptions javaForkOptions = new DefaultJavaForkOptions(getFileResolver());
         copyTo(javaForkOptions);
-        return new JvmTestExecutionSpec(getTestFramework(), getClasspath(), getCandidateClassFiles(), isScanForTestClasses(), getTestClassesDirs(), getPath(), getIdentityPath(), getForkEvery(), javaForkOptions, getMaxParallelForks(), getPreviousFailedTestClasses());
-    }
-
-    private Set<String> getPreviousFailedTestClasses() {
+        if (shardIndex >= shardCount) {
+            throw new InvalidUserDataException("Cannot run shard " + shardIndex + " of " + getPath() + " as it is split into only " + shardCount + " shards.");
+        }
+        final Set<String> previousFailedTestClasses = new HashSet<String>();
+        final Map<String, Long> previousTestClassDurations = new HashMap<String, Long>();
+        final Map<String, TestClassResult> previousPassedTestClasses = new HashMap<String, TestClassResult>();
         TestResultSerializer serializer = new TestResultSerializer(getBinResultsDir());
         if (serializer.isHasResults()) {
-            final Set<String> previousFailedTestClasses = new HashSet<String>();
             serializer.read(new Action<TestClassResult>() {
                 @Override
                 public void execute(TestClassResult testClassResult) {
                     if (testClassResult.getFailuresCount() > 0) {
                         previousFailedTestClasses.add(testClassResult.getClassName());
+                    } else {
+                        previousTestClassDurations.put(testClassResult.getClassName(), testClassResult.getDuration());
+                        if (runOnlyAffectedTestClasses) {
+                            previousPassedTestClasses.put(testClassResult.getClassName(), testClassResult);
+                        }
                     }
                 }
             });
-            return previousFailedTestClasses;
-        } else {
-            return Collections.emptySet();
         }
+        Map<String, TestClassResult> reusableTestClassResults = Collections.emptyMap();
+        if (runOnlyAffectedTestClasses) {
+            reusableTestClassResults = findReusableTestClassResults(javaForkOptions, previousPassedTestClasses);
+        }
+        return new JvmTestExecutionSpec(getTestFramework(), getClasspath(), getCandidateClassFiles(), isScanForTestClasses(), getTestClassesDirs(), getPath(), getIdentityPath(), getForkEvery(), javaForkOptions, getMaxParallelForks(), previousFailedTestClasses, previousTestClassDurations, shardIndex, shardCount, reusableTestClassResults, reuseForks);
+    }
+
+    private Map<String, TestClassResult> findReusableTestClassResults(JavaForkOptions javaForkOptions, Map<String, TestClassResult> previousPassedTestClasses) {
+        Set<File> classpath = new LinkedHashSet<File>(getTestClassesDirs().getFiles());
+        classpath.addAll(getClasspath().getFiles());
+        // The state lives with the binary results, so that it is only used along with the results of the run that recorded it
+        File binResultsDir = getBinResultsDir();
+        affectedClassesDetector = new AffectedClassesDetector(getServices().get(FileHasher.class), getServices().get(StringInterner.class),
+            new File(binResultsDir, "classpath-state.bin"), new File(binResultsDir, "results.bin"));
+        Set<String> affectedClasses = affectedClassesDetector.detectAffectedClasses(classpath, hashTestConfiguration(javaForkOptions));
+        if (affectedClasses == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, TestClassResult> reusableTestClassResults = new HashMap<String, TestClassResult>();
+        for (TestClassResult testClassResult : previousPassedTestClasses.values()) {
+            String className = testClassResult.getClassName();
+            int nestedSeparator = className.indexOf('$');
+            String outerClassName = nestedSeparator < 0 ? className : className.substring(0, nestedSeparator);
+            if (!affectedClasses.contains(className) && !affectedClasses.contains(outerClassName)) {
+                reusableTestClassResults.put(className, testClassResult);
+            }
+        }
+        getLogger().info("Reusing the previous results of {} test classes not affected by the changes.", reusableTestClassResults.size());
+        return reusableTestClassResults;
+    }
+
+    private HashCode hashTestConfiguration(JavaForkOptions javaForkOptions) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(getTestFramework().getClass().getName());
+        hasher.putString(String.valueOf(javaForkOptions.getExecutable()));
+        List<String> jvmArgs = javaForkOptions.getAllJvmArgs();
+        hasher.putInt(jvmArgs.size());
+        for (String jvmArg : jvmArgs) {
+            hasher.putString(jvmArg);
+        }
+        // Only the variables set for the tests, as the inherited environment holds variables that differ between shells and sessions
+        Map<String, String> environment = new TreeMap<String, String>();
+        for (Map.Entry<String, Object> entry : javaForkOptions.getEnvironment().entrySet()) {
+            String value = String.valueOf(entry.getValue());
+            if (!value.equals(System.getenv(entry.getKey()))) {
+                environment.put(entry.getKey(), value);
+            }
+        }
+        hasher.putInt(environment.size());
+        for (Map.Entry<String, String> entry : environment.entrySet()) {
+            hasher.putString(entry.getKey());
+            hasher.putString(entry.getValue());
+        }
+        return hasher.hash();
     }
 
     @TaskAction
@@ -587,19 +661,24 @@ public class Test extends AbstractTestTask implements JavaForkOptions, PatternFi
             super.executeTests();
         } finally {
             testFramework = null;
+            if (affectedClassesDetector != null) {
+                affectedClassesDetector.recordState();
+                affectedClassesDetector = null;
+            }
         }
     }
 
     @Override
     protected TestExecuter<JvmTestExecutionSpec> createTestExecuter() {
         if (testExecuter == null) {
-            return new DefaultTestExecuter(getProcessBuilderFactory(), getActorFactory(), getModuleRegistry(),
+            return new DefaultTestExecuter(getProcessBuilderFactory(), getActorFactory(), getServices().get(ExecutorFactory.class), getModuleRegistry(),
                 getServices().get(WorkerLeaseRegistry.class),
                 getServices().get(BuildOperationExecutor.class),
                 getServices().get(StartParameter.class).getMaxWorkerCount(),
                 getServices().get(Clock.class),
                 getServices().get(DocumentationRegistry.class),
-                (DefaultTestFilter) getFilter());
+                (DefaultTestFilter) getFilter(),
+                getServices().get(TestWorkerPool.class));
         } else {
             return testExecuter;
         }
@@ -1002,6 +1081,133 @@ public class Test extends AbstractTestTask implements JavaForkOptions, PatternFi
         this.maxParallelForks = maxParallelForks;
     }
 
+    /**
+     * Returns the number of shards the test classes of this task are split into. Each execution of this task only runs the
+     * test classes of the shard selected by {@link #getShardIndex()}. The default value is 1 (all test classes are run).
+     *
+     * @return The number of shards.
+     * @since 5.1
+     */
+    @Incubating
+    @Input
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Sets the number of shards the test classes of this task are split into. A test class is assigned to a shard based on its
+     * name only, so each shard can be run on a different machine, and adding or removing a test class does not move the others.
+     *
+     * @param shardCount The number of shards.
+     * @since 5.1
+     */
+    @Incubating
+    public void setShardCount(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Cannot set shardCount to a value less than 1.");
+        }
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * Returns the zero-based index of the shard whose test classes are run by this task. The default value is 0.
+     *
+     * @return The shard index.
+     * @since 5.1
+     */
+    @Incubating
+    @Input
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    /**
+     * Sets the zero-based index of the shard whose test classes are run by this task. Must be less than {@link #getShardCount()}.
+     *
+     * @param shardIndex The shard index.
+     * @since 5.1
+     */
+    @Incubating
+    public void setShardIndex(int shardIndex) {
+        if (shardIndex < 0) {
+            throw new IllegalArgumentException("Cannot set shardIndex to a value less than 0.");
+        }
+        this.shardIndex = shardIndex;
+    }
+
+    /**
+     * Returns whether only the test classes affected by the changes since the previous execution of this task are run. The default value is false.
+     *
+     * @return true if only the affected test classes are run.
+     * @since 5.1
+     */
+    @Incubating
+    @Input
+    public boolean isRunOnlyAffectedTestClasses() {
+        return runOnlyAffectedTestClasses;
+    }
+
+    /**
+     * Sets whether only the test classes affected by the changes since the previous execution of this task are run.
+     *
+     * <p>A test class is affected when its class file changed, or when it depends, directly or transitively, on a class whose
+     * class file changed. Test classes that failed in the previous execution and test classes without a previous result are
+     * always run. For the other test classes, the results of the previous execution are reported again. All test classes are run
+     * when a jar or resource on the test runtime classpath, the JVM arguments or the environment variables set for the tests changed,
+     * when the binary test results were not produced by the previous execution of this task, or when a changed class declares constants
+     * that may have been inlined into other classes.</p>
+     *
+     * <p>The output of the test classes that are not run is not reported again.</p>
+     *
+     * @param runOnlyAffectedTestClasses true if only the affected test classes should be run.
+     * @since 5.1
+     */
+    @Incubating
+    public void setRunOnlyAffectedTestClasses(boolean runOnlyAffectedTestClasses) {
+        this.runOnlyAffectedTestClasses = runOnlyAffectedTestClasses;
+    }
+
+    /**
+     * Returns whether forked test processes are reused by later executions of this task and of other tasks. The default value is false.
+     *
+     * @return true if forked test processes are reused.
+     * @since 5.1
+     */
+    @Incubating
+    @Internal
+    public boolean isReuseForks() {
+        return reuseForks;
+    }
+
+    /**
+     * Sets whether forked test processes are reused by later executions of this task and of other tasks.
+     *
+     * <p>When enabled, the forked test processes are kept running once this task has finished, and are reused by test tasks that start
+     * their forked test processes with the same JVM arguments, environment and working directory, and with the same jars on their test
+     * runtime classpath, in the same build or in later builds run by the same daemon. The classes of the directories of the test runtime
+     * classpath are loaded by a new class loader for each task. Before a forked test process is reused, its system properties and security
+     * manager are reset. A forked test process is not reused when threads started by the tests are still running, or when most of its heap
+     * is still in use.</p>
+     *
+     * <p>As the directories of the test runtime classpath are not on the application classpath of a reused process, code from the jars on the
+     * test runtime classpath cannot see the classes of these directories, such as the classes under test and the test classes, unless it uses
+     * the context class loader. Libraries that look classes up by name with {@code Class.forName()}, use {@link java.util.ServiceLoader} without
+     * the context class loader, or resolve extensions by class name through their own class loader, fail to find these classes. Do not enable
+     * this property for such tests.</p>
+     *
+     * <p>Tests that rely on state held by the classes of the jars on the test runtime classpath may behave differently when run in a reused
+     * process. Forked test processes are never reused when {@link #getForkEvery()} is set, when they run with a Java agent, or when a directory
+     * of the test runtime classpath declares services in {@code META-INF/services}, as these services are mostly looked up by code from the
+     * jars.</p>
+     *
+     * @param reuseForks true if forked test processes should be reused.
+     * @since 5.1
+     */
+    @Incubating
+    public void setReuseForks(boolean reuseForks) {
+        this.reuseForks = reuseForks;
+    }
+
     /**
      * Returns the classes files to scan for test classes.
      *
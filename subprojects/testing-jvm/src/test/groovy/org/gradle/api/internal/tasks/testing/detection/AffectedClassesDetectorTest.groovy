@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.hash.Hashing
+import org.gradle.internal.hash.TestFileHasher
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class AffectedClassesDetectorTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmp = new TestNameTestDirectoryProvider()
+    def classesDir = tmp.createDir("classes")
+    def resultsFile = tmp.file("results.bin")
+    def detector = new AffectedClassesDetector(new TestFileHasher(), new StringInterner(), tmp.file("state.bin"), resultsFile)
+
+    def setup() {
+        [AffectedClassesDetectorBase, AffectedClassesDetectorSub, AffectedClassesDetectorOther].each { copyClassFile(it) }
+    }
+
+    def "all classes are affected when there is no previous state"() {
+        expect:
+        detector.detectAffectedClasses([classesDir], config("config")) == null
+    }
+
+    def "no class is affected when nothing changed"() {
+        given:
+        run([classesDir])
+
+        expect:
+        detector.detectAffectedClasses([classesDir], config("config")) == [] as Set
+    }
+
+    def "changed classes and their dependents are affected"() {
+        given:
+        run([classesDir])
+
+        when:
+        change(AffectedClassesDetectorBase)
+
+        then:
+        detector.detectAffectedClasses([classesDir], config("config")) == [AffectedClassesDetectorBase.name, AffectedClassesDetectorSub.name] as Set
+    }
+
+    def "all classes are affected when a resource changed"() {
+        given:
+        run([classesDir])
+
+        when:
+        classesDir.file("some.properties").text = "changed"
+
+        then:
+        detector.detectAffectedClasses([classesDir], config("config")) == null
+    }
+
+    def "all classes are affected when the configuration changed"() {
+        given:
+        run([classesDir])
+
+        expect:
+        detector.detectAffectedClasses([classesDir], config("other config")) == null
+    }
+
+    def "all classes are affected when the classpath changed"() {
+        given:
+        def jar = tmp.file("lib.jar")
+        jar.text = "jar"
+        run([classesDir, jar])
+
+        when:
+        jar.text = "changed"
+
+        then:
+        detector.detectAffectedClasses([classesDir, jar], config("config")) == null
+        detector.detectAffectedClasses([classesDir], config("config")) == null
+    }
+
+    def "all classes are affected when the results were not written by the run that recorded the state"() {
+        given:
+        run([classesDir])
+
+        when:
+        resultsFile.text = "other results"
+
+        then:
+        detector.detectAffectedClasses([classesDir], config("config")) == null
+    }
+
+    def "does not record state when no results were written"() {
+        given:
+        run([classesDir])
+        detector.detectAffectedClasses([classesDir], config("config"))
+        resultsFile.delete()
+        detector.recordState()
+
+        when:
+        resultsFile.text = "results"
+
+        then:
+        detector.detectAffectedClasses([classesDir], config("config")) == null
+    }
+
+    private void run(List<File> classpath) {
+        detector.detectAffectedClasses(classpath, config("config"))
+        resultsFile.text = "results"
+        detector.recordState()
+    }
+
+    private static HashCode config(String value) {
+        return Hashing.hashString(value)
+    }
+
+    private void copyClassFile(Class<?> type) {
+        classFile(type).bytes = type.getResourceAsStream("/${type.name.replace('.', '/')}.class").bytes
+    }
+
+    private void change(Class<?> type) {
+        def file = classFile(type)
+        // Trailing bytes are ignored when the class file is parsed
+        file.bytes = file.bytes + ([0] as byte[])
+    }
+
+    private TestFile classFile(Class<?> type) {
+        return classesDir.file("${type.name.replace('.', '/')}.class")
+    }
+}
+
+class AffectedClassesDetectorBase {
+}
+
+class AffectedClassesDetectorSub extends AffectedClassesDetectorBase {
+}
+
+class AffectedClassesDetectorOther {
+}
@@ -22,6 +22,7 @@ import org.gradle.api.file.FileVisitor
 import org.gradle.api.file.RelativePath
 import org.gradle.api.internal.file.DefaultFileVisitDetails
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.junit.Test
 import spock.lang.Specification
 import spock.lang.Subject
@@ -78,6 +79,26 @@ class DefaultTestClassScannerTest extends Specification {
         0 * _._
     }
 
+    def "passes each class file to test class detector using several threads"() {
+        given:
+        scanner = new DefaultTestClassScanner(files, detector, processor, new DefaultExecutorFactory(), 4)
+        def classFiles = (1..20).collect { stubFileVisitDetails("class$it") }
+        def detected = [].asSynchronized()
+
+        when:
+        scanner.run()
+
+        then:
+        1 * detector.startDetection(processor)
+        1 * files.visit(_) >> { args ->
+            FileVisitor visitor = args[0]
+            classFiles.each { visitor.visitFile(it) }
+        }
+        20 * detector.processTestClass(_) >> { args -> detected << args[0].file; true }
+        detected as Set == classFiles*.file as Set
+        0 * _._
+    }
+
     FileVisitDetails stubFileVisitDetails(String className) {
         return new DefaultFileVisitDetails(new File("${className}.class"), new RelativePath(false, "${className}.class"), null, null, null)
     }